@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.benchmarks;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.OSGiRunnable.ExecutionContext;
+import org.apache.aries.component.dsl.Publisher;
+import org.apache.aries.component.dsl.internal.ProbeImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Measures {@link OSGi#applyTo}, which {@link OSGi#combine} is built on, with
+ * live values and live functions on both sides of the cross product.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+public class ApplyToBenchmark {
+
+    /**
+     * A value arrives, is combined with every live function and leaves.
+     */
+    @Benchmark
+    public void valueArrival(CrossProductState state) {
+        state.values.publish(-1).close();
+    }
+
+    /**
+     * Same as {@link #valueArrival} from several threads at once.
+     */
+    @Benchmark
+    @Threads(4)
+    public void concurrentValueArrival(CrossProductState state) {
+        state.values.publish(-1).close();
+    }
+
+    /**
+     * Updates a function, which updates its combination with every live
+     * value.
+     */
+    @Benchmark
+    public boolean functionUpdate(CrossProductState state) {
+        return state.function.update();
+    }
+
+    @State(Scope.Benchmark)
+    public static class CrossProductState {
+
+        @Param({"4"})
+        public int liveFunctions;
+
+        @Param({"1", "100", "10000"})
+        public int liveValues;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            ProbeImpl<Integer> valueProbe = new ProbeImpl<>();
+            ProbeImpl<Function<Integer, Integer>> functionProbe =
+                new ProbeImpl<>();
+
+            result = valueProbe.applyTo(functionProbe).run(
+                new ExecutionContext(null), SINK);
+
+            values = valueProbe.getPublisher();
+            functions = functionProbe.getPublisher();
+
+            live = new OSGiResult[liveValues + liveFunctions];
+
+            for (int i = 0; i < liveValues; i++) {
+                live[i] = values.publish(i);
+            }
+
+            for (int i = 0; i < liveFunctions; i++) {
+                int offset = i;
+                Function<Integer, Integer> function = x -> x + offset;
+
+                live[liveValues + i] = functions.publish(function);
+            }
+
+            function = live[live.length - 1];
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            for (int i = live.length - 1; i >= 0; i--) {
+                live[i].close();
+            }
+
+            result.close();
+        }
+
+        OSGiResult function;
+        Publisher<? super Function<Integer, Integer>> functions;
+        OSGiResult[] live;
+        OSGiResult result;
+        Publisher<? super Integer> values;
+
+    }
+
+    private static final Publisher<Object> SINK = __ -> OSGi.NOOP;
+
+}
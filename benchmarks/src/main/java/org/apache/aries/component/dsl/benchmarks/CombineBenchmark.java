@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.benchmarks;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.OSGiRunnable.ExecutionContext;
+import org.apache.aries.component.dsl.Publisher;
+import org.apache.aries.component.dsl.internal.CombineOSGiImpl;
+import org.apache.aries.component.dsl.internal.ProbeImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Measures a wide combination, as a component depending on many
+ * configurations and services has, with the native N-ary stage used by
+ * {@link OSGi#combine} and with the chain of {@link OSGi#applyTo} stages it
+ * used to be built from.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+public class CombineBenchmark {
+
+    /**
+     * An element arrives on the first program, completing one more
+     * combination, and leaves.
+     */
+    @Benchmark
+    public void firstArrival(CombineState state) {
+        state.firstPublisher.publish(-1).close();
+    }
+
+    /**
+     * An element arrives on the last program, completing one more
+     * combination, and leaves.
+     */
+    @Benchmark
+    public void lastArrival(CombineState state) {
+        state.lastPublisher.publish(-1).close();
+    }
+
+    /**
+     * Updates the element of the first program, which takes part in every
+     * combination.
+     */
+    @Benchmark
+    public boolean update(CombineState state) {
+        return state.live[0].update();
+    }
+
+    public enum Strategy {
+
+        COMBINE {
+            @Override
+            OSGi<Object[]> combine(OSGi<Integer>[] programs) {
+                return new CombineOSGiImpl<>(Object[]::clone, programs);
+            }
+        },
+        CHAINED_APPLY_TO {
+            @Override
+            @SuppressWarnings("unchecked")
+            OSGi<Object[]> combine(OSGi<Integer>[] programs) {
+                OSGi<Object> chained = OSGi.just(
+                    curry(new Object[programs.length], 0));
+
+                for (OSGi<Integer> program : programs) {
+                    chained = program.applyTo(
+                        chained.map(f -> (Function<Integer, Object>)f));
+                }
+
+                return chained.map(tuple -> (Object[])tuple);
+            }
+        };
+
+        abstract OSGi<Object[]> combine(OSGi<Integer>[] programs);
+
+        private static Object curry(Object[] values, int index) {
+            if (index == values.length) {
+                return values;
+            }
+
+            return (Function<Object, Object>)value -> {
+                Object[] applied = Arrays.copyOf(values, values.length);
+
+                applied[index] = value;
+
+                return curry(applied, index + 1);
+            };
+        }
+
+    }
+
+    @State(Scope.Thread)
+    public static class CombineState {
+
+        @Param
+        public Strategy strategy;
+
+        @Param({"2", "5", "10"})
+        public int width;
+
+        @Setup(Level.Trial)
+        @SuppressWarnings("unchecked")
+        public void setUp() {
+            ProbeImpl<Integer>[] probes = new ProbeImpl[width];
+
+            for (int i = 0; i < width; i++) {
+                probes[i] = new ProbeImpl<>();
+            }
+
+            result = strategy.combine(probes).run(
+                new ExecutionContext(null), SINK);
+
+            live = new OSGiResult[width];
+
+            for (int i = 0; i < width; i++) {
+                live[i] = probes[i].getPublisher().publish(i);
+            }
+
+            firstPublisher = probes[0].getPublisher();
+            lastPublisher = probes[width - 1].getPublisher();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            for (int i = live.length - 1; i >= 0; i--) {
+                live[i].close();
+            }
+
+            result.close();
+        }
+
+        Publisher<? super Integer> firstPublisher;
+        Publisher<? super Integer> lastPublisher;
+        OSGiResult[] live;
+        OSGiResult result;
+
+    }
+
+    private static final Publisher<Object> SINK = __ -> OSGi.NOOP;
+
+}
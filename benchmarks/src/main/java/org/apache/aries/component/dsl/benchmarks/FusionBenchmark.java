@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.benchmarks;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.OSGiRunnable.ExecutionContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of publishing an element through, and of running, a
+ * chain of 1, 10 or 50 pairs of {@code map} and {@code filter} stages.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+public class FusionBenchmark {
+
+    @Benchmark
+    public OSGiResult publish(PublishState state) {
+        OSGiResult result = state.publishNext();
+
+        result.close();
+
+        return result;
+    }
+
+    @Benchmark
+    public OSGiResult run(RunState state) {
+        OSGiResult result = state.program.run(
+            new ExecutionContext(null), __ -> OSGi.NOOP);
+
+        result.close();
+
+        return result;
+    }
+
+    static OSGi<Integer> chain(OSGi<Integer> program, int stages) {
+        for (int i = 0; i < stages; i++) {
+            program = program.map(x -> x + 1).filter(x -> x != 0);
+        }
+
+        return program;
+    }
+
+    public static class PublishState extends ProgramState {
+
+        @Param({"1", "10", "50"})
+        public int stages;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            start(program -> chain(program, stages), 0);
+        }
+
+    }
+
+    @State(Scope.Thread)
+    public static class RunState {
+
+        @Param({"1", "10", "50"})
+        public int stages;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            program = chain(OSGi.just(1), stages);
+        }
+
+        OSGi<Integer> program;
+
+    }
+
+}
@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.benchmarks;
+
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.Utils;
+import org.apache.aries.component.dsl.internal.IndexedHeap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures departures of arbitrary elements from {@link Utils#highest}, which
+ * is what happens when ranked services are unregistered in bulk, and compares
+ * the heap it uses with {@link PriorityQueue}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+public class HighestRankingBenchmark {
+
+    /**
+     * Closes a random element, which is almost never the highest one, and
+     * publishes it again.
+     */
+    @Benchmark
+    public OSGiResult churn(ChurnState state) {
+        int index = state.random.nextInt(state.liveElements);
+
+        OSGiResult[] live = state.live();
+
+        live[index].close();
+
+        return live[index] = state.publish(index);
+    }
+
+    /**
+     * Closes every element in random order, as a bundle refresh
+     * unregistering all the ranked services does.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Measurement(iterations = 10)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    public void massDeparture(MassDepartureState state) {
+        for (int index : state.order) {
+            state.live()[index].close();
+        }
+    }
+
+    /**
+     * Removes a random element from the heap and adds it back.
+     */
+    @Benchmark
+    public Object heapReplace(HeapState state) {
+        Ranked ranked = state.elements[
+            state.random.nextInt(state.elements.length)];
+
+        state.rankedHeap.remove(ranked);
+        state.rankedHeap.add(ranked);
+
+        return state.rankedHeap.peek();
+    }
+
+    public enum Heap {
+
+        INDEXED_HEAP {
+            @Override
+            RankedHeap create() {
+                IndexedHeap<Ranked> heap = new IndexedHeap<>(RANKING);
+
+                return new RankedHeap() {
+                    @Override
+                    public void add(Ranked ranked) {
+                        heap.add(ranked);
+                    }
+
+                    @Override
+                    public Ranked peek() {
+                        return heap.peek();
+                    }
+
+                    @Override
+                    public void remove(Ranked ranked) {
+                        heap.remove(ranked);
+                    }
+                };
+            }
+        },
+        PRIORITY_QUEUE {
+            @Override
+            RankedHeap create() {
+                PriorityQueue<Ranked> heap = new PriorityQueue<>(RANKING);
+
+                return new RankedHeap() {
+                    @Override
+                    public void add(Ranked ranked) {
+                        heap.add(ranked);
+                    }
+
+                    @Override
+                    public Ranked peek() {
+                        return heap.peek();
+                    }
+
+                    @Override
+                    public void remove(Ranked ranked) {
+                        heap.remove(ranked);
+                    }
+                };
+            }
+        };
+
+        abstract RankedHeap create();
+
+    }
+
+    public static class ChurnState extends ProgramState {
+
+        @Param({"100", "10000"})
+        public int liveElements;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            start(Utils::highest, liveElements);
+        }
+
+        final Random random = new Random(42);
+
+    }
+
+    @State(Scope.Thread)
+    public static class HeapState {
+
+        @Param
+        public Heap heap;
+
+        @Param({"100", "10000"})
+        public int size;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            elements = new Ranked[size];
+            rankedHeap = heap.create();
+
+            for (int i = 0; i < size; i++) {
+                elements[i] = new Ranked(random.nextInt());
+
+                rankedHeap.add(elements[i]);
+            }
+        }
+
+        Ranked[] elements;
+        final Random random = new Random(42);
+        RankedHeap rankedHeap;
+
+    }
+
+    public static class MassDepartureState extends ProgramState {
+
+        @Param({"1000", "10000"})
+        public int liveElements;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            start(Utils::highest, liveElements);
+
+            order = new int[liveElements];
+
+            for (int i = 0; i < liveElements; i++) {
+                int j = random.nextInt(i + 1);
+
+                order[i] = order[j];
+                order[j] = i;
+            }
+        }
+
+        @TearDown(Level.Iteration)
+        public void closeProgram() {
+            tearDown();
+        }
+
+        int[] order;
+        final Random random = new Random(42);
+
+    }
+
+    interface RankedHeap {
+
+        void add(Ranked ranked);
+
+        Ranked peek();
+
+        void remove(Ranked ranked);
+
+    }
+
+    static class Ranked extends IndexedHeap.Node {
+
+        Ranked(int rank) {
+            this.rank = rank;
+        }
+
+        final int rank;
+
+    }
+
+    private static final Comparator<Ranked> RANKING =
+        Comparator.<Ranked>comparingInt(r -> r.rank).reversed();
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.benchmarks;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.Utils;
+
+import java.util.function.Function;
+
+/**
+ * The operators under measurement, each one applied to a source of integers.
+ */
+public enum Operator {
+
+    MAP(source -> source.map(i -> i + 1)),
+    FILTER(source -> source.filter(i -> i >= 0)),
+    FLAT_MAP(source -> source.flatMap(OSGi::just)),
+    APPLY_TO(source -> source.applyTo(OSGi.just(Function.identity()))),
+    SPLIT_BY(source -> source.splitBy(i -> OSGi.just(i & 15), (k, p) -> p)),
+    CHOOSE(
+        source -> source.choose(i -> OSGi.just((i & 1) == 0), p -> p, p -> p)),
+    DISTRIBUTE(source -> source.distribute(p -> p, p -> p)),
+    EFFECTS(source -> source.effects(__ -> {}, __ -> {})),
+    COALESCE(source -> OSGi.coalesce(source, OSGi.just(-1))),
+    HIGHEST(Utils::highest),
+    ALL(source -> OSGi.all(source, OSGi.nothing())),
+    ONLY_LAST(Utils::onlyLast),
+    ACCUMULATE(Utils::accumulate),
+    ACCUMULATE_SNAPSHOTS(Utils::accumulateSnapshots),
+    ACCUMULATE_IN_MAP(
+        source -> Utils.accumulateInMap(source, OSGi::just, OSGi::just)),
+    ACCUMULATE_IN_MAP_SNAPSHOTS(
+        source -> Utils.accumulateInMapSnapshots(
+            source, OSGi::just, OSGi::just));
+
+    Operator(Function<OSGi<Integer>, OSGi<?>> program) {
+        _program = program;
+    }
+
+    public OSGi<?> apply(OSGi<Integer> source) {
+        return _program.apply(source);
+    }
+
+    private final Function<OSGi<Integer>, OSGi<?>> _program;
+
+}
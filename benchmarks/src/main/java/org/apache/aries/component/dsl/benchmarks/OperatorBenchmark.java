@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.benchmarks;
+
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.internal.UpdateSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures, for every core operator, the cost of publishing an element, of
+ * closing the terminator of an element and of propagating an update through
+ * an element while the operator holds 1, 100 or 10k live elements.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+public class OperatorBenchmark {
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public OSGiResult publish(PublishState state) {
+        return state.published = state.publishNext();
+    }
+
+    @Benchmark
+    public void close(CloseState state) {
+        state.published.close();
+    }
+
+    @Benchmark
+    public boolean update(UpdateState state) {
+        return UpdateSupport.sendUpdate(state.last());
+    }
+
+    public static class OperatorState extends ProgramState {
+
+        @Param
+        public Operator operator;
+
+        @Param({"1", "100", "10000"})
+        public int liveElements;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            start(operator::apply, liveElements);
+        }
+
+    }
+
+    public static class PublishState extends OperatorState {
+
+        @TearDown(Level.Invocation)
+        public void closePublished() {
+            published.close();
+        }
+
+        OSGiResult published;
+
+    }
+
+    public static class CloseState extends OperatorState {
+
+        @Setup(Level.Invocation)
+        public void publishOne() {
+            published = publishNext();
+        }
+
+        OSGiResult published;
+
+    }
+
+    public static class UpdateState extends OperatorState {
+    }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.benchmarks;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.OSGiRunnable.ExecutionContext;
+import org.apache.aries.component.dsl.Publisher;
+import org.apache.aries.component.dsl.internal.ProbeImpl;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.function.Function;
+
+/**
+ * Runs a program on top of a probe so elements can be pushed into it
+ * directly, without any OSGi framework involved, and keeps a population of
+ * live elements in it.
+ */
+@State(Scope.Thread)
+public abstract class ProgramState {
+
+    public OSGiResult publish(int value) {
+        return _publisher.publish(value);
+    }
+
+    public OSGiResult publishNext() {
+        return publish(_next++);
+    }
+
+    public OSGiResult last() {
+        return _live[_live.length - 1];
+    }
+
+    public OSGiResult[] live() {
+        return _live;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (int i = _live.length - 1; i >= 0; i--) {
+            _live[i].close();
+        }
+
+        _result.close();
+    }
+
+    protected void start(
+        Function<OSGi<Integer>, OSGi<?>> program, int liveElements) {
+
+        ProbeImpl<Integer> probe = new ProbeImpl<>();
+
+        _result = program.apply(probe).run(
+            new ExecutionContext(null), SINK);
+
+        _publisher = probe.getPublisher();
+
+        _live = new OSGiResult[liveElements];
+
+        for (int i = 0; i < liveElements; i++) {
+            _live[i] = publishNext();
+        }
+    }
+
+    private static final Publisher<Object> SINK = __ -> OSGi.NOOP;
+
+    private OSGiResult[] _live;
+    private int _next;
+    private Publisher<? super Integer> _publisher;
+    private OSGiResult _result;
+
+}
@@ -0,0 +1,315 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.benchmarks;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.test.framework.InMemoryConfigurationAdmin;
+import org.apache.aries.component.dsl.test.framework.InMemoryFramework;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleException;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.service.cm.Configuration;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the programs backed by the OSGi registry, running on top of an
+ * {@link InMemoryFramework} so that only the cost of the DSL and of event
+ * delivery is measured, while the registry holds 1, 100 or 10k other
+ * services, configurations or bundles.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+public class RegistryBenchmark {
+
+    @Benchmark
+    public void bundleStartStop(BundleState state) throws BundleException {
+        state.bundle.start();
+        state.bundle.stop();
+    }
+
+    @Benchmark
+    public void configurationUpdate(ConfigurationState state)
+        throws IOException {
+
+        state.configuration.update(state.properties);
+    }
+
+    @Benchmark
+    public void factoryConfigurationUpdate(FactoryConfigurationState state)
+        throws IOException {
+
+        state.configuration.update(state.properties);
+    }
+
+    @Benchmark
+    public void register(RegisterState state) {
+        state.program.run(state.bundleContext).close();
+    }
+
+    @Benchmark
+    public void serviceModified(ServiceState state) {
+        state.serviceRegistration.setProperties(state.properties);
+    }
+
+    @Benchmark
+    public void programsConfigurationUpdate(ConfigurationProgramsState state)
+        throws IOException {
+
+        state.configuration.update(state.properties);
+    }
+
+    @Benchmark
+    public void programsServiceRegistration(ProgramsState state) {
+        state.bundleContext.registerService(
+            Service.class, new Service(), state.properties
+        ).unregister();
+    }
+
+    @Benchmark
+    public void serviceRegistration(ServiceState state) {
+        state.bundleContext.registerService(
+            Service.class, new Service(), state.properties
+        ).unregister();
+    }
+
+    public static class Service {
+    }
+
+    @State(Scope.Thread)
+    public static class FrameworkState {
+
+        @Param({"1", "100", "10000"})
+        public int liveElements;
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            if (result != null) {
+                result.close();
+            }
+        }
+
+        protected void start(OSGi<?> program) {
+            result = program.run(bundleContext);
+        }
+
+        final InMemoryFramework framework = new InMemoryFramework();
+        final BundleContext bundleContext = framework.getBundleContext();
+        final Hashtable<String, Object> properties = new Hashtable<>();
+        OSGiResult result;
+
+    }
+
+    public static class BundleState extends FrameworkState {
+
+        @Setup(Level.Trial)
+        public void setUp() throws BundleException {
+            for (int i = 0; i < liveElements; i++) {
+                framework.installBundle("bundle." + i).start();
+            }
+
+            bundle = framework.installBundle("measured");
+
+            start(OSGi.bundles(Bundle.ACTIVE));
+        }
+
+        Bundle bundle;
+
+    }
+
+    public static class ConfigurationState extends FrameworkState {
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            InMemoryConfigurationAdmin configurationAdmin =
+                new InMemoryConfigurationAdmin(bundleContext);
+
+            configurationAdmin.open();
+
+            for (int i = 0; i < liveElements; i++) {
+                configurationAdmin.getConfiguration("pid." + i).update(
+                    new Hashtable<>());
+            }
+
+            configuration = configurationAdmin.getConfiguration("measured");
+
+            configuration.update(properties);
+
+            start(OSGi.configuration("measured"));
+        }
+
+        Configuration configuration;
+
+    }
+
+    public static class FactoryConfigurationState extends FrameworkState {
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            InMemoryConfigurationAdmin configurationAdmin =
+                new InMemoryConfigurationAdmin(bundleContext);
+
+            configurationAdmin.open();
+
+            for (int i = 0; i < liveElements; i++) {
+                configurationAdmin.createFactoryConfiguration(
+                    "factory.pid").update(new Hashtable<>());
+            }
+
+            configuration = configurationAdmin.createFactoryConfiguration(
+                "factory.pid");
+
+            configuration.update(properties);
+
+            start(OSGi.configurations("factory.pid"));
+        }
+
+        Configuration configuration;
+
+    }
+
+    /**
+     * Many programs tracking a configuration each, as an application made of
+     * many configurable components.
+     */
+    @State(Scope.Thread)
+    public static class ConfigurationProgramsState {
+
+        @Param({"1", "100", "1500"})
+        public int programs;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            InMemoryConfigurationAdmin configurationAdmin =
+                new InMemoryConfigurationAdmin(bundleContext);
+
+            configurationAdmin.open();
+
+            for (int i = 0; i < programs; i++) {
+                results.add(
+                    OSGi.configuration("pid." + i).run(bundleContext));
+            }
+
+            configuration = configurationAdmin.getConfiguration("pid.0");
+
+            configuration.update(properties);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            results.forEach(OSGiResult::close);
+        }
+
+        final InMemoryFramework framework = new InMemoryFramework();
+        final BundleContext bundleContext = framework.getBundleContext();
+        Configuration configuration;
+        final Hashtable<String, Object> properties = new Hashtable<>();
+        final List<OSGiResult> results = new ArrayList<>();
+
+    }
+
+    /**
+     * Many programs tracking the same services, as an application made of
+     * many components depending on the same handful of interfaces.
+     */
+    @State(Scope.Thread)
+    public static class ProgramsState {
+
+        @Param({"1", "100", "400"})
+        public int programs;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            for (int i = 0; i < programs; i++) {
+                results.add(
+                    OSGi.serviceReferences(Service.class).run(bundleContext));
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            results.forEach(OSGiResult::close);
+        }
+
+        final InMemoryFramework framework = new InMemoryFramework();
+        final BundleContext bundleContext = framework.getBundleContext();
+        final Hashtable<String, Object> properties = new Hashtable<>();
+        final List<OSGiResult> results = new ArrayList<>();
+
+    }
+
+    public static class RegisterState extends FrameworkState {
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            for (int i = 0; i < liveElements; i++) {
+                bundleContext.registerService(
+                    Service.class, new Service(), new Hashtable<>());
+            }
+
+            start(OSGi.services(Service.class));
+        }
+
+        final OSGi<ServiceRegistration<Service>> program = OSGi.register(
+            Service.class, new Service(), Collections.emptyMap());
+
+    }
+
+    public static class ServiceState extends FrameworkState {
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            for (int i = 0; i < liveElements; i++) {
+                bundleContext.registerService(
+                    Service.class, new Service(), new Hashtable<>());
+            }
+
+            serviceRegistration = bundleContext.registerService(
+                Service.class, new Service(), properties);
+
+            start(OSGi.serviceReferences(Service.class));
+        }
+
+        ServiceRegistration<Service> serviceRegistration;
+
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.benchmarks;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.internal.UpdateSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of sending an update through a pipeline of 1, 10 or 50
+ * stages, each of them deferring an action to the end of the update, the way
+ * {@code effects} with an {@code onUpdate} does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+public class UpdateSupportBenchmark {
+
+    @Benchmark
+    public boolean sendUpdate(PipelineState state) {
+        return UpdateSupport.sendUpdate(state.last());
+    }
+
+    public static class PipelineState extends ProgramState {
+
+        @Param({"1", "10", "50"})
+        public int depth;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            start(this::pipeline, 1);
+        }
+
+        private OSGi<Integer> pipeline(OSGi<Integer> program) {
+            for (int i = 0; i < depth; i++) {
+                program = program.effects(__ -> {}, __ -> {}, __ -> {});
+            }
+
+            return program;
+        }
+
+    }
+
+}
@@ -52,7 +52,9 @@ import org.osgi.framework.ServiceObjects;
 import org.osgi.framework.ServiceReference;
 import org.osgi.framework.ServiceRegistration;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.Executor;
 import java.util.function.*;
 
 /**
@@ -85,104 +87,400 @@ public interface OSGi<T> extends OSGiRunnable<T> {
 		return new CoalesceOSGiImpl<>(programs);
 	}
 
-	static <A, B, RES> OSGi<RES> combine(Function2<A, B, RES> fun, OSGi<A> a, OSGi<B> b) {
-		return b.applyTo(a.applyTo(just(fun.curried())));
-	}
+	@SuppressWarnings("unchecked")
+	static <A, B, RES> OSGi<RES> combine(
+		Function2<A, B, RES> fun, OSGi<A> a, OSGi<B> b) {
 
-	static <A, B, C, RES> OSGi<RES> combine(Function3<A, B, C, RES> fun, OSGi<A> a, OSGi<B> b, OSGi<C> c) {
-		return c.applyTo(combine((A aa, B bb) -> fun.curried().apply(aa).apply(bb), a, b));
+		return new CombineOSGiImpl<>(
+			values -> fun.apply((A)values[0], (B)values[1]),
+			a, b);
 	}
 
-	static <A, B, C, D, RES> OSGi<RES> combine(Function4<A, B, C, D, RES> fun, OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d) {
-		return d.applyTo(combine((A aa, B bb, C cc) -> fun.curried().apply(aa).apply(bb).apply(cc), a, b, c));
-	}
+	@SuppressWarnings("unchecked")
+	static <A, B, C, RES> OSGi<RES> combine(
+		Function3<A, B, C, RES> fun, OSGi<A> a, OSGi<B> b, OSGi<C> c) {
 
-	static <A, B, C, D, E, RES> OSGi<RES> combine(Function5<A, B, C, D, E, RES> fun, OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e) {
-		return e.applyTo(combine((A aa, B bb, C cc, D dd) -> fun.curried().apply(aa).apply(bb).apply(cc).apply(dd), a, b, c, d));
+		return new CombineOSGiImpl<>(
+			values -> fun.apply((A)values[0], (B)values[1], (C)values[2]),
+			a, b, c);
 	}
 
-	static <A, B, C, D, E, F, RES> OSGi<RES> combine(Function6<A, B, C, D, E, F, RES> fun, OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f) {
-		return f.applyTo(combine((A aa, B bb, C cc, D dd, E ee) -> fun.curried().apply(aa).apply(bb).apply(cc).apply(dd).apply(ee), a, b, c, d, e));
-	}
+	@SuppressWarnings("unchecked")
+	static <A, B, C, D, RES> OSGi<RES> combine(
+		Function4<A, B, C, D, RES> fun, OSGi<A> a, OSGi<B> b, OSGi<C> c,
+		OSGi<D> d) {
 
-	static <A, B, C, D, E, F, G, RES> OSGi<RES> combine(Function7<A, B, C, D, E, F, G, RES> fun, OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f, OSGi<G> g) {
-		return g.applyTo(combine((A aa, B bb, C cc, D dd, E ee, F ff) -> fun.curried().apply(aa).apply(bb).apply(cc).apply(dd).apply(ee).apply(ff), a, b, c, d, e, f));
+		return new CombineOSGiImpl<>(
+			values -> fun.apply((A)values[0], (B)values[1], (C)values[2],
+				(D)values[3]),
+			a, b, c, d);
 	}
 
-	static <A, B, C, D, E, F, G, H, RES> OSGi<RES> combine(Function8<A, B, C, D, E, F, G, H, RES> fun, OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f, OSGi<G> g, OSGi<H> h) {
-		return h.applyTo(combine((A aa, B bb, C cc, D dd, E ee, F ff, G gg) -> fun.curried().apply(aa).apply(bb).apply(cc).apply(dd).apply(ee).apply(ff).apply(gg), a, b, c, d, e, f, g));
-	}
+	@SuppressWarnings("unchecked")
+	static <A, B, C, D, E, RES> OSGi<RES> combine(
+		Function5<A, B, C, D, E, RES> fun, OSGi<A> a, OSGi<B> b, OSGi<C> c,
+		OSGi<D> d, OSGi<E> e) {
 
-	static <A, B, C, D, E, F, G, H, I, RES> OSGi<RES> combine(Function9<A, B, C, D, E, F, G, H, I, RES> fun, OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f, OSGi<G> g, OSGi<H> h, OSGi<I> i) {
-		return i.applyTo(combine((A aa, B bb, C cc, D dd, E ee, F ff, G gg, H hh) -> fun.curried().apply(aa).apply(bb).apply(cc).apply(dd).apply(ee).apply(ff).apply(gg).apply(hh), a, b, c, d, e, f, g, h));
+		return new CombineOSGiImpl<>(
+			values -> fun.apply((A)values[0], (B)values[1], (C)values[2],
+				(D)values[3], (E)values[4]),
+			a, b, c, d, e);
 	}
 
-	static <A, B, C, D, E, F, G, H, I, J, RES> OSGi<RES> combine(Function10<A, B, C, D, E, F, G, H, I, J, RES> fun, OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f, OSGi<G> g, OSGi<H> h, OSGi<I> i, OSGi<J> j) {
-		return j.applyTo(combine((A aa, B bb, C cc, D dd, E ee, F ff, G gg, H hh, I ii) -> fun.curried().apply(aa).apply(bb).apply(cc).apply(dd).apply(ee).apply(ff).apply(gg).apply(hh).apply(ii), a, b, c, d, e, f, g, h, i));
-	}
+	@SuppressWarnings("unchecked")
+	static <A, B, C, D, E, F, RES> OSGi<RES> combine(
+		Function6<A, B, C, D, E, F, RES> fun, OSGi<A> a, OSGi<B> b, OSGi<C> c,
+		OSGi<D> d, OSGi<E> e, OSGi<F> f) {
 
-	static <A, B, C, D, E, F, G, H, I, J, K, RES> OSGi<RES> combine(Function11<A, B, C, D, E, F, G, H, I, J, K, RES> fun, OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f, OSGi<G> g, OSGi<H> h, OSGi<I> i, OSGi<J> j, OSGi<K> k) {
-		return k.applyTo(combine((A aa, B bb, C cc, D dd, E ee, F ff, G gg, H hh, I ii, J jj) -> fun.curried().apply(aa).apply(bb).apply(cc).apply(dd).apply(ee).apply(ff).apply(gg).apply(hh).apply(ii).apply(jj), a, b, c, d, e, f, g, h, i, j));
+		return new CombineOSGiImpl<>(
+			values -> fun.apply((A)values[0], (B)values[1], (C)values[2],
+				(D)values[3], (E)values[4], (F)values[5]),
+			a, b, c, d, e, f);
 	}
 
-	static <A, B, C, D, E, F, G, H, I, J, K, L, RES> OSGi<RES> combine(Function12<A, B, C, D, E, F, G, H, I, J, K, L, RES> fun, OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f, OSGi<G> g, OSGi<H> h, OSGi<I> i, OSGi<J> j, OSGi<K> k, OSGi<L> l) {
-		return l.applyTo(combine((A aa, B bb, C cc, D dd, E ee, F ff, G gg, H hh, I ii, J jj, K kk) -> fun.curried().apply(aa).apply(bb).apply(cc).apply(dd).apply(ee).apply(ff).apply(gg).apply(hh).apply(ii).apply(jj).apply(kk), a, b, c, d, e, f, g, h, i, j, k));
-	}
+	@SuppressWarnings("unchecked")
+	static <A, B, C, D, E, F, G, RES> OSGi<RES> combine(
+		Function7<A, B, C, D, E, F, G, RES> fun, OSGi<A> a, OSGi<B> b,
+		OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f, OSGi<G> g) {
 
-	static <A, B, C, D, E, F, G, H, I, J, K, L, M, RES> OSGi<RES> combine(Function13<A, B, C, D, E, F, G, H, I, J, K, L, M, RES> fun, OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f, OSGi<G> g, OSGi<H> h, OSGi<I> i, OSGi<J> j, OSGi<K> k, OSGi<L> l, OSGi<M> m) {
-		return m.applyTo(combine((A aa, B bb, C cc, D dd, E ee, F ff, G gg, H hh, I ii, J jj, K kk, L ll) -> fun.curried().apply(aa).apply(bb).apply(cc).apply(dd).apply(ee).apply(ff).apply(gg).apply(hh).apply(ii).apply(jj).apply(kk).apply(ll), a, b, c, d, e, f, g, h, i, j, k, l));
+		return new CombineOSGiImpl<>(
+			values -> fun.apply((A)values[0], (B)values[1], (C)values[2],
+				(D)values[3], (E)values[4], (F)values[5], (G)values[6]),
+			a, b, c, d, e, f, g);
 	}
 
-	static <A, B, C, D, E, F, G, H, I, J, K, L, M, N, RES> OSGi<RES> combine(Function14<A, B, C, D, E, F, G, H, I, J, K, L, M, N, RES> fun, OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f, OSGi<G> g, OSGi<H> h, OSGi<I> i, OSGi<J> j, OSGi<K> k, OSGi<L> l, OSGi<M> m, OSGi<N> n) {
-		return n.applyTo(combine((A aa, B bb, C cc, D dd, E ee, F ff, G gg, H hh, I ii, J jj, K kk, L ll, M mm) -> fun.curried().apply(aa).apply(bb).apply(cc).apply(dd).apply(ee).apply(ff).apply(gg).apply(hh).apply(ii).apply(jj).apply(kk).apply(ll).apply(mm), a, b, c, d, e, f, g, h, i, j, k, l, m));
-	}
-
-	static <A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, RES> OSGi<RES> combine(Function15<A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, RES> fun, OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f, OSGi<G> g, OSGi<H> h, OSGi<I> i, OSGi<J> j, OSGi<K> k, OSGi<L> l, OSGi<M> m, OSGi<N> n, OSGi<O> o) {
-		return o.applyTo(combine((A aa, B bb, C cc, D dd, E ee, F ff, G gg, H hh, I ii, J jj, K kk, L ll, M mm, N nn) -> fun.curried().apply(aa).apply(bb).apply(cc).apply(dd).apply(ee).apply(ff).apply(gg).apply(hh).apply(ii).apply(jj).apply(kk).apply(ll).apply(mm).apply(nn), a, b, c, d, e, f, g, h, i, j, k, l, m, n));
-	}
-
-	static <A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, RES> OSGi<RES> combine(Function16<A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, RES> fun, OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f, OSGi<G> g, OSGi<H> h, OSGi<I> i, OSGi<J> j, OSGi<K> k, OSGi<L> l, OSGi<M> m, OSGi<N> n, OSGi<O> o, OSGi<P> p) {
-		return p.applyTo(combine((A aa, B bb, C cc, D dd, E ee, F ff, G gg, H hh, I ii, J jj, K kk, L ll, M mm, N nn, O oo) -> fun.curried().apply(aa).apply(bb).apply(cc).apply(dd).apply(ee).apply(ff).apply(gg).apply(hh).apply(ii).apply(jj).apply(kk).apply(ll).apply(mm).apply(nn).apply(oo), a, b, c, d, e, f, g, h, i, j, k, l, m, n, o));
-	}
-
-	static <A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, RES> OSGi<RES> combine(Function17<A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, RES> fun, OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f, OSGi<G> g, OSGi<H> h, OSGi<I> i, OSGi<J> j, OSGi<K> k, OSGi<L> l, OSGi<M> m, OSGi<N> n, OSGi<O> o, OSGi<P> p, OSGi<Q> q) {
-		return q.applyTo(combine((A aa, B bb, C cc, D dd, E ee, F ff, G gg, H hh, I ii, J jj, K kk, L ll, M mm, N nn, O oo, P pp) -> fun.curried().apply(aa).apply(bb).apply(cc).apply(dd).apply(ee).apply(ff).apply(gg).apply(hh).apply(ii).apply(jj).apply(kk).apply(ll).apply(mm).apply(nn).apply(oo).apply(pp), a, b, c, d, e, f, g, h, i, j, k, l, m, n, o, p));
-	}
-
-	static <A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, RES> OSGi<RES> combine(Function18<A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, RES> fun, OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f, OSGi<G> g, OSGi<H> h, OSGi<I> i, OSGi<J> j, OSGi<K> k, OSGi<L> l, OSGi<M> m, OSGi<N> n, OSGi<O> o, OSGi<P> p, OSGi<Q> q, OSGi<R> r) {
-		return r.applyTo(combine((A aa, B bb, C cc, D dd, E ee, F ff, G gg, H hh, I ii, J jj, K kk, L ll, M mm, N nn, O oo, P pp, Q qq) -> fun.curried().apply(aa).apply(bb).apply(cc).apply(dd).apply(ee).apply(ff).apply(gg).apply(hh).apply(ii).apply(jj).apply(kk).apply(ll).apply(mm).apply(nn).apply(oo).apply(pp).apply(qq), a, b, c, d, e, f, g, h, i, j, k, l, m, n, o, p, q));
-	}
-
-	static <A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, S, RES> OSGi<RES> combine(Function19<A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, S, RES> fun, OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f, OSGi<G> g, OSGi<H> h, OSGi<I> i, OSGi<J> j, OSGi<K> k, OSGi<L> l, OSGi<M> m, OSGi<N> n, OSGi<O> o, OSGi<P> p, OSGi<Q> q, OSGi<R> r, OSGi<S> s) {
-		return s.applyTo(combine((A aa, B bb, C cc, D dd, E ee, F ff, G gg, H hh, I ii, J jj, K kk, L ll, M mm, N nn, O oo, P pp, Q qq, R rr) -> fun.curried().apply(aa).apply(bb).apply(cc).apply(dd).apply(ee).apply(ff).apply(gg).apply(hh).apply(ii).apply(jj).apply(kk).apply(ll).apply(mm).apply(nn).apply(oo).apply(pp).apply(qq).apply(rr), a, b, c, d, e, f, g, h, i, j, k, l, m, n, o, p, q, r));
-	}
-
-	static <A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, S, T, RES> OSGi<RES> combine(Function20<A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, S, T, RES> fun, OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f, OSGi<G> g, OSGi<H> h, OSGi<I> i, OSGi<J> j, OSGi<K> k, OSGi<L> l, OSGi<M> m, OSGi<N> n, OSGi<O> o, OSGi<P> p, OSGi<Q> q, OSGi<R> r, OSGi<S> s, OSGi<T> t) {
-		return t.applyTo(combine((A aa, B bb, C cc, D dd, E ee, F ff, G gg, H hh, I ii, J jj, K kk, L ll, M mm, N nn, O oo, P pp, Q qq, R rr, S ss) -> fun.curried().apply(aa).apply(bb).apply(cc).apply(dd).apply(ee).apply(ff).apply(gg).apply(hh).apply(ii).apply(jj).apply(kk).apply(ll).apply(mm).apply(nn).apply(oo).apply(pp).apply(qq).apply(rr).apply(ss), a, b, c, d, e, f, g, h, i, j, k, l, m, n, o, p, q, r, s));
-	}
-
-	static <A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, S, T, U, RES> OSGi<RES> combine(Function21<A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, S, T, U, RES> fun, OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f, OSGi<G> g, OSGi<H> h, OSGi<I> i, OSGi<J> j, OSGi<K> k, OSGi<L> l, OSGi<M> m, OSGi<N> n, OSGi<O> o, OSGi<P> p, OSGi<Q> q, OSGi<R> r, OSGi<S> s, OSGi<T> t, OSGi<U> u) {
-		return u.applyTo(combine((A aa, B bb, C cc, D dd, E ee, F ff, G gg, H hh, I ii, J jj, K kk, L ll, M mm, N nn, O oo, P pp, Q qq, R rr, S ss, T tt) -> fun.curried().apply(aa).apply(bb).apply(cc).apply(dd).apply(ee).apply(ff).apply(gg).apply(hh).apply(ii).apply(jj).apply(kk).apply(ll).apply(mm).apply(nn).apply(oo).apply(pp).apply(qq).apply(rr).apply(ss).apply(tt), a, b, c, d, e, f, g, h, i, j, k, l, m, n, o, p, q, r, s, t));
-	}
-
-	static <A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, S, T, U, V, RES> OSGi<RES> combine(Function22<A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, S, T, U, V, RES> fun, OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f, OSGi<G> g, OSGi<H> h, OSGi<I> i, OSGi<J> j, OSGi<K> k, OSGi<L> l, OSGi<M> m, OSGi<N> n, OSGi<O> o, OSGi<P> p, OSGi<Q> q, OSGi<R> r, OSGi<S> s, OSGi<T> t, OSGi<U> u, OSGi<V> v) {
-		return v.applyTo(combine((A aa, B bb, C cc, D dd, E ee, F ff, G gg, H hh, I ii, J jj, K kk, L ll, M mm, N nn, O oo, P pp, Q qq, R rr, S ss, T tt, U uu) -> fun.curried().apply(aa).apply(bb).apply(cc).apply(dd).apply(ee).apply(ff).apply(gg).apply(hh).apply(ii).apply(jj).apply(kk).apply(ll).apply(mm).apply(nn).apply(oo).apply(pp).apply(qq).apply(rr).apply(ss).apply(tt).apply(uu), a, b, c, d, e, f, g, h, i, j, k, l, m, n, o, p, q, r, s, t, u));
-	}
-
-	static <A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, S, T, U, V, W, RES> OSGi<RES> combine(Function23<A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, S, T, U, V, W, RES> fun, OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f, OSGi<G> g, OSGi<H> h, OSGi<I> i, OSGi<J> j, OSGi<K> k, OSGi<L> l, OSGi<M> m, OSGi<N> n, OSGi<O> o, OSGi<P> p, OSGi<Q> q, OSGi<R> r, OSGi<S> s, OSGi<T> t, OSGi<U> u, OSGi<V> v, OSGi<W> w) {
-		return w.applyTo(combine((A aa, B bb, C cc, D dd, E ee, F ff, G gg, H hh, I ii, J jj, K kk, L ll, M mm, N nn, O oo, P pp, Q qq, R rr, S ss, T tt, U uu, V vv) -> fun.curried().apply(aa).apply(bb).apply(cc).apply(dd).apply(ee).apply(ff).apply(gg).apply(hh).apply(ii).apply(jj).apply(kk).apply(ll).apply(mm).apply(nn).apply(oo).apply(pp).apply(qq).apply(rr).apply(ss).apply(tt).apply(uu).apply(vv), a, b, c, d, e, f, g, h, i, j, k, l, m, n, o, p, q, r, s, t, u, v));
-	}
+	@SuppressWarnings("unchecked")
+	static <A, B, C, D, E, F, G, H, RES> OSGi<RES> combine(
+		Function8<A, B, C, D, E, F, G, H, RES> fun, OSGi<A> a, OSGi<B> b,
+		OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f, OSGi<G> g, OSGi<H> h) {
 
-	static <A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, S, T, U, V, W, X, RES> OSGi<RES> combine(Function24<A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, S, T, U, V, W, X, RES> fun, OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f, OSGi<G> g, OSGi<H> h, OSGi<I> i, OSGi<J> j, OSGi<K> k, OSGi<L> l, OSGi<M> m, OSGi<N> n, OSGi<O> o, OSGi<P> p, OSGi<Q> q, OSGi<R> r, OSGi<S> s, OSGi<T> t, OSGi<U> u, OSGi<V> v, OSGi<W> w, OSGi<X> x) {
-		return x.applyTo(combine((A aa, B bb, C cc, D dd, E ee, F ff, G gg, H hh, I ii, J jj, K kk, L ll, M mm, N nn, O oo, P pp, Q qq, R rr, S ss, T tt, U uu, V vv, W ww) -> fun.curried().apply(aa).apply(bb).apply(cc).apply(dd).apply(ee).apply(ff).apply(gg).apply(hh).apply(ii).apply(jj).apply(kk).apply(ll).apply(mm).apply(nn).apply(oo).apply(pp).apply(qq).apply(rr).apply(ss).apply(tt).apply(uu).apply(vv).apply(ww), a, b, c, d, e, f, g, h, i, j, k, l, m, n, o, p, q, r, s, t, u, v, w));
+		return new CombineOSGiImpl<>(
+			values -> fun.apply((A)values[0], (B)values[1], (C)values[2],
+				(D)values[3], (E)values[4], (F)values[5], (G)values[6],
+				(H)values[7]),
+			a, b, c, d, e, f, g, h);
 	}
 
-	static <A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, S, T, U, V, W, X, Y, RES> OSGi<RES> combine(Function25<A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, S, T, U, V, W, X, Y, RES> fun, OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f, OSGi<G> g, OSGi<H> h, OSGi<I> i, OSGi<J> j, OSGi<K> k, OSGi<L> l, OSGi<M> m, OSGi<N> n, OSGi<O> o, OSGi<P> p, OSGi<Q> q, OSGi<R> r, OSGi<S> s, OSGi<T> t, OSGi<U> u, OSGi<V> v, OSGi<W> w, OSGi<X> x, OSGi<Y> y) {
-		return y.applyTo(combine((A aa, B bb, C cc, D dd, E ee, F ff, G gg, H hh, I ii, J jj, K kk, L ll, M mm, N nn, O oo, P pp, Q qq, R rr, S ss, T tt, U uu, V vv, W ww, X xx) -> fun.curried().apply(aa).apply(bb).apply(cc).apply(dd).apply(ee).apply(ff).apply(gg).apply(hh).apply(ii).apply(jj).apply(kk).apply(ll).apply(mm).apply(nn).apply(oo).apply(pp).apply(qq).apply(rr).apply(ss).apply(tt).apply(uu).apply(vv).apply(ww).apply(xx), a, b, c, d, e, f, g, h, i, j, k, l, m, n, o, p, q, r, s, t, u, v, w, x));
-	}
+	@SuppressWarnings("unchecked")
+	static <A, B, C, D, E, F, G, H, I, RES> OSGi<RES> combine(
+		Function9<A, B, C, D, E, F, G, H, I, RES> fun, OSGi<A> a, OSGi<B> b,
+		OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f, OSGi<G> g, OSGi<H> h,
+		OSGi<I> i) {
 
-	static <A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, S, T, U, V, W, X, Y, Z, RES> OSGi<RES> combine(Function26<A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, S, T, U, V, W, X, Y, Z, RES> fun, OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f, OSGi<G> g, OSGi<H> h, OSGi<I> i, OSGi<J> j, OSGi<K> k, OSGi<L> l, OSGi<M> m, OSGi<N> n, OSGi<O> o, OSGi<P> p, OSGi<Q> q, OSGi<R> r, OSGi<S> s, OSGi<T> t, OSGi<U> u, OSGi<V> v, OSGi<W> w, OSGi<X> x, OSGi<Y> y, OSGi<Z> z) {
-		return z.applyTo(combine((A aa, B bb, C cc, D dd, E ee, F ff, G gg, H hh, I ii, J jj, K kk, L ll, M mm, N nn, O oo, P pp, Q qq, R rr, S ss, T tt, U uu, V vv, W ww, X xx, Y yy) -> fun.curried().apply(aa).apply(bb).apply(cc).apply(dd).apply(ee).apply(ff).apply(gg).apply(hh).apply(ii).apply(jj).apply(kk).apply(ll).apply(mm).apply(nn).apply(oo).apply(pp).apply(qq).apply(rr).apply(ss).apply(tt).apply(uu).apply(vv).apply(ww).apply(xx).apply(yy), a, b, c, d, e, f, g, h, i, j, k, l, m, n, o, p, q, r, s, t, u, v, w, x, y));
+		return new CombineOSGiImpl<>(
+			values -> fun.apply((A)values[0], (B)values[1], (C)values[2],
+				(D)values[3], (E)values[4], (F)values[5], (G)values[6],
+				(H)values[7], (I)values[8]),
+			a, b, c, d, e, f, g, h, i);
+	}
+
+	@SuppressWarnings("unchecked")
+	static <A, B, C, D, E, F, G, H, I, J, RES> OSGi<RES> combine(
+		Function10<A, B, C, D, E, F, G, H, I, J, RES> fun, OSGi<A> a, OSGi<B> b,
+		OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f, OSGi<G> g, OSGi<H> h,
+		OSGi<I> i, OSGi<J> j) {
+
+		return new CombineOSGiImpl<>(
+			values -> fun.apply((A)values[0], (B)values[1], (C)values[2],
+				(D)values[3], (E)values[4], (F)values[5], (G)values[6],
+				(H)values[7], (I)values[8], (J)values[9]),
+			a, b, c, d, e, f, g, h, i, j);
+	}
+
+	@SuppressWarnings("unchecked")
+	static <A, B, C, D, E, F, G, H, I, J, K, RES> OSGi<RES> combine(
+		Function11<A, B, C, D, E, F, G, H, I, J, K, RES> fun, OSGi<A> a,
+		OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f, OSGi<G> g,
+		OSGi<H> h, OSGi<I> i, OSGi<J> j, OSGi<K> k) {
+
+		return new CombineOSGiImpl<>(
+			values -> fun.apply((A)values[0], (B)values[1], (C)values[2],
+				(D)values[3], (E)values[4], (F)values[5], (G)values[6],
+				(H)values[7], (I)values[8], (J)values[9], (K)values[10]),
+			a, b, c, d, e, f, g, h, i, j, k);
+	}
+
+	@SuppressWarnings("unchecked")
+	static <A, B, C, D, E, F, G, H, I, J, K, L, RES> OSGi<RES> combine(
+		Function12<A, B, C, D, E, F, G, H, I, J, K, L, RES> fun, OSGi<A> a,
+		OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f, OSGi<G> g,
+		OSGi<H> h, OSGi<I> i, OSGi<J> j, OSGi<K> k, OSGi<L> l) {
+
+		return new CombineOSGiImpl<>(
+			values -> fun.apply((A)values[0], (B)values[1], (C)values[2],
+				(D)values[3], (E)values[4], (F)values[5], (G)values[6],
+				(H)values[7], (I)values[8], (J)values[9], (K)values[10],
+				(L)values[11]),
+			a, b, c, d, e, f, g, h, i, j, k, l);
+	}
+
+	@SuppressWarnings("unchecked")
+	static <A, B, C, D, E, F, G, H, I, J, K, L, M, RES> OSGi<RES> combine(
+		Function13<A, B, C, D, E, F, G, H, I, J, K, L, M, RES> fun, OSGi<A> a,
+		OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f, OSGi<G> g,
+		OSGi<H> h, OSGi<I> i, OSGi<J> j, OSGi<K> k, OSGi<L> l, OSGi<M> m) {
+
+		return new CombineOSGiImpl<>(
+			values -> fun.apply((A)values[0], (B)values[1], (C)values[2],
+				(D)values[3], (E)values[4], (F)values[5], (G)values[6],
+				(H)values[7], (I)values[8], (J)values[9], (K)values[10],
+				(L)values[11], (M)values[12]),
+			a, b, c, d, e, f, g, h, i, j, k, l, m);
+	}
+
+	@SuppressWarnings("unchecked")
+	static <A, B, C, D, E, F, G, H, I, J, K, L, M, N, RES> OSGi<RES> combine(
+		Function14<A, B, C, D, E, F, G, H, I, J, K, L, M, N, RES> fun,
+		OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f,
+		OSGi<G> g, OSGi<H> h, OSGi<I> i, OSGi<J> j, OSGi<K> k, OSGi<L> l,
+		OSGi<M> m, OSGi<N> n) {
+
+		return new CombineOSGiImpl<>(
+			values -> fun.apply((A)values[0], (B)values[1], (C)values[2],
+				(D)values[3], (E)values[4], (F)values[5], (G)values[6],
+				(H)values[7], (I)values[8], (J)values[9], (K)values[10],
+				(L)values[11], (M)values[12], (N)values[13]),
+			a, b, c, d, e, f, g, h, i, j, k, l, m, n);
+	}
+
+	@SuppressWarnings("unchecked")
+	static <A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, RES> OSGi<RES> combine(
+		Function15<A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, RES> fun,
+		OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f,
+		OSGi<G> g, OSGi<H> h, OSGi<I> i, OSGi<J> j, OSGi<K> k, OSGi<L> l,
+		OSGi<M> m, OSGi<N> n, OSGi<O> o) {
+
+		return new CombineOSGiImpl<>(
+			values -> fun.apply((A)values[0], (B)values[1], (C)values[2],
+				(D)values[3], (E)values[4], (F)values[5], (G)values[6],
+				(H)values[7], (I)values[8], (J)values[9], (K)values[10],
+				(L)values[11], (M)values[12], (N)values[13], (O)values[14]),
+			a, b, c, d, e, f, g, h, i, j, k, l, m, n, o);
+	}
+
+	@SuppressWarnings("unchecked")
+	static <A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, RES>
+		OSGi<RES> combine(
+		Function16<A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, RES> fun,
+		OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f,
+		OSGi<G> g, OSGi<H> h, OSGi<I> i, OSGi<J> j, OSGi<K> k, OSGi<L> l,
+		OSGi<M> m, OSGi<N> n, OSGi<O> o, OSGi<P> p) {
+
+		return new CombineOSGiImpl<>(
+			values -> fun.apply((A)values[0], (B)values[1], (C)values[2],
+				(D)values[3], (E)values[4], (F)values[5], (G)values[6],
+				(H)values[7], (I)values[8], (J)values[9], (K)values[10],
+				(L)values[11], (M)values[12], (N)values[13], (O)values[14],
+				(P)values[15]),
+			a, b, c, d, e, f, g, h, i, j, k, l, m, n, o, p);
+	}
+
+	@SuppressWarnings("unchecked")
+	static <A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, RES>
+		OSGi<RES> combine(
+		Function17<A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, RES> fun,
+		OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f,
+		OSGi<G> g, OSGi<H> h, OSGi<I> i, OSGi<J> j, OSGi<K> k, OSGi<L> l,
+		OSGi<M> m, OSGi<N> n, OSGi<O> o, OSGi<P> p, OSGi<Q> q) {
+
+		return new CombineOSGiImpl<>(
+			values -> fun.apply((A)values[0], (B)values[1], (C)values[2],
+				(D)values[3], (E)values[4], (F)values[5], (G)values[6],
+				(H)values[7], (I)values[8], (J)values[9], (K)values[10],
+				(L)values[11], (M)values[12], (N)values[13], (O)values[14],
+				(P)values[15], (Q)values[16]),
+			a, b, c, d, e, f, g, h, i, j, k, l, m, n, o, p, q);
+	}
+
+	@SuppressWarnings("unchecked")
+	static <A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, RES>
+		OSGi<RES> combine(
+		Function18<A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R,
+			RES> fun,
+		OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f,
+		OSGi<G> g, OSGi<H> h, OSGi<I> i, OSGi<J> j, OSGi<K> k, OSGi<L> l,
+		OSGi<M> m, OSGi<N> n, OSGi<O> o, OSGi<P> p, OSGi<Q> q, OSGi<R> r) {
+
+		return new CombineOSGiImpl<>(
+			values -> fun.apply((A)values[0], (B)values[1], (C)values[2],
+				(D)values[3], (E)values[4], (F)values[5], (G)values[6],
+				(H)values[7], (I)values[8], (J)values[9], (K)values[10],
+				(L)values[11], (M)values[12], (N)values[13], (O)values[14],
+				(P)values[15], (Q)values[16], (R)values[17]),
+			a, b, c, d, e, f, g, h, i, j, k, l, m, n, o, p, q, r);
+	}
+
+	@SuppressWarnings("unchecked")
+	static <A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, S, RES>
+		OSGi<RES> combine(
+		Function19<A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, S,
+			RES> fun,
+		OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f,
+		OSGi<G> g, OSGi<H> h, OSGi<I> i, OSGi<J> j, OSGi<K> k, OSGi<L> l,
+		OSGi<M> m, OSGi<N> n, OSGi<O> o, OSGi<P> p, OSGi<Q> q, OSGi<R> r,
+		OSGi<S> s) {
+
+		return new CombineOSGiImpl<>(
+			values -> fun.apply((A)values[0], (B)values[1], (C)values[2],
+				(D)values[3], (E)values[4], (F)values[5], (G)values[6],
+				(H)values[7], (I)values[8], (J)values[9], (K)values[10],
+				(L)values[11], (M)values[12], (N)values[13], (O)values[14],
+				(P)values[15], (Q)values[16], (R)values[17], (S)values[18]),
+			a, b, c, d, e, f, g, h, i, j, k, l, m, n, o, p, q, r, s);
+	}
+
+	@SuppressWarnings("unchecked")
+	static <A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, S, T, RES>
+		OSGi<RES> combine(
+		Function20<A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, S, T,
+			RES> fun,
+		OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f,
+		OSGi<G> g, OSGi<H> h, OSGi<I> i, OSGi<J> j, OSGi<K> k, OSGi<L> l,
+		OSGi<M> m, OSGi<N> n, OSGi<O> o, OSGi<P> p, OSGi<Q> q, OSGi<R> r,
+		OSGi<S> s, OSGi<T> t) {
+
+		return new CombineOSGiImpl<>(
+			values -> fun.apply((A)values[0], (B)values[1], (C)values[2],
+				(D)values[3], (E)values[4], (F)values[5], (G)values[6],
+				(H)values[7], (I)values[8], (J)values[9], (K)values[10],
+				(L)values[11], (M)values[12], (N)values[13], (O)values[14],
+				(P)values[15], (Q)values[16], (R)values[17], (S)values[18],
+				(T)values[19]),
+			a, b, c, d, e, f, g, h, i, j, k, l, m, n, o, p, q, r, s, t);
+	}
+
+	@SuppressWarnings("unchecked")
+	static <A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, S, T, U, RES>
+		OSGi<RES> combine(
+		Function21<A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, S, T,
+			U, RES> fun,
+		OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f,
+		OSGi<G> g, OSGi<H> h, OSGi<I> i, OSGi<J> j, OSGi<K> k, OSGi<L> l,
+		OSGi<M> m, OSGi<N> n, OSGi<O> o, OSGi<P> p, OSGi<Q> q, OSGi<R> r,
+		OSGi<S> s, OSGi<T> t, OSGi<U> u) {
+
+		return new CombineOSGiImpl<>(
+			values -> fun.apply((A)values[0], (B)values[1], (C)values[2],
+				(D)values[3], (E)values[4], (F)values[5], (G)values[6],
+				(H)values[7], (I)values[8], (J)values[9], (K)values[10],
+				(L)values[11], (M)values[12], (N)values[13], (O)values[14],
+				(P)values[15], (Q)values[16], (R)values[17], (S)values[18],
+				(T)values[19], (U)values[20]),
+			a, b, c, d, e, f, g, h, i, j, k, l, m, n, o, p, q, r, s, t, u);
+	}
+
+	@SuppressWarnings("unchecked")
+	static <A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, S, T, U, V,
+		RES>
+		OSGi<RES> combine(
+		Function22<A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, S, T,
+			U, V, RES> fun,
+		OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f,
+		OSGi<G> g, OSGi<H> h, OSGi<I> i, OSGi<J> j, OSGi<K> k, OSGi<L> l,
+		OSGi<M> m, OSGi<N> n, OSGi<O> o, OSGi<P> p, OSGi<Q> q, OSGi<R> r,
+		OSGi<S> s, OSGi<T> t, OSGi<U> u, OSGi<V> v) {
+
+		return new CombineOSGiImpl<>(
+			values -> fun.apply((A)values[0], (B)values[1], (C)values[2],
+				(D)values[3], (E)values[4], (F)values[5], (G)values[6],
+				(H)values[7], (I)values[8], (J)values[9], (K)values[10],
+				(L)values[11], (M)values[12], (N)values[13], (O)values[14],
+				(P)values[15], (Q)values[16], (R)values[17], (S)values[18],
+				(T)values[19], (U)values[20], (V)values[21]),
+			a, b, c, d, e, f, g, h, i, j, k, l, m, n, o, p, q, r, s, t, u, v);
+	}
+
+	@SuppressWarnings("unchecked")
+	static <A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, S, T, U, V, W,
+		RES>
+		OSGi<RES> combine(
+		Function23<A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, S, T,
+			U, V, W, RES> fun,
+		OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f,
+		OSGi<G> g, OSGi<H> h, OSGi<I> i, OSGi<J> j, OSGi<K> k, OSGi<L> l,
+		OSGi<M> m, OSGi<N> n, OSGi<O> o, OSGi<P> p, OSGi<Q> q, OSGi<R> r,
+		OSGi<S> s, OSGi<T> t, OSGi<U> u, OSGi<V> v, OSGi<W> w) {
+
+		return new CombineOSGiImpl<>(
+			values -> fun.apply((A)values[0], (B)values[1], (C)values[2],
+				(D)values[3], (E)values[4], (F)values[5], (G)values[6],
+				(H)values[7], (I)values[8], (J)values[9], (K)values[10],
+				(L)values[11], (M)values[12], (N)values[13], (O)values[14],
+				(P)values[15], (Q)values[16], (R)values[17], (S)values[18],
+				(T)values[19], (U)values[20], (V)values[21], (W)values[22]),
+			a, b, c, d, e, f, g, h, i, j, k, l, m, n, o, p, q, r, s, t, u, v,
+			w);
+	}
+
+	@SuppressWarnings("unchecked")
+	static <A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, S, T, U, V, W,
+		X, RES>
+		OSGi<RES> combine(
+		Function24<A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, S, T,
+			U, V, W, X, RES> fun,
+		OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f,
+		OSGi<G> g, OSGi<H> h, OSGi<I> i, OSGi<J> j, OSGi<K> k, OSGi<L> l,
+		OSGi<M> m, OSGi<N> n, OSGi<O> o, OSGi<P> p, OSGi<Q> q, OSGi<R> r,
+		OSGi<S> s, OSGi<T> t, OSGi<U> u, OSGi<V> v, OSGi<W> w, OSGi<X> x) {
+
+		return new CombineOSGiImpl<>(
+			values -> fun.apply((A)values[0], (B)values[1], (C)values[2],
+				(D)values[3], (E)values[4], (F)values[5], (G)values[6],
+				(H)values[7], (I)values[8], (J)values[9], (K)values[10],
+				(L)values[11], (M)values[12], (N)values[13], (O)values[14],
+				(P)values[15], (Q)values[16], (R)values[17], (S)values[18],
+				(T)values[19], (U)values[20], (V)values[21], (W)values[22],
+				(X)values[23]),
+			a, b, c, d, e, f, g, h, i, j, k, l, m, n, o, p, q, r, s, t, u, v, w,
+			x);
+	}
+
+	@SuppressWarnings("unchecked")
+	static <A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, S, T, U, V, W,
+		X, Y, RES>
+		OSGi<RES> combine(
+		Function25<A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, S, T,
+			U, V, W, X, Y, RES> fun,
+		OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f,
+		OSGi<G> g, OSGi<H> h, OSGi<I> i, OSGi<J> j, OSGi<K> k, OSGi<L> l,
+		OSGi<M> m, OSGi<N> n, OSGi<O> o, OSGi<P> p, OSGi<Q> q, OSGi<R> r,
+		OSGi<S> s, OSGi<T> t, OSGi<U> u, OSGi<V> v, OSGi<W> w, OSGi<X> x,
+		OSGi<Y> y) {
+
+		return new CombineOSGiImpl<>(
+			values -> fun.apply((A)values[0], (B)values[1], (C)values[2],
+				(D)values[3], (E)values[4], (F)values[5], (G)values[6],
+				(H)values[7], (I)values[8], (J)values[9], (K)values[10],
+				(L)values[11], (M)values[12], (N)values[13], (O)values[14],
+				(P)values[15], (Q)values[16], (R)values[17], (S)values[18],
+				(T)values[19], (U)values[20], (V)values[21], (W)values[22],
+				(X)values[23], (Y)values[24]),
+			a, b, c, d, e, f, g, h, i, j, k, l, m, n, o, p, q, r, s, t, u, v, w,
+			x, y);
+	}
+
+	@SuppressWarnings("unchecked")
+	static <A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, S, T, U, V, W,
+		X, Y, Z, RES>
+		OSGi<RES> combine(
+		Function26<A, B, C, D, E, F, G, H, I, J, K, L, M, N, O, P, Q, R, S, T,
+			U, V, W, X, Y, Z, RES> fun,
+		OSGi<A> a, OSGi<B> b, OSGi<C> c, OSGi<D> d, OSGi<E> e, OSGi<F> f,
+		OSGi<G> g, OSGi<H> h, OSGi<I> i, OSGi<J> j, OSGi<K> k, OSGi<L> l,
+		OSGi<M> m, OSGi<N> n, OSGi<O> o, OSGi<P> p, OSGi<Q> q, OSGi<R> r,
+		OSGi<S> s, OSGi<T> t, OSGi<U> u, OSGi<V> v, OSGi<W> w, OSGi<X> x,
+		OSGi<Y> y, OSGi<Z> z) {
+
+		return new CombineOSGiImpl<>(
+			values -> fun.apply((A)values[0], (B)values[1], (C)values[2],
+				(D)values[3], (E)values[4], (F)values[5], (G)values[6],
+				(H)values[7], (I)values[8], (J)values[9], (K)values[10],
+				(L)values[11], (M)values[12], (N)values[13], (O)values[14],
+				(P)values[15], (Q)values[16], (R)values[17], (S)values[18],
+				(T)values[19], (U)values[20], (V)values[21], (W)values[22],
+				(X)values[23], (Y)values[24], (Z)values[25]),
+			a, b, c, d, e, f, g, h, i, j, k, l, m, n, o, p, q, r, s, t, u, v, w,
+			x, y, z);
 	}
 
 	static <A, B, RES> OSGi<RES> flatCombine(Function2<A, B, OSGi<RES>> fun, OSGi<A> a, OSGi<B> b) {
@@ -587,10 +885,49 @@ public interface OSGi<T> extends OSGiRunnable<T> {
 
 	<S> OSGi<S> applyTo(OSGi<Function<T, S>> fun);
 
+	/**
+	 * Publishes the elements of this program on the executor of the
+	 * {@link OSGiRunnable.ExecutionContext} instead of on the thread that
+	 * produced them. Publications, removals and updates of the elements are
+	 * delivered downstream in the order they were produced. An element is
+	 * removed and published again only when downstream asks for it in its
+	 * update.
+	 */
+	default OSGi<T> async() {
+		return new AsyncOSGiImpl<>(this, null);
+	}
+
+	/**
+	 * Same as {@link #async()} on the given executor.
+	 */
+	default OSGi<T> async(Executor executor) {
+		return new AsyncOSGiImpl<>(this, executor);
+	}
+
 	<S> OSGi<S> choose(
 		Function<T, OSGi<Boolean>> chooser, Function<OSGi<T>, OSGi<S>> then,
 		Function<OSGi<T>, OSGi<S>> otherwise);
 
+	/**
+	 * Returns a program that holds the publications of this one until it
+	 * has been quiet, neither publishing nor removing elements, for the given
+	 * window, or for at most ten windows, and then publishes the elements
+	 * still live. The elements published and removed while it was not quiet,
+	 * like the intermediate states of a configuration being rewritten, are
+	 * never seen downstream.
+	 *
+	 * <p>Removals are not held, so an element that goes away, like a service
+	 * being unregistered, is retracted right away. The elements published
+	 * while this program starts are published right away too. The window is
+	 * measured on a timer shared by all the programs, and the publications
+	 * are applied on the executor of the
+	 * {@link OSGiRunnable.ExecutionContext}, or on a thread of their own if
+	 * there is none, never on the thread of the timer.</p>
+	 */
+	default OSGi<T> debounce(Duration window) {
+		return new DebounceOSGiImpl<>(this, window);
+	}
+
 	<S> OSGi<S> distribute(Function<OSGi<T>, OSGi<S>> ... funs);
 
 	default OSGi<T> effects(
@@ -640,6 +977,26 @@ public interface OSGi<T> extends OSGiRunnable<T> {
 
 	<S> OSGi<S> map(Function<? super T, ? extends S> function);
 
+	/**
+	 * Like {@link #async()}, but every element is published on a lane of its
+	 * own, so that the activation of one element does not wait for the
+	 * others. The events of each element keep their order, and a
+	 * republication caused by an update stays on the lane of the element it
+	 * replaces. Combined with
+	 * {@link OSGiRunnable.ExecutionContext#threadPerTaskExecutor()} every
+	 * element is activated on its own virtual thread on Java 21 and later.
+	 */
+	default OSGi<T> parallel() {
+		return new AsyncOSGiImpl<>(this, null, true);
+	}
+
+	/**
+	 * Same as {@link #parallel()} on the given executor.
+	 */
+	default OSGi<T> parallel(Executor executor) {
+		return new AsyncOSGiImpl<>(this, executor, true);
+	}
+
 	@Deprecated
 	/**
 	 * @deprecated in favor of {@link OSGi#recover(OSGi, BiFunction)}
@@ -652,6 +1009,22 @@ public interface OSGi<T> extends OSGiRunnable<T> {
 	 */
 	OSGi<T> recoverWith(BiFunction<T, Exception, OSGi<T>> onError);
 
+	/**
+	 * Returns a program that runs this one once for all the places using it
+	 * with the same {@link BundleContext}, executor and instrumentation,
+	 * instead of once per place, and multicasts its publications, removals
+	 * and updates to every one of them.
+	 * A place starting to use it while it is already running is given the
+	 * elements that are live at that moment. This program is closed when the
+	 * last place using it is closed.
+	 *
+	 * <p>Only the instance returned is shared, so it has to be kept and used
+	 * wherever the elements are needed.</p>
+	 */
+	default OSGi<T> share() {
+		return new ShareOSGiImpl<>(this);
+	}
+
 	<K, S> OSGi<S> splitBy(
 		Function<T, OSGi<K>> mapper, BiFunction<K, OSGi<T>, OSGi<S>> fun);
 
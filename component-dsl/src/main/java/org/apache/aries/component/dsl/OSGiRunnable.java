@@ -17,8 +17,11 @@
 
 package org.apache.aries.component.dsl;
 
+import org.apache.aries.component.dsl.metrics.Instrumentation;
 import org.osgi.framework.BundleContext;
 
+import java.util.concurrent.Executor;
+
 /**
  * @author Carlos Sierra Andrés
  */
@@ -40,14 +43,63 @@ public interface OSGiRunnable<T> {
 
 	public class ExecutionContext {
 		private BundleContext bundleContext;
+		private Executor executor;
+		private Instrumentation instrumentation;
 
 		public ExecutionContext(BundleContext bundleContext) {
+			this(bundleContext, null);
+		}
+
+		/**
+		 * @param executor the executor {@link OSGi#async()} stages publish
+		 * on, or {@code null} to publish synchronously
+		 */
+		public ExecutionContext(
+			BundleContext bundleContext, Executor executor) {
+
+			this(bundleContext, executor, null);
+		}
+
+		/**
+		 * @param instrumentation records what the operators of the program
+		 * do, or {@code null} not to instrument the program
+		 */
+		public ExecutionContext(
+			BundleContext bundleContext, Executor executor,
+			Instrumentation instrumentation) {
+
 			this.bundleContext = bundleContext;
+			this.executor = executor;
+			this.instrumentation = instrumentation;
+		}
+
+		/**
+		 * @return an executor running every task on a new virtual thread on
+		 * Java 21 and later, or on a new daemon thread on older runtimes
+		 */
+		public static Executor threadPerTaskExecutor() {
+			return ThreadPerTaskExecutor.INSTANCE;
 		}
 
 		public BundleContext getBundleContext() {
 			return bundleContext;
 		}
+
+		/**
+		 * @return the executor of the program, or {@code null} if it runs
+		 * synchronously
+		 */
+		public Executor getExecutor() {
+			return executor;
+		}
+
+		/**
+		 * @return the instrumentation of the program, or {@code null} if it
+		 * is not instrumented
+		 */
+		public Instrumentation getInstrumentation() {
+			return instrumentation;
+		}
 	}
 
 }
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs every task on a thread of its own. On Java 21 and later the threads
+ * are virtual threads, looked up reflectively so that this class still
+ * compiles and runs on Java 8, where it falls back to daemon platform
+ * threads.
+ */
+class ThreadPerTaskExecutor implements Executor {
+
+    static final ThreadPerTaskExecutor INSTANCE =
+        new ThreadPerTaskExecutor();
+
+    @Override
+    public void execute(Runnable runnable) {
+        _threadFactory.newThread(runnable).start();
+    }
+
+    private ThreadPerTaskExecutor() {
+        ThreadFactory threadFactory = virtualThreadFactory();
+
+        if (threadFactory == null) {
+            AtomicLong counter = new AtomicLong();
+
+            threadFactory = runnable -> {
+                Thread thread = new Thread(
+                    runnable, "component-dsl-" + counter.incrementAndGet());
+
+                thread.setDaemon(true);
+
+                return thread;
+            };
+        }
+
+        _threadFactory = threadFactory;
+    }
+
+    private static ThreadFactory virtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+
+            builder = builderClass.getMethod(
+                "name", String.class, long.class
+            ).invoke(
+                builder, "component-dsl-", 1L
+            );
+
+            Method factory = builderClass.getMethod("factory");
+
+            return (ThreadFactory)factory.invoke(builder);
+        }
+        catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private final ThreadFactory _threadFactory;
+
+}
@@ -19,13 +19,16 @@ package org.apache.aries.component.dsl;
 
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
 import org.apache.aries.component.dsl.internal.HighestRankingOSGi;
+import org.apache.aries.component.dsl.internal.MapAccumulator;
+import org.apache.aries.component.dsl.internal.MapCopies;
+import org.apache.aries.component.dsl.internal.MapSnapshots;
 import org.apache.aries.component.dsl.internal.OnlyLastPublisher;
+import org.apache.aries.component.dsl.internal.SnapshotsTransformer;
 
 /**
  * @author Carlos Sierra Andrés
@@ -45,31 +48,54 @@ public interface Utils {
             );
     }
 
+    /**
+     * Like {@link #accumulate(OSGi)} but publishes immutable snapshots of the
+     * live elements instead of copies. A new snapshot shares most of its
+     * structure with the previous one, so adding or removing an element costs
+     * logarithmic time instead of a copy of the whole list, and the snapshots
+     * already published never change. The snapshots can not be modified.
+     *
+     * <p>Every publication republishes the snapshot that is the latest when
+     * it is applied, so elements added concurrently can't leave an older
+     * snapshot published.</p>
+     */
+    static <T> OSGi<List<T>> accumulateSnapshots(OSGi<T> program) {
+        return
+            OSGi.just(SnapshotsTransformer<T>::new).flatMap(snapshots ->
+            OSGi.all(
+                OSGi.just(snapshots::get),
+                program.transform(snapshots)
+            ).transform(
+                op -> OnlyLastPublisher.latest(op, snapshots::get))
+            );
+    }
+
+    /**
+     * Maps every key to the value of the highest element of the program for
+     * it, publishing a copy of the map whenever a key changes. A value going
+     * away only removes its key if the key has not been mapped again since
+     * the value was published, even to the same instance.
+     */
     static <K, V, T extends Comparable<T>> OSGi<Map<K, V>> accumulateInMap(
         OSGi<T> program, Function<T, OSGi<K>> keyFun,
         Function<T, OSGi<V>> valueFun) {
 
-        return OSGi.just(HashMap<K, V>::new).flatMap(map ->
-            OSGi.all(
-                OSGi.just(HashMap::new),
-                program.splitBy(
-                    keyFun,
-                    (k, p) ->
-                        highest(
-                            p, Comparator.naturalOrder(), q -> OSGi.nothing()).
-                            flatMap(t ->
-                                valueFun.apply(t).effects(
-                                    v -> map.put(k, v),
-                                    __ -> {},
-                                    __ -> map.remove(k),
-                                    __ -> {}
-                                )
-                            )
-                ).then(OSGi.just(() -> new HashMap<>(map)))
-            ).transform(
-                op -> new OnlyLastPublisher(op, () -> new HashMap<>(map))
-            )
-        );
+        return MapAccumulator.accumulate(
+            program, keyFun, valueFun, MapCopies::new);
+    }
+
+    /**
+     * Like {@link #accumulateInMap(OSGi, Function, Function)} but publishes
+     * immutable snapshots of the map instead of copies, the way
+     * {@link #accumulateSnapshots(OSGi)} does for lists.
+     */
+    static <K, V, T extends Comparable<T>> OSGi<Map<K, V>>
+        accumulateInMapSnapshots(
+            OSGi<T> program, Function<T, OSGi<K>> keyFun,
+            Function<T, OSGi<V>> valueFun) {
+
+        return MapAccumulator.accumulate(
+            program, keyFun, valueFun, MapSnapshots::new);
     }
 
     static <T> OSGi<T> onlyLast(OSGi<T> program) {
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.graph;
+
+import org.apache.aries.component.dsl.OSGi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Describes the operator a program applies: its name, like
+ * {@code serviceReferences} or {@code flatMap}, the attributes that configure
+ * it, like a filter or a pid, and the programs it is applied to, known as its
+ * inputs. The programs built by a function at run time, like the ones
+ * returned by the function of a {@code flatMap}, are not inputs.
+ *
+ * <p>An operator with inputs knows how to apply itself again to a different
+ * set of inputs, which is how a {@link ProgramGraph} is rewritten.</p>
+ */
+public final class Operator {
+
+    public static Operator of(String name) {
+        return of(name, Collections.emptyMap());
+    }
+
+    public static Operator of(String name, Map<String, ?> attributes) {
+        return new Operator(name, attributes, Collections.emptyList(), null);
+    }
+
+    /**
+     * @param rebuilder applies the operator to a new list of inputs, of the
+     *        same size and in the same order as {@code inputs}
+     */
+    public static Operator of(
+        String name, Map<String, ?> attributes, List<? extends OSGi<?>> inputs,
+        Function<List<OSGi<?>>, OSGi<?>> rebuilder) {
+
+        return new Operator(name, attributes, inputs, rebuilder);
+    }
+
+    public Map<String, Object> getAttributes() {
+        return _attributes;
+    }
+
+    public List<OSGi<?>> getInputs() {
+        return _inputs;
+    }
+
+    public String getName() {
+        return _name;
+    }
+
+    /**
+     * Applies this operator, with the same attributes, to the given inputs.
+     *
+     * @throws IllegalArgumentException if the number of inputs is not the
+     *         one of {@link #getInputs()}
+     */
+    public OSGi<?> rebuild(List<? extends OSGi<?>> inputs) {
+        if (inputs.size() != _inputs.size()) {
+            throw new IllegalArgumentException(
+                _name + " expects " + _inputs.size() + " inputs, got " +
+                    inputs.size());
+        }
+
+        return _rebuilder.apply(new ArrayList<>(inputs));
+    }
+
+    @Override
+    public String toString() {
+        if (_attributes.isEmpty()) {
+            return _name;
+        }
+
+        return _name + " " + _attributes;
+    }
+
+    private Operator(
+        String name, Map<String, ?> attributes, List<? extends OSGi<?>> inputs,
+        Function<List<OSGi<?>>, OSGi<?>> rebuilder) {
+
+        if (!inputs.isEmpty() && rebuilder == null) {
+            throw new IllegalArgumentException(
+                "An operator with inputs needs a rebuilder");
+        }
+
+        _name = name;
+        _attributes = Collections.unmodifiableMap(
+            new LinkedHashMap<>(attributes));
+        _inputs = Collections.unmodifiableList(new ArrayList<>(inputs));
+        _rebuilder = rebuilder;
+    }
+
+    private final Map<String, Object> _attributes;
+    private final List<OSGi<?>> _inputs;
+    private final String _name;
+    private final Function<List<OSGi<?>>, OSGi<?>> _rebuilder;
+
+}
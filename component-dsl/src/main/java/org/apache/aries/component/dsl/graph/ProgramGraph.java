@@ -0,0 +1,261 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.graph;
+
+import org.apache.aries.component.dsl.OSGi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * The graph of operators of a program, built before the program is run.
+ * Every program reachable from the root through the {@link
+ * Operator#getInputs() inputs} of its operator is a node, and a program used
+ * as the input of several others is a single node shared by all of them, so
+ * the graph is a DAG.
+ *
+ * <p>Programs that are not {@link Inspectable} are leaves named after their
+ * class.</p>
+ */
+public final class ProgramGraph {
+
+    public static ProgramGraph of(OSGi<?> program) {
+        return new ProgramGraph(program);
+    }
+
+    public static Operator operatorOf(OSGi<?> program) {
+        if (program instanceof Inspectable) {
+            return ((Inspectable)program).getOperator();
+        }
+
+        return Operator.of(program.getClass().getName());
+    }
+
+    /**
+     * Rewrites a program bottom up. Every program of the graph is given to
+     * the rewriter once its inputs have been rewritten, after its operator
+     * has been {@link Operator#rebuild(List) applied} to the rewritten inputs
+     * if any of them changed, and is replaced by whatever the rewriter
+     * returns. A rewriter that returns the program it is given leaves it
+     * untouched.
+     */
+    public static <T> OSGi<T> rewrite(
+        OSGi<T> program, UnaryOperator<OSGi<?>> rewriter) {
+
+        @SuppressWarnings("unchecked")
+        OSGi<T> rewritten = (OSGi<T>)rewrite(
+            program, rewriter, new IdentityHashMap<>());
+
+        return rewritten;
+    }
+
+    public int getDepth() {
+        return depth(_root, new IdentityHashMap<>());
+    }
+
+    /**
+     * @return the nodes of the graph, every node after its inputs and the
+     *         root last
+     */
+    public List<Node> getNodes() {
+        return _nodes;
+    }
+
+    public Map<String, Integer> getOperatorCounts() {
+        Map<String, Integer> counts = new TreeMap<>();
+
+        for (Node node : _nodes) {
+            counts.merge(node.getOperator().getName(), 1, Integer::sum);
+        }
+
+        return counts;
+    }
+
+    public Node getRoot() {
+        return _root;
+    }
+
+    public int size() {
+        return _nodes.size();
+    }
+
+    /**
+     * @return the graph as an indented tree, one node per line, where the
+     *         nodes already printed are not expanded again
+     */
+    public String dump() {
+        StringBuilder sb = new StringBuilder();
+
+        dump(_root, 0, sb, Collections.newSetFromMap(new IdentityHashMap<>()));
+
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return dump();
+    }
+
+    public static final class Node {
+
+        public int getId() {
+            return _id;
+        }
+
+        public List<Node> getInputs() {
+            return _inputs;
+        }
+
+        public Operator getOperator() {
+            return _operator;
+        }
+
+        public OSGi<?> getProgram() {
+            return _program;
+        }
+
+        @Override
+        public String toString() {
+            return "#" + _id + " " + _operator;
+        }
+
+        private Node(int id, OSGi<?> program, Operator operator) {
+            _id = id;
+            _program = program;
+            _operator = operator;
+        }
+
+        private final int _id;
+        private final List<Node> _inputs = new ArrayList<>();
+        private final Operator _operator;
+        private final OSGi<?> _program;
+
+    }
+
+    private ProgramGraph(OSGi<?> program) {
+        List<Node> nodes = new ArrayList<>();
+
+        _root = build(program, new IdentityHashMap<>(), nodes);
+        _nodes = Collections.unmodifiableList(nodes);
+    }
+
+    private static Node build(
+        OSGi<?> program, Map<OSGi<?>, Node> built, List<Node> nodes) {
+
+        Node node = built.get(program);
+
+        if (node != null) {
+            return node;
+        }
+
+        node = new Node(built.size(), program, operatorOf(program));
+
+        built.put(program, node);
+
+        for (OSGi<?> input : node._operator.getInputs()) {
+            node._inputs.add(build(input, built, nodes));
+        }
+
+        nodes.add(node);
+
+        return node;
+    }
+
+    private static int depth(Node node, Map<Node, Integer> depths) {
+        Integer depth = depths.get(node);
+
+        if (depth == null) {
+            depth = 0;
+
+            for (Node input : node._inputs) {
+                depth = Math.max(depth, depth(input, depths));
+            }
+
+            depth++;
+
+            depths.put(node, depth);
+        }
+
+        return depth;
+    }
+
+    private static void dump(
+        Node node, int indent, StringBuilder sb, Set<Node> dumped) {
+
+        for (int i = 0; i < indent; i++) {
+            sb.append("  ");
+        }
+
+        sb.append(node);
+
+        if (!dumped.add(node)) {
+            sb.append(" (shared)\n");
+
+            return;
+        }
+
+        sb.append('\n');
+
+        for (Node input : node._inputs) {
+            dump(input, indent + 1, sb, dumped);
+        }
+    }
+
+    private static OSGi<?> rewrite(
+        OSGi<?> program, UnaryOperator<OSGi<?>> rewriter,
+        Map<OSGi<?>, OSGi<?>> rewritten) {
+
+        OSGi<?> result = rewritten.get(program);
+
+        if (result != null) {
+            return result;
+        }
+
+        Operator operator = operatorOf(program);
+
+        List<OSGi<?>> inputs = operator.getInputs();
+        List<OSGi<?>> newInputs = new ArrayList<>(inputs.size());
+
+        boolean changed = false;
+
+        for (OSGi<?> input : inputs) {
+            OSGi<?> newInput = rewrite(input, rewriter, rewritten);
+
+            changed |= newInput != input;
+
+            newInputs.add(newInput);
+        }
+
+        result = rewriter.apply(
+            changed ? operator.rebuild(newInputs) : program);
+
+        rewritten.put(program, result);
+
+        return result;
+    }
+
+    private final List<Node> _nodes;
+    private final Node _root;
+
+}
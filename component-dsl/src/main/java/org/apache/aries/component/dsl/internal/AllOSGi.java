@@ -19,9 +19,12 @@ package org.apache.aries.component.dsl.internal;
 
 import org.apache.aries.component.dsl.OSGi;
 import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.graph.Operator;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.ListIterator;
+import java.util.function.Supplier;
 
 /**
  * @author Carlos Sierra Andrés
@@ -29,8 +32,9 @@ import java.util.ListIterator;
 public class AllOSGi<T> extends OSGiImpl<T> {
 
     @SafeVarargs
+    @SuppressWarnings("varargs") // the programs are only read
     public AllOSGi(OSGi<T>... programs) {
-        super((executionContext, op) -> {
+        super(describe(programs), (executionContext, op) -> {
             ArrayList<OSGiResult> results = new ArrayList<>(programs.length);
 
             try {
@@ -46,11 +50,22 @@ public class AllOSGi<T> extends OSGiImpl<T> {
 
             return new OSGiResultImpl(
                 () -> cleanUp(results),
-                () -> results.stream().map(result -> result.update()).reduce(Boolean.FALSE, Boolean::logicalOr)
+                () -> OSGiResults.updateAll(results)
             );
         });
     }
 
+    private static <T> Supplier<Operator> describe(OSGi<T>[] programs) {
+        return () -> operator(
+            "all", Collections.emptyMap(), programs,
+            inputs -> {
+                @SuppressWarnings("unchecked")
+                OSGi<T>[] rebuilt = (OSGi<T>[])inputs;
+
+                return new AllOSGi<>(rebuilt);
+            });
+    }
+
     private static void cleanUp(ArrayList<OSGiResult> results) {
         ListIterator<OSGiResult> iterator =
             results.listIterator(results.size());
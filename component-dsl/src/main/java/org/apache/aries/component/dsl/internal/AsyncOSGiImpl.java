@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.Publisher;
+import org.apache.aries.component.dsl.graph.Operator;
+
+import java.util.Collections;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Moves the publication of the elements of a program onto an executor. The
+ * publications and closings go through {@link SerialExecutor} lanes, so
+ * downstream sees the events of a lane in the order the program produced
+ * them, even though the executor might run tasks in parallel. An element
+ * closed before its publication ran is skipped altogether.
+ *
+ * <p>In sequential mode the whole stage shares one lane. In parallel mode
+ * every element gets a lane of its own, so elements are published
+ * concurrently. An element published during an update takes over the lane
+ * of the element closed before it on the same thread, so that a
+ * republication never overtakes the removal it replaces.</p>
+ *
+ * <p>Updates are run on the lane of the element too. The outcome of the
+ * downstream update is not known when the program asks for it, so they
+ * answer that the element is up to date, and when downstream asks for the
+ * element to be published again it is republished on the lane.</p>
+ *
+ * <p>A publication throwing an exception is handed to the error handling of
+ * the publisher, like in any other operator, and what it throws is thrown to
+ * the executor.</p>
+ */
+public class AsyncOSGiImpl<T> extends BaseOSGiImpl<T> {
+
+    public AsyncOSGiImpl(OSGi<T> program, Executor executor) {
+        this(program, executor, false);
+    }
+
+    public AsyncOSGiImpl(OSGi<T> program, Executor executor, boolean parallel) {
+        super(describe(program, executor, parallel), (executionContext, op) -> {
+            Executor target =
+                executor != null ? executor : executionContext.getExecutor();
+
+            if (target == null) {
+                return program.run(executionContext, op);
+            }
+
+            if (!parallel) {
+                SerialExecutor serialExecutor = new SerialExecutor(target);
+
+                return program.run(
+                    executionContext,
+                    op.pipe(t -> new AsyncResult<>(
+                        serialExecutor, null, op, t)));
+            }
+
+            ThreadLocal<SerialExecutor> handedOver = new ThreadLocal<>();
+
+            Supplier<SerialExecutor> lanes = () -> {
+                SerialExecutor serialExecutor = handedOver.get();
+
+                handedOver.remove();
+
+                if (serialExecutor != null && UpdateSupport.isUpdate()) {
+                    return serialExecutor;
+                }
+
+                return new SerialExecutor(target);
+            };
+
+            return program.run(
+                executionContext,
+                op.pipe(t -> new AsyncResult<>(
+                    lanes.get(), handedOver, op, t)));
+        });
+    }
+
+    private static <T> Supplier<Operator> describe(
+        OSGi<T> program, Executor executor, boolean parallel) {
+
+        return () -> operator(
+            parallel ? "parallel" : "async", Collections.emptyMap(), program,
+            source -> new AsyncOSGiImpl<>(source, executor, parallel));
+    }
+
+    private static class AsyncResult<T> implements OSGiResult {
+
+        AsyncResult(
+            SerialExecutor serialExecutor,
+            ThreadLocal<SerialExecutor> handedOver, Publisher<? super T> op,
+            T t) {
+
+            _serialExecutor = serialExecutor;
+            _handedOver = handedOver;
+            _op = op;
+            _t = t;
+
+            serialExecutor.execute(() -> {
+                if (!_closed.get()) {
+                    _result = publish();
+                }
+            });
+        }
+
+        @Override
+        public void close() {
+            if (_closed.compareAndSet(false, true)) {
+                if (_handedOver != null && UpdateSupport.isUpdate()) {
+                    _handedOver.set(_serialExecutor);
+                }
+
+                _serialExecutor.execute(() -> {
+                    if (_result != null) {
+                        _result.close();
+                    }
+                });
+            }
+        }
+
+        @Override
+        public boolean update() {
+            if (_closed.get()) {
+                return false;
+            }
+
+            _serialExecutor.execute(() -> {
+                OSGiResult result = _result;
+
+                if (_closed.get() || result == null ||
+                    !UpdateSupport.sendUpdate(result)) {
+
+                    return;
+                }
+
+                UpdateSupport.runUpdate(() -> {
+                    _result = null;
+
+                    result.close();
+
+                    if (!_closed.get()) {
+                        _result = publish();
+                    }
+                });
+            });
+
+            return false;
+        }
+
+        private OSGiResult publish() {
+            try {
+                return _op.publish(_t);
+            }
+            catch (Exception e) {
+                return _op.error(_t, e);
+            }
+        }
+
+        private final AtomicBoolean _closed = new AtomicBoolean();
+        private final ThreadLocal<SerialExecutor> _handedOver;
+        private final Publisher<? super T> _op;
+        private OSGiResult _result;
+        private final SerialExecutor _serialExecutor;
+        private final T _t;
+
+    }
+
+}
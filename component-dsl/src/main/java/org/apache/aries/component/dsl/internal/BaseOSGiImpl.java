@@ -18,35 +18,218 @@
 package org.apache.aries.component.dsl.internal;
 
 import org.apache.aries.component.dsl.*;
+import org.apache.aries.component.dsl.graph.Inspectable;
+import org.apache.aries.component.dsl.graph.Operator;
+import org.apache.aries.component.dsl.metrics.Instrumentation;
+import org.apache.aries.component.dsl.metrics.Recorder;
 import org.osgi.framework.Filter;
 import org.osgi.framework.InvalidSyntaxException;
 
-import java.util.HashMap;
-import java.util.IdentityHashMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * @author Carlos Sierra Andrés
  */
-public class BaseOSGiImpl<T> implements OSGi<T> {
+public class BaseOSGiImpl<T> implements OSGi<T>, Inspectable {
 
 	protected BaseOSGiImpl(OSGiRunnable<T> operation) {
+		this(null, operation);
+	}
+
+	/**
+	 * @param describer builds the description of the operator the first
+	 *        time the program is inspected, so that programs built at run
+	 *        time, like the ones returned by the function of a
+	 *        {@code flatMap}, don't pay for a description nobody asks for
+	 */
+	protected BaseOSGiImpl(
+		Supplier<Operator> describer, OSGiRunnable<T> operation) {
+
+		_describer = describer;
 		_operation = operation;
 	}
 
+	@Override
+	public Operator getOperator() {
+		Operator operator = _operator;
+
+		if (operator == null) {
+			if (_describer == null) {
+				operator = Operator.of(getClass().getName());
+			}
+			else {
+				operator = _describer.get();
+			}
+
+			_operator = operator;
+		}
+
+		return operator;
+	}
+
 	@Override
 	public OSGiResult run(ExecutionContext executionContext) {
-		return run(executionContext, x -> NOOP);
+		Instrumentation instrumentation =
+			executionContext.getInstrumentation();
+
+		if (instrumentation == null) {
+			return run(executionContext, x -> NOOP);
+		}
+
+		Runnable running = instrumentation.running(this);
+
+		OSGiResult result;
+
+		try {
+			result = run(executionContext, x -> NOOP);
+		}
+		catch (RuntimeException re) {
+			running.run();
+
+			throw re;
+		}
+
+		return new OSGiResultImpl(
+			() -> {
+				running.run();
+
+				result.close();
+			},
+			result::update);
 	}
 
 	public OSGiResult run(
 		ExecutionContext executionContext, Publisher<? super T> op) {
 
-		return _operation.run(executionContext, op);
+		Publisher<? super T> publisher = FlightRecorderSupport.instrument(
+			this, op);
+
+		Instrumentation instrumentation =
+			executionContext.getInstrumentation();
+
+		if (instrumentation == null) {
+			return _operation.run(executionContext, publisher);
+		}
+
+		publisher = instrument(instrumentation.recorder(this), publisher);
+
+		OSGi<?> previous = _running.get();
+
+		_running.set(this);
+
+		try {
+			return _operation.run(executionContext, publisher);
+		}
+		finally {
+			_running.set(previous);
+		}
+	}
+
+	static Map<String, Object> attributes(Object... keysAndValues) {
+		Map<String, Object> attributes = new LinkedHashMap<>();
+
+		for (int i = 0; i < keysAndValues.length; i += 2) {
+			if (keysAndValues[i + 1] != null) {
+				attributes.put(
+					(String)keysAndValues[i], keysAndValues[i + 1]);
+			}
+		}
+
+		return attributes;
+	}
+
+	/**
+	 * Lets the instrumentation of the program, if any, inspect the state of
+	 * the run of the operator calling it. Operators have to call it from
+	 * their {@link OSGiRunnable}, on the thread running it.
+	 *
+	 * @return closes the inspection, to be run when the run is closed
+	 */
+	static Runnable inspect(
+		ExecutionContext executionContext,
+		Supplier<Map<String, Object>> state) {
+
+		Instrumentation instrumentation =
+			executionContext.getInstrumentation();
+
+		if (instrumentation == null) {
+			return NOOP;
+		}
+
+		OSGi<?> program = _running.get();
+
+		if (program == null) {
+			return NOOP;
+		}
+
+		return instrumentation.inspect(program, state);
+	}
+
+	static <T> Publisher<T> instrument(
+		Recorder recorder, Publisher<? super T> op) {
+
+		return op.pipe(t -> {
+			long start = System.nanoTime();
+
+			OSGiResult result = op.publish(t);
+
+			recorder.published(System.nanoTime() - start);
+
+			return new OSGiResultImpl(
+				() -> {
+					long closeStart = System.nanoTime();
+
+					try {
+						result.close();
+					}
+					finally {
+						recorder.closed(System.nanoTime() - closeStart);
+					}
+				},
+				() -> {
+					long updateStart = System.nanoTime();
+
+					try {
+						return result.update();
+					}
+					finally {
+						recorder.updated(System.nanoTime() - updateStart);
+					}
+				});
+		});
+	}
+
+	static Operator operator(
+		String name, Map<String, ?> attributes, OSGi<?>[] programs,
+		Function<OSGi<?>[], OSGi<?>> rebuilder) {
+
+		return Operator.of(
+			name, attributes, Arrays.asList(programs),
+			inputs -> rebuilder.apply(inputs.toArray(new OSGi<?>[0])));
+	}
+
+	static <T> Operator operator(
+		String name, Map<String, ?> attributes, OSGi<T> program,
+		Function<OSGi<T>, OSGi<?>> rebuilder) {
+
+		return Operator.of(
+			name, attributes, Collections.singletonList(program),
+			inputs -> {
+				@SuppressWarnings("unchecked")
+				OSGi<T> input = (OSGi<T>)inputs.get(0);
+
+				return rebuilder.apply(input);
+			});
 	}
 
 	static Filter buildFilter(
@@ -57,7 +240,8 @@ public class BaseOSGiImpl<T> implements OSGi<T> {
 		String string = buildFilterString(filterString, clazz);
 
 		try {
-			filter = executionContext.getBundleContext().createFilter(string);
+			filter = FilterCache.getFilter(
+				executionContext.getBundleContext(), string);
 		}
 		catch (InvalidSyntaxException e) {
 			throw new RuntimeException(e);
@@ -98,97 +282,43 @@ public class BaseOSGiImpl<T> implements OSGi<T> {
 		return stringBuilder.toString();
 	}
 
+	private static final ThreadLocal<OSGi<?>> _running = new ThreadLocal<>();
+
+	private final Supplier<Operator> _describer;
 	OSGiRunnable<T> _operation;
+	private volatile Operator _operator;
 
 	@Override
 	public <S> OSGi<S> applyTo(OSGi<Function<T, S>> fun) {
-		return new BaseOSGiImpl<>((executionContext, op) -> {
-			ConcurrentDoublyLinkedList<T> identities = new ConcurrentDoublyLinkedList<>();
-			ConcurrentDoublyLinkedList<Function<T,S>> functions = new ConcurrentDoublyLinkedList<>();
-			IdentityHashMap<T, IdentityHashMap<Function<T, S>, OSGiResult>>
-				terminators = new IdentityHashMap<>();
+		Supplier<Operator> describer = () -> operator(
+			"applyTo", Collections.emptyMap(), new OSGi<?>[] {this, fun},
+			inputs -> {
+				@SuppressWarnings("unchecked")
+				OSGi<T> program = (OSGi<T>)inputs[0];
+				@SuppressWarnings("unchecked")
+				OSGi<Function<T, S>> function =
+					(OSGi<Function<T, S>>)inputs[1];
+
+				return program.applyTo(function);
+			});
+
+		return new BaseOSGiImpl<>(describer, (executionContext, op) -> {
+			CrossProduct crossProduct = new CrossProduct(
+				2,
+				values -> {
+					@SuppressWarnings("unchecked")
+					Function<T, S> function = (Function<T, S>)values[1];
+					@SuppressWarnings("unchecked")
+					T t = (T)values[0];
+
+					return op.apply(function.apply(t));
+				});
 
 			OSGiResult funRun = fun.run(
-				executionContext,
-				op.pipe(f -> {
-					synchronized(identities) {
-						ConcurrentDoublyLinkedList.Node node = functions.addLast(f);
-
-						for (T t : identities) {
-							IdentityHashMap<Function<T, S>, OSGiResult> terminatorMap =
-								terminators.computeIfAbsent(
-									t, __ -> new IdentityHashMap<>());
-							terminatorMap.put(f, op.apply(f.apply(t)));
-						}
-
-						return new OSGiResultImpl(
-							() -> {
-								synchronized (identities) {
-									node.remove();
-
-									identities.forEach(t -> {
-										Runnable terminator = terminators.get(t).remove(f);
-
-										terminator.run();
-									});
-								}
-							},
-							() -> {
-								synchronized (identities) {
-									return identities.stream().map(t -> {
-										OSGiResult terminator = terminators.get(t).get(f);
-
-										return terminator.update();
-									}).reduce(
-										Boolean.FALSE, Boolean::logicalOr
-									);
-								}
-							}
-						);
-					}
-				}
-			));
+				executionContext, op.pipe(f -> crossProduct.add(1, f)));
 
 			OSGiResult myRun = run(
-				executionContext,
-				op.pipe(t -> {
-					synchronized (identities) {
-						ConcurrentDoublyLinkedList.Node node = identities.addLast(t);
-
-						for (Function<T, S> f : functions) {
-							IdentityHashMap<Function<T, S>, OSGiResult> terminatorMap =
-								terminators.computeIfAbsent(
-									t, __ -> new IdentityHashMap<>());
-							terminatorMap.put(f, op.apply(f.apply(t)));
-						}
-
-						return new OSGiResultImpl(
-							() -> {
-								synchronized (identities) {
-									node.remove();
-
-									functions.forEach(f -> {
-										Runnable terminator = terminators.get(t).remove(f);
-
-										terminator.run();
-									});
-								}
-							},
-							() -> {
-								synchronized (identities) {
-									return functions.stream().map(f -> {
-										OSGiResult terminator = terminators.get(t).get(f);
-
-										return terminator.update();
-									}).reduce(
-										Boolean.FALSE, Boolean::logicalOr
-									);
-								}
-							}
-						);
-					}
-				})
-			);
+				executionContext, op.pipe(t -> crossProduct.add(0, t)));
 
 			return new AggregateOSGiResult(myRun, funRun);
 		});
@@ -199,10 +329,20 @@ public class BaseOSGiImpl<T> implements OSGi<T> {
 		Function<T, OSGi<Boolean>> chooser, Function<OSGi<T>, OSGi<S>> then,
 		Function<OSGi<T>, OSGi<S>> otherwise) {
 
-		return new BaseOSGiImpl<>((executionContext, op) -> {
+		Supplier<Operator> describer = () -> operator(
+			"choose", Collections.emptyMap(), this,
+			program -> program.choose(chooser, then, otherwise));
+
+		return new BaseOSGiImpl<>(describer, (executionContext, op) -> {
 			Pad<T, S> thenPad = new Pad<>(executionContext, then, op);
 			Pad<T, S> elsePad = new Pad<>(executionContext, otherwise, op);
 
+			Runnable inspection = inspect(
+				executionContext,
+				() -> attributes(
+					"then", thenPad.getLiveCount(),
+					"otherwise", elsePad.getLiveCount()));
+
 			OSGiResult result = run(
 				executionContext,
 				op.pipe(t -> chooser.apply(t).run(
@@ -215,7 +355,8 @@ public class BaseOSGiImpl<T> implements OSGi<T> {
                         }
                     }
                 )));
-			return new AggregateOSGiResult(thenPad, elsePad, result);
+			return new AggregateOSGiResult(
+				inspection::run, thenPad, elsePad, result);
 		});
 	}
 
@@ -231,7 +372,13 @@ public class BaseOSGiImpl<T> implements OSGi<T> {
 		Consumer<? super T> onRemovedAfter,
 		Consumer<? super T> onUpdate) {
 
-		return transform(op -> t -> {
+		Supplier<Operator> describer = () -> operator(
+			"effects", Collections.emptyMap(), this,
+			program -> program.effects(
+				onAddedBefore, onAddedAfter, onRemovedBefore, onRemovedAfter,
+				onUpdate));
+
+		return transform(describer, op -> t -> {
 			onAddedBefore.accept(t);
 
 			try {
@@ -301,33 +448,35 @@ public class BaseOSGiImpl<T> implements OSGi<T> {
 
 	@Override
 	public OSGi<T> filter(Predicate<T> predicate) {
-		return transform(
-			op -> t -> {
-				if (predicate.test(t)) {
-					return op.apply(t);
-				}
-				else {
-					return NOOP;
-				}
-			}
-		);
+		return new FusedOSGiImpl<T, T>(
+			this, new String[] {"filter"},
+			FusedOSGiImpl.stages(FusedOSGiImpl.filterStage(predicate)));
 	}
 
 	@Override
 	public <S> OSGi<S> flatMap(Function<? super T, OSGi<? extends S>> fun) {
-		return new BaseOSGiImpl<>((executionContext, op) ->
-			run(executionContext, op.pipe(t -> fun.apply(t).run(executionContext, op))));
+		return flatMap(
+			() -> operator(
+				"flatMap", Collections.emptyMap(), this,
+				program -> program.flatMap(fun)),
+			fun);
 	}
 
 	@Override
 	public <S> OSGi<S> map(Function<? super T, ? extends S> function) {
-		return transform(op -> t -> op.apply(function.apply(t)));
+		return new FusedOSGiImpl<T, S>(
+			this, new String[] {"map"},
+			FusedOSGiImpl.stages(FusedOSGiImpl.mapStage(function)));
 	}
 
 	@Deprecated
 	@Override
 	public OSGi<T> recover(BiFunction<T, Exception, T> onError) {
-		return new BaseOSGiImpl<>((executionContext, op) ->
+		Supplier<Operator> describer = () -> operator(
+			"recover", Collections.emptyMap(), this,
+			program -> program.recover(onError));
+
+		return new BaseOSGiImpl<>(describer, (executionContext, op) ->
 			run(
 				executionContext,
 				t -> {
@@ -344,7 +493,11 @@ public class BaseOSGiImpl<T> implements OSGi<T> {
 	@Deprecated
 	@Override
 	public OSGi<T> recoverWith(BiFunction<T, Exception, OSGi<T>> onError) {
-		return new BaseOSGiImpl<>((executionContext, op) ->
+		Supplier<Operator> describer = () -> operator(
+			"recoverWith", Collections.emptyMap(), this,
+			program -> program.recoverWith(onError));
+
+		return new BaseOSGiImpl<>(describer, (executionContext, op) ->
 			run(
 				executionContext,
 				t -> {
@@ -362,40 +515,77 @@ public class BaseOSGiImpl<T> implements OSGi<T> {
 	public <K, S> OSGi<S> splitBy(
 		Function<T, OSGi<K>> mapper, BiFunction<K, OSGi<T>, OSGi<S>> fun) {
 
-		return new BaseOSGiImpl<>((executionContext, op) -> {
-			HashMap<K, Pad<T, S>> pads = new HashMap<>();
+		return new SplitByOSGiImpl<>(this, mapper, fun);
+	}
+
+	@Override
+	public <S> OSGi<S> then(OSGi<S> next) {
+		Supplier<Operator> describer = () -> operator(
+			"then", Collections.emptyMap(), new OSGi<?>[] {this, next},
+			inputs -> inputs[0].then(inputs[1]));
+
+		return flatMap(describer, __ -> next);
+	}
+
+	@Override
+	public <S> OSGi<S> transform(Transformer<T, S> fun) {
+		return transform(
+			() -> operator(
+				"transform",
+				attributes(
+					"transformer",
+					fun.getClass().isSynthetic() ?
+						null : fun.getClass().getSimpleName()),
+				this, program -> program.transform(fun)),
+			fun);
+	}
+
+	private <S> OSGi<S> flatMap(
+		Supplier<Operator> describer,
+		Function<? super T, OSGi<? extends S>> fun) {
+
+		return new BaseOSGiImpl<>(describer, (executionContext, op) -> {
+			if (executionContext.getInstrumentation() == null) {
+				return run(
+					executionContext,
+					op.pipe(t -> fun.apply(t).run(executionContext, op)));
+			}
+
+			LongAdder branches = new LongAdder();
+
+			Runnable inspection = inspect(
+				executionContext, () -> attributes("branches", branches.sum()));
 
 			OSGiResult result = run(
 				executionContext,
-				op.pipe(t -> mapper.apply(t).run(
-					executionContext,
-					k -> pads.computeIfAbsent(
-						k,
-						__ -> new Pad<>(
-							executionContext,
-							___ -> fun.apply(k, ___), op)
-					).publish(t)
-				)
-			));
+				op.pipe(t -> {
+					OSGiResult branch = fun.apply(t).run(executionContext, op);
+
+					branches.increment();
+
+					return new OSGiResultImpl(
+						() -> {
+							branches.decrement();
+
+							branch.close();
+						},
+						branch::update);
+				}));
 
 			return new OSGiResultImpl(
 				() -> {
-					pads.values().forEach(Pad::close);
+					inspection.run();
 
 					result.close();
 				},
-				() -> pads.values().stream().map(
-					Pad::update
-				).reduce(
-					Boolean.FALSE, Boolean::logicalOr
-				) | result.update()
-			);
+				result::update);
 		});
 	}
 
-	@Override
-	public <S> OSGi<S> transform(Transformer<T, S> fun) {
-		return new BaseOSGiImpl<>((executionContext, op) -> run(
+	private <S> OSGi<S> transform(
+		Supplier<Operator> describer, Transformer<T, S> fun) {
+
+		return new BaseOSGiImpl<>(describer, (executionContext, op) -> run(
 				executionContext, op.pipe(fun.transform(op)::apply)));
 	}
 
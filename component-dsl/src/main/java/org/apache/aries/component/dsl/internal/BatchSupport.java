@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lets a thread deliver several changes as one batch. Operators recomputing
+ * something for every change, like the publisher of {@code accumulate},
+ * defer the recomputation to the end of the batch, and every one of them is
+ * run once, in the order they were first deferred, however many times it
+ * was deferred during the batch.
+ *
+ * <p>A batch started while another one is running on the same thread is
+ * part of it.</p>
+ */
+public class BatchSupport {
+
+    /**
+     * Runs the action at the end of the current batch, replacing the action
+     * deferred before with the same key, or right away if the thread is not
+     * running a batch.
+     */
+    public static void defer(Object key, Runnable runnable) {
+        Map<Object, Runnable> actions = _actions.get();
+
+        if (actions == null) {
+            runnable.run();
+
+            return;
+        }
+
+        actions.put(key, runnable);
+    }
+
+    public static boolean isBatch() {
+        return _actions.get() != null;
+    }
+
+    public static void runInBatch(Runnable runnable) {
+        if (_actions.get() != null) {
+            runnable.run();
+
+            return;
+        }
+
+        Map<Object, Runnable> actions = new LinkedHashMap<>();
+
+        _actions.set(actions);
+
+        try {
+            runnable.run();
+
+            while (!actions.isEmpty()) {
+                List<Runnable> runnables = new ArrayList<>(actions.values());
+
+                actions.clear();
+
+                for (Runnable action : runnables) {
+                    try {
+                        action.run();
+                    }
+                    catch (Exception e) {
+                        Multicast.report(e);
+                    }
+                }
+            }
+        }
+        finally {
+            _actions.remove();
+        }
+    }
+
+    private static final ThreadLocal<Map<Object, Runnable>> _actions =
+        new ThreadLocal<>();
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.aries.component.dsl.internal;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.graph.Operator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Delivers the elements of a program in batches. The elements are held in a
+ * {@link Quiescence} until the program has been quiet for the given window,
+ * and are then published together in a {@link BatchSupport batch}, so the
+ * operators aggregating them recompute once per batch instead of once per
+ * element.
+ *
+ * <p>Only the publications are held. The elements published while the
+ * program is being started are published right away, in a single batch, and
+ * an element that goes away is retracted right away, or never published if
+ * it was still being held, since it may refer to a service that is being
+ * unregistered.</p>
+ */
+public class BatchingOSGiImpl<T> extends OSGiImpl<T> {
+
+    public BatchingOSGiImpl(OSGi<T> program, long window, TimeUnit unit) {
+        super(describe(program, window, unit), (executionContext, op) -> {
+            Quiescence<T> quiescence = new Quiescence<>(
+                unit.toNanos(window), executionContext.getExecutor(), false);
+
+            OSGiResult[] result = new OSGiResult[1];
+
+            BatchSupport.runInBatch(
+                () -> result[0] = quiescence.start(
+                    () -> program.run(
+                        executionContext,
+                        op.pipe(t -> quiescence.add(op, t)))));
+
+            return new OSGiResultImpl(
+                () -> {
+                    quiescence.close();
+
+                    result[0].close();
+                },
+                result[0]::update);
+        });
+    }
+
+    private static <T> Supplier<Operator> describe(
+        OSGi<T> program, long window, TimeUnit unit) {
+
+        return () -> operator(
+            "batched",
+            attributes("window", unit.toMillis(window) + "ms"),
+            program, source -> new BatchingOSGiImpl<>(source, window, unit));
+    }
+
+}
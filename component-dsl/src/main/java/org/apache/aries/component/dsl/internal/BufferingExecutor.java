@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+/**
+ * Buffers the tasks submitted to it until it is {@link #open() opened}, and
+ * runs them right away on the submitting thread afterwards. The thread
+ * opening it replays the buffered tasks in submission order, including the
+ * ones submitted while replaying, so no task overtakes an earlier one and no
+ * thread waits for another.
+ *
+ * <p>A task throwing an exception does not prevent the following ones from
+ * running.</p>
+ */
+public class BufferingExecutor implements Executor {
+
+    @Override
+    public void execute(Runnable runnable) {
+        synchronized (this) {
+            if (!_open) {
+                _tasks.add(runnable);
+
+                return;
+            }
+        }
+
+        runnable.run();
+    }
+
+    public void open() {
+        while (true) {
+            Runnable task;
+
+            synchronized (this) {
+                task = _tasks.poll();
+
+                if (task == null) {
+                    _open = true;
+
+                    return;
+                }
+            }
+
+            try {
+                task.run();
+            }
+            catch (Exception e) {
+                //TODO: logging
+            }
+        }
+    }
+
+    private boolean _open;
+    private final Queue<Runnable> _tasks = new ArrayDeque<>();
+
+}
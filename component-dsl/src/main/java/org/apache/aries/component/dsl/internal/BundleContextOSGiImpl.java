@@ -17,6 +17,7 @@
 
 package org.apache.aries.component.dsl.internal;
 
+import org.apache.aries.component.dsl.graph.Operator;
 import org.osgi.framework.BundleContext;
 
 /**
@@ -25,7 +26,7 @@ import org.osgi.framework.BundleContext;
 public class BundleContextOSGiImpl extends OSGiImpl<BundleContext> {
 
 	public BundleContextOSGiImpl() {
-		super((executionContext, op) ->
+		super(() -> Operator.of("bundleContext"), (executionContext, op) ->
 			new JustOSGiImpl<>(executionContext.getBundleContext()).run(executionContext, op));
 	}
 }
@@ -18,18 +18,24 @@
 package org.apache.aries.component.dsl.internal;
 
 import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.graph.Operator;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleEvent;
 import org.osgi.util.tracker.BundleTracker;
 import org.osgi.util.tracker.BundleTrackerCustomizer;
 
+import java.util.function.Supplier;
+
 /**
  * @author Carlos Sierra Andrés
  */
 public class BundleOSGi extends OSGiImpl<Bundle> {
 
 	public BundleOSGi(int stateMask) {
-		super((executionContext, op) -> {
+		super(describe(stateMask), (executionContext, op) -> {
+
+			ConcurrentDoublyLinkedList<OSGiResult> results =
+				new ConcurrentDoublyLinkedList<>();
 
 			BundleTracker<OSGiResult> bundleTracker =
 				new BundleTracker<>(
@@ -40,7 +46,18 @@ public class BundleOSGi extends OSGiImpl<Bundle> {
 						public OSGiResult addingBundle(
 							Bundle bundle, BundleEvent bundleEvent) {
 
-							return op.apply(bundle);
+							OSGiResult result = op.apply(bundle);
+
+							ConcurrentDoublyLinkedList.Node node =
+								results.addLast(result);
+
+							return new OSGiResultImpl(
+								() -> {
+									node.remove();
+
+									result.run();
+								},
+								result::update);
 						}
 
 						@Override
@@ -64,14 +81,14 @@ public class BundleOSGi extends OSGiImpl<Bundle> {
 
 			return new OSGiResultImpl(
 				bundleTracker::close,
-				() -> bundleTracker.getTracked().values().stream().map(
-					OSGiResult::update
-				).reduce(
-					Boolean.FALSE, Boolean::logicalOr
-				)
+				() -> OSGiResults.updateAll(results)
 			);
 		});
 
 	}
 
+	private static Supplier<Operator> describe(int stateMask) {
+		return () -> Operator.of("bundles", attributes("stateMask", stateMask));
+	}
+
 }
@@ -20,6 +20,8 @@ package org.apache.aries.component.dsl.internal;
 import org.apache.aries.component.dsl.OSGi;
 import org.osgi.framework.BundleContext;
 
+import java.util.Collections;
+
 /**
  * @author Carlos Sierra Andrés
  */
@@ -28,6 +30,13 @@ public class ChangeContextOSGiImpl<T> extends OSGiImpl<T> {
 	public ChangeContextOSGiImpl(
         OSGi<T> program, BundleContext bundleContext) {
 
-		super((executionContext, op) -> program.run(new ExecutionContext(bundleContext), op));
+		super(
+			() -> operator(
+				"changeContext", Collections.emptyMap(), program,
+				source -> new ChangeContextOSGiImpl<>(source, bundleContext)),
+			(executionContext, op) -> program.run(
+			new ExecutionContext(
+				bundleContext, executionContext.getExecutor(),
+				executionContext.getInstrumentation()), op));
 	}
 }
@@ -20,11 +20,13 @@ package org.apache.aries.component.dsl.internal;
 import org.apache.aries.component.dsl.OSGi;
 import org.apache.aries.component.dsl.OSGiResult;
 import org.apache.aries.component.dsl.Publisher;
+import org.apache.aries.component.dsl.graph.Operator;
 
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 /**
  * @author Carlos Sierra Andrés
@@ -32,14 +34,18 @@ import java.util.concurrent.atomic.AtomicReference;
 public class CoalesceOSGiImpl<T> extends OSGiImpl<T> {
 
     @SafeVarargs
+    @SuppressWarnings("varargs") // the programs are only read
     public CoalesceOSGiImpl(OSGi<T>... programs) {
-        super((executionContext, op) -> {
+        super(describe(programs), (executionContext, op) -> {
             AtomicBoolean initialized = new AtomicBoolean();
             AtomicInteger[] atomicIntegers = new AtomicInteger[programs.length];
             OSGiResult[] results = new OSGiResult[programs.length];
             AtomicInteger index = new AtomicInteger();
             Publisher<T>[] publishers = new Publisher[programs.length];
 
+            Runnable inspection = inspect(
+                executionContext, () -> attributes("index", index.get()));
+
             for (int i = 0; i < atomicIntegers.length; i++) {
                 atomicIntegers[i] = new AtomicInteger();
             }
@@ -122,6 +128,8 @@ public class CoalesceOSGiImpl<T> extends OSGiImpl<T> {
 
             return new OSGiResultImpl(
                 () -> {
+                    inspection.run();
+
                     synchronized (initialized) {
                         initialized.set(false);
 
@@ -132,14 +140,22 @@ public class CoalesceOSGiImpl<T> extends OSGiImpl<T> {
                 },
                 () -> {
                     synchronized (initialized) {
-                        return Arrays.stream(results).map(
-                            res -> res.update()
-                        ).reduce(
-                            Boolean.FALSE, Boolean::logicalOr
-                        );
+                        return OSGiResults.updateAll(results);
                     }
                 }
             );
         });
     }
+
+    private static <T> Supplier<Operator> describe(OSGi<T>[] programs) {
+        return () -> operator(
+            "coalesce", Collections.emptyMap(), programs,
+            inputs -> {
+                @SuppressWarnings("unchecked")
+                OSGi<T>[] rebuilt = (OSGi<T>[])inputs;
+
+                return new CoalesceOSGiImpl<>(rebuilt);
+            });
+    }
+
 }
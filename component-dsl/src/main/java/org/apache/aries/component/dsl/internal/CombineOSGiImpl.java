@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.graph.Operator;
+
+import java.util.Collections;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Publishes the combiner applied to every combination of the elements of the
+ * programs, keeping all of them in a single {@link CrossProduct} instead of
+ * chaining one {@link OSGi#applyTo} per program.
+ *
+ * <p>The programs are run in order and closed in reverse order, as the
+ * chained version did.</p>
+ */
+public class CombineOSGiImpl<T> extends OSGiImpl<T> {
+
+    public CombineOSGiImpl(
+        Function<Object[], T> combiner, OSGi<?>... programs) {
+
+        super(describe(combiner, programs), (executionContext, op) -> {
+            CrossProduct crossProduct = new CrossProduct(
+                programs.length, values -> op.apply(combiner.apply(values)));
+
+            OSGiResult[] results = new OSGiResult[programs.length];
+
+            int i = 0;
+
+            try {
+                for (; i < programs.length; i++) {
+                    int dimension = i;
+
+                    results[i] = programs[i].run(
+                        executionContext,
+                        op.pipe(t -> crossProduct.add(dimension, t)));
+                }
+            }
+            catch (Exception e) {
+                cleanUp(results, i);
+
+                throw e;
+            }
+
+            return new OSGiResultImpl(
+                () -> cleanUp(results, results.length),
+                () -> {
+                    boolean updated = false;
+
+                    for (OSGiResult result : results) {
+                        updated |= result.update();
+                    }
+
+                    return updated;
+                });
+        });
+    }
+
+    private static <T> Supplier<Operator> describe(
+        Function<Object[], T> combiner, OSGi<?>[] programs) {
+
+        return () -> operator(
+            "combine", Collections.emptyMap(), programs,
+            inputs -> new CombineOSGiImpl<>(combiner, inputs));
+    }
+
+    private static void cleanUp(OSGiResult[] results, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            try {
+                results[i].close();
+            }
+            catch (Exception e) {
+            }
+        }
+    }
+
+}
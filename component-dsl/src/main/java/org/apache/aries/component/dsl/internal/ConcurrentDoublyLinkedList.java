@@ -33,6 +33,8 @@ import java.util.Deque;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * A concurrent linked-list implementation of a {@link Deque} (double-ended
@@ -474,6 +476,37 @@ public class ConcurrentDoublyLinkedList<E> extends AbstractCollection<E>
         return false;
     }
 
+    /**
+     * Applies the predicate to every element of this deque, without
+     * short-circuiting and without allocating an iterator, and returns
+     * <tt>true</tt> if it held for any of them. Like the iterator it is weakly
+     * consistent.
+     *
+     * @param predicate
+     *            predicate to apply to each element
+     * @return <tt>true</tt> if the predicate returned <tt>true</tt> for any
+     *         element.
+     */
+    public boolean testAll(Predicate<? super E> predicate) {
+        boolean result = false;
+        for (NodeImpl<E> n = header.forward(); n != null; n = n.forward())
+            result |= predicate.test(n.element);
+        return result;
+    }
+
+    /**
+     * Performs the action for every element of this deque, without allocating
+     * an iterator. Like the iterator it is weakly consistent.
+     *
+     * @param action
+     *            action to perform for each element
+     */
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        for (NodeImpl<E> n = header.forward(); n != null; n = n.forward())
+            action.accept(n.element);
+    }
+
     /**
      * Returns <tt>true</tt> if this collection contains no elements.
      * <p>
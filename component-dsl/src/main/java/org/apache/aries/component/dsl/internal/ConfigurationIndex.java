@@ -0,0 +1,519 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceReference;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.service.cm.Configuration;
+import org.osgi.service.cm.ConfigurationAdmin;
+import org.osgi.service.cm.ConfigurationEvent;
+import org.osgi.service.cm.ConfigurationListener;
+
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The configurations looked up by the configuration programs run with the
+ * same {@link BundleContext}, indexed by pid and by factory pid, together
+ * with the only {@link ConfigurationListener} those programs need.
+ *
+ * <p>The programs subscribe to the pid or to the factory pid they are
+ * interested in, and every event is handed to the subscribers of its pid or
+ * factory pid only, after the index has been updated with it.</p>
+ *
+ * <p>{@link Configuration} objects reflect the changes made to them after
+ * being listed, and throw an {@link IllegalStateException} once deleted, so
+ * a configuration found in the index only needs to be checked for deletion.
+ * Only the configurations not in the index cost a {@code
+ * listConfigurations} call, and the {@link ConfigurationAdmin} service is
+ * got once and kept while the index is in use.</p>
+ *
+ * <p>Once a factory has been listed, the index keeps the configurations of
+ * the factory up to date from the events, so later programs take them from
+ * the index. A program subscribes before taking them, so that the events the
+ * index has not handled yet are still handed to it.</p>
+ *
+ * <p>The indexes are counted and kept in a registry, like the shared service
+ * trackers.</p>
+ */
+public class ConfigurationIndex {
+
+    public static ConfigurationIndex acquire(BundleContext bundleContext) {
+        while (true) {
+            ConfigurationIndex configurationIndex =
+                _configurationIndexes.computeIfAbsent(
+                    bundleContext, ConfigurationIndex::new);
+
+            if (configurationIndex.doAcquire()) {
+                return configurationIndex;
+            }
+
+            _configurationIndexes.remove(bundleContext, configurationIndex);
+        }
+    }
+
+    /**
+     * @return the singleton configuration with the pid, or {@code null} if
+     *         there is none
+     */
+    public Configuration getConfiguration(
+        ServiceReference<ConfigurationAdmin> reference, String pid) {
+
+        Configuration configuration = getIndexed(reference, pid);
+
+        if (configuration == null) {
+            configuration = list(
+                reference,
+                "(&(service.pid=" + pid + ")(!(service.factoryPid=*)))");
+        }
+
+        if (configuration == null || !isFactory(configuration, null)) {
+            return null;
+        }
+
+        return configuration;
+    }
+
+    /**
+     * @return the factory configuration with the pid, or {@code null} if
+     *         there is none
+     */
+    public Configuration getConfiguration(
+        ServiceReference<ConfigurationAdmin> reference, String pid,
+        String factoryPid) {
+
+        Configuration configuration = getIndexed(reference, pid);
+
+        if (configuration == null) {
+            configuration = list(
+                reference,
+                "(&(service.pid=" + pid + ")" +
+                    "(service.factoryPid=" + factoryPid + "))");
+        }
+
+        if (configuration == null || !isFactory(configuration, factoryPid)) {
+            return null;
+        }
+
+        return configuration;
+    }
+
+    /**
+     * @return the configurations of the factory, listed from {@link
+     *         ConfigurationAdmin} only the first time the factory is asked
+     *         for
+     */
+    public Configuration[] getConfigurations(
+        ServiceReference<ConfigurationAdmin> reference, String factoryPid) {
+
+        if (configurationAdmin(reference) == null) {
+            return new Configuration[0];
+        }
+
+        Factory factory = _factories.computeIfAbsent(
+            factoryPid, __ -> new Factory());
+
+        if (!factory._listed) {
+            synchronized (factory) {
+                if (!factory._listed) {
+                    Configuration[] configurations = listConfigurations(
+                        reference,
+                        "(&(service.pid=*)(service.factoryPid=" +
+                            factoryPid + "))");
+
+                    if (_configurationAdmin == null) {
+                        // the listing failed and reset the index
+
+                        return new Configuration[0];
+                    }
+
+                    if (configurations != null) {
+                        for (Configuration configuration : configurations) {
+                            index(reference, configuration);
+                        }
+                    }
+
+                    factory._listed = true;
+                }
+            }
+        }
+
+        List<Configuration> configurations = new ArrayList<>();
+
+        for (Configuration configuration :
+                factory._configurations.values()) {
+
+            if (!isDeleted(configuration)) {
+                configurations.add(configuration);
+            }
+        }
+
+        return configurations.toArray(new Configuration[0]);
+    }
+
+    public synchronized void release() {
+        if (--_count == 0) {
+            _closed = true;
+
+            _configurationIndexes.remove(_bundleContext, this);
+
+            try {
+                _serviceRegistration.unregister();
+            }
+            catch (IllegalStateException ise) {
+            }
+
+            reset(null);
+        }
+    }
+
+    /**
+     * Hands the events of the singleton configuration with the pid to the
+     * listener.
+     *
+     * @return the runnable that unsubscribes the listener
+     */
+    public Runnable subscribe(String pid, ConfigurationListener listener) {
+        return subscribe(_listeners, pid, listener);
+    }
+
+    /**
+     * Hands the events of the configurations of the factory to the listener.
+     *
+     * @return the runnable that unsubscribes the listener
+     */
+    public Runnable subscribeFactory(
+        String factoryPid, ConfigurationListener listener) {
+
+        return subscribe(_factoryListeners, factoryPid, listener);
+    }
+
+    static int size() {
+        return _configurationIndexes.size();
+    }
+
+    private ConfigurationIndex(BundleContext bundleContext) {
+        _bundleContext = bundleContext;
+    }
+
+    private static boolean isFactory(
+        Configuration configuration, String factoryPid) {
+
+        try {
+            String configurationFactoryPid = configuration.getFactoryPid();
+
+            if (factoryPid == null) {
+                return configurationFactoryPid == null;
+            }
+
+            return factoryPid.equals(configurationFactoryPid);
+        }
+        catch (IllegalStateException ise) {
+            return false;
+        }
+    }
+
+    private static Runnable subscribe(
+        ConcurrentMap<String, List<ConfigurationListener>> listeners,
+        String key, ConfigurationListener listener) {
+
+        listeners.compute(key, (__, list) -> {
+            if (list == null) {
+                list = new CopyOnWriteArrayList<>();
+            }
+
+            list.add(listener);
+
+            return list;
+        });
+
+        return () -> listeners.computeIfPresent(key, (__, list) -> {
+            list.remove(listener);
+
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    private static boolean isDeleted(Configuration configuration) {
+        try {
+            configuration.getChangeCount();
+
+            return false;
+        }
+        catch (IllegalStateException ise) {
+            return true;
+        }
+    }
+
+    private synchronized ConfigurationAdmin configurationAdmin(
+        ServiceReference<ConfigurationAdmin> reference) {
+
+        if (_closed) {
+            return null;
+        }
+
+        if (reference == null) {
+            if (_reference != null) {
+                return _configurationAdmin;
+            }
+
+            reference = _bundleContext.getServiceReference(
+                ConfigurationAdmin.class);
+
+            if (reference == null) {
+                return null;
+            }
+        }
+
+        if (!reference.equals(_reference)) {
+            reset(reference);
+        }
+
+        return _configurationAdmin;
+    }
+
+    /**
+     * @return {@code false} if the index has already been released
+     */
+    private synchronized boolean doAcquire() {
+        if (_closed) {
+            return false;
+        }
+
+        if (_count++ == 0) {
+            try {
+                _serviceRegistration = _bundleContext.registerService(
+                    ConfigurationListener.class, this::configurationEvent,
+                    new Hashtable<>());
+            }
+            catch (RuntimeException re) {
+                _closed = true;
+
+                _configurationIndexes.remove(_bundleContext, this);
+
+                throw re;
+            }
+        }
+
+        return true;
+    }
+
+    private void configurationEvent(ConfigurationEvent configurationEvent) {
+        String pid = configurationEvent.getPid();
+        String factoryPid = configurationEvent.getFactoryPid();
+
+        if (configurationEvent.getType() == ConfigurationEvent.CM_DELETED) {
+            synchronized (this) {
+                Configuration configuration = _configurations.get(pid);
+
+                if (configuration != null && isDeleted(configuration)) {
+                    remove(pid, configuration);
+                }
+            }
+        }
+        else if (factoryPid != null && _factories.containsKey(factoryPid)) {
+            getConfiguration(configurationEvent.getReference(), pid, factoryPid);
+        }
+
+        List<ConfigurationListener> listeners;
+
+        if (factoryPid == null) {
+            listeners = _listeners.get(pid);
+        }
+        else {
+            listeners = _factoryListeners.get(factoryPid);
+        }
+
+        if (listeners == null) {
+            return;
+        }
+
+        for (ConfigurationListener listener : listeners) {
+            try {
+                listener.configurationEvent(configurationEvent);
+            }
+            catch (Exception e) {
+                //TODO: logging
+            }
+        }
+    }
+
+    private synchronized void forget(ConfigurationAdmin configurationAdmin) {
+        if (configurationAdmin == _configurationAdmin) {
+            reset(null);
+        }
+    }
+
+    private Configuration getIndexed(
+        ServiceReference<ConfigurationAdmin> reference, String pid) {
+
+        if (configurationAdmin(reference) == null) {
+            return null;
+        }
+
+        Configuration configuration = _configurations.get(pid);
+
+        if (configuration == null || !isDeleted(configuration)) {
+            return configuration;
+        }
+
+        synchronized (this) {
+            remove(pid, configuration);
+        }
+
+        return null;
+    }
+
+    private synchronized void index(
+        ServiceReference<ConfigurationAdmin> reference,
+        Configuration configuration) {
+
+        if (_closed || !reference(reference)) {
+            return;
+        }
+
+        try {
+            String pid = configuration.getPid();
+            String factoryPid = configuration.getFactoryPid();
+
+            _configurations.put(pid, configuration);
+
+            if (factoryPid != null) {
+                Factory factory = _factories.get(factoryPid);
+
+                if (factory != null) {
+                    factory._configurations.put(pid, configuration);
+                }
+            }
+        }
+        catch (IllegalStateException ise) {
+        }
+    }
+
+    private Configuration list(
+        ServiceReference<ConfigurationAdmin> reference, String filter) {
+
+        Configuration[] configurations = listConfigurations(reference, filter);
+
+        if (configurations == null || configurations.length == 0) {
+            return null;
+        }
+
+        Configuration configuration = configurations[0];
+
+        index(reference, configuration);
+
+        return configuration;
+    }
+
+    private Configuration[] listConfigurations(
+        ServiceReference<ConfigurationAdmin> reference, String filter) {
+
+        ConfigurationAdmin configurationAdmin = configurationAdmin(reference);
+
+        if (configurationAdmin == null) {
+            return null;
+        }
+
+        try {
+            return configurationAdmin.listConfigurations(filter);
+        }
+        catch (Exception e) {
+            forget(configurationAdmin);
+
+            return null;
+        }
+    }
+
+    private boolean reference(ServiceReference<ConfigurationAdmin> reference) {
+        return reference == null || reference.equals(_reference);
+    }
+
+    private void remove(String pid, Configuration configuration) {
+        if (!_configurations.remove(pid, configuration)) {
+            return;
+        }
+
+        for (Factory factory : _factories.values()) {
+            factory._configurations.remove(pid, configuration);
+        }
+    }
+
+    private void reset(ServiceReference<ConfigurationAdmin> reference) {
+        if (_reference != null) {
+            try {
+                _bundleContext.ungetService(_reference);
+            }
+            catch (IllegalStateException ise) {
+            }
+        }
+
+        _configurations.clear();
+        _factories.clear();
+
+        _configurationAdmin = null;
+        _reference = null;
+
+        if (reference != null) {
+            ConfigurationAdmin configurationAdmin = _bundleContext.getService(
+                reference);
+
+            if (configurationAdmin != null) {
+                _configurationAdmin = configurationAdmin;
+                _reference = reference;
+            }
+        }
+    }
+
+    private static final ConcurrentMap<BundleContext, ConfigurationIndex>
+        _configurationIndexes = new ConcurrentHashMap<>();
+
+    private final BundleContext _bundleContext;
+    private boolean _closed;
+    private volatile ConfigurationAdmin _configurationAdmin;
+    private final ConcurrentMap<String, Configuration> _configurations =
+        new ConcurrentHashMap<>();
+    private int _count;
+    private final ConcurrentMap<String, List<ConfigurationListener>>
+        _factoryListeners = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Factory> _factories =
+        new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, List<ConfigurationListener>>
+        _listeners = new ConcurrentHashMap<>();
+    private volatile ServiceReference<ConfigurationAdmin> _reference;
+    private ServiceRegistration<?> _serviceRegistration;
+
+    /**
+     * The configurations of a factory. They are complete once the factory
+     * has been listed, since from then on the index adds the configurations
+     * of the factory it is told about.
+     */
+    private static class Factory {
+
+        private final ConcurrentMap<String, Configuration> _configurations =
+            new ConcurrentHashMap<>();
+        private volatile boolean _listed;
+
+    }
+
+}
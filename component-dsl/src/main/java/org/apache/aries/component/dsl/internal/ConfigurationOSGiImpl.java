@@ -19,20 +19,17 @@ package org.apache.aries.component.dsl.internal;
 
 import org.apache.aries.component.dsl.OSGiResult;
 import org.apache.aries.component.dsl.configuration.ConfigurationHolder;
+import org.apache.aries.component.dsl.graph.Operator;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceReference;
-import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.cm.Configuration;
 import org.osgi.service.cm.ConfigurationAdmin;
 import org.osgi.service.cm.ConfigurationEvent;
-import org.osgi.service.cm.ConfigurationListener;
 
-import java.util.Hashtable;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 /**
  * @author Carlos Sierra Andrés
@@ -40,7 +37,7 @@ import java.util.concurrent.atomic.AtomicReference;
 public class ConfigurationOSGiImpl extends OSGiImpl<ConfigurationHolder> {
 
 	public ConfigurationOSGiImpl(String pid) {
-		super((executionContext, op) -> {
+		super(describe(pid), (executionContext, op) -> {
 			AtomicReference<Configuration> atomicReference =
 				new AtomicReference<>(null);
 
@@ -52,27 +49,17 @@ public class ConfigurationOSGiImpl extends OSGiImpl<ConfigurationHolder> {
 
 			AtomicLong initialCounter = new AtomicLong();
 
-			CountDownLatch countDownLatch = new CountDownLatch(1);
+			BufferingExecutor pendingEvents = new BufferingExecutor();
 
 			BundleContext bundleContext = executionContext.getBundleContext();
 
-			ServiceRegistration<?> serviceRegistration =
-				bundleContext.registerService(
-					ConfigurationListener.class,
-					(ConfigurationEvent configurationEvent) -> {
-						if (configurationEvent.getFactoryPid() != null ||
-							!configurationEvent.getPid().equals(pid)) {
-
-							return;
-						}
-
-						try {
-							countDownLatch.await(1, TimeUnit.MINUTES);
-						}
-						catch (InterruptedException e) {
-							return;
-						}
+			ConfigurationIndex configurationIndex = ConfigurationIndex.acquire(
+				bundleContext);
 
+			Runnable unsubscribe =
+				configurationIndex.subscribe(
+					pid,
+					(ConfigurationEvent configurationEvent) -> pendingEvents.execute(() -> {
 						Configuration configuration;
 
 						if (configurationEvent.getType() ==
@@ -83,8 +70,8 @@ public class ConfigurationOSGiImpl extends OSGiImpl<ConfigurationHolder> {
 							signalLeave(terminatorAtomicReference);
 						}
 						else {
-							 configuration = getConfiguration(
-								 bundleContext, configurationEvent);
+							configuration = configurationIndex.getConfiguration(
+								configurationEvent.getReference(), pid);
 
 							if (configuration == null ||
 								configuration.getChangeCount() == initialCounter.get()) {
@@ -118,15 +105,14 @@ public class ConfigurationOSGiImpl extends OSGiImpl<ConfigurationHolder> {
 								signalLeave(terminatorAtomicReference);
 							}
 						}
-					},
-					new Hashtable<>());
+					}));
 
 			ServiceReference<ConfigurationAdmin> serviceReference =
 				bundleContext.getServiceReference(ConfigurationAdmin.class);
 
 			if (serviceReference != null) {
-				Configuration configuration = getConfiguration(
-                    bundleContext, pid, serviceReference);
+				Configuration configuration =
+					configurationIndex.getConfiguration(serviceReference, pid);
 
 				if (configuration != null) {
                     atomicReference.set(configuration);
@@ -138,56 +124,25 @@ public class ConfigurationOSGiImpl extends OSGiImpl<ConfigurationHolder> {
                 }
 			}
 
-			countDownLatch.countDown();
+			pendingEvents.open();
 
 			return new OSGiResultImpl(
 				() -> {
 					closed.set(true);
 
-					serviceRegistration.unregister();
+					unsubscribe.run();
 
 					signalLeave(terminatorAtomicReference);
+
+					configurationIndex.release();
 				},
 				() -> terminatorAtomicReference.get().update())
 			;
 		});
 	}
 
-	private static Configuration getConfiguration(
-		BundleContext bundleContext, ConfigurationEvent configurationEvent) {
-
-		String pid = configurationEvent.getPid();
-
-		ServiceReference<ConfigurationAdmin> reference =
-			configurationEvent.getReference();
-
-		return getConfiguration(bundleContext, pid, reference);
-	}
-
-	private static Configuration getConfiguration(
-		BundleContext bundleContext, String pid,
-		ServiceReference<ConfigurationAdmin> reference) {
-
-		ConfigurationAdmin configurationAdmin = bundleContext.getService(
-			reference);
-
-		try {
-			Configuration[] configurations =
-                configurationAdmin.listConfigurations(
-                    "(&(service.pid=" + pid + ")(!(service.factoryPid=*)))");
-
-			if (configurations == null || configurations.length == 0) {
-                return null;
-            }
-
-			return configurations[0];
-		}
-		catch (Exception e) {
-			return null;
-		}
-		finally {
-			bundleContext.ungetService(reference);
-		}
+	private static Supplier<Operator> describe(String pid) {
+		return () -> Operator.of("configuration", attributes("pid", pid));
 	}
 
 	private static void signalLeave(
@@ -19,19 +19,16 @@ package org.apache.aries.component.dsl.internal;
 
 import org.apache.aries.component.dsl.OSGiResult;
 import org.apache.aries.component.dsl.configuration.ConfigurationHolder;
+import org.apache.aries.component.dsl.graph.Operator;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceReference;
-import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.cm.Configuration;
 import org.osgi.service.cm.ConfigurationAdmin;
 import org.osgi.service.cm.ConfigurationEvent;
-import org.osgi.service.cm.ConfigurationListener;
 
-import java.util.Hashtable;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 /**
  * @author Carlos Sierra Andrés
@@ -39,7 +36,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public class ConfigurationsOSGiImpl extends OSGiImpl<ConfigurationHolder> {
 
 	public ConfigurationsOSGiImpl(String factoryPid) {
-		super((executionContext, op) -> {
+		super(describe(factoryPid), (executionContext, op) -> {
 			ConcurrentHashMap<String, Long> configurationCounters =
 				new ConcurrentHashMap<>();
 
@@ -48,28 +45,17 @@ public class ConfigurationsOSGiImpl extends OSGiImpl<ConfigurationHolder> {
 
 			AtomicBoolean closed = new AtomicBoolean();
 
-			CountDownLatch countDownLatch = new CountDownLatch(1);
+			BufferingExecutor pendingEvents = new BufferingExecutor();
 
 			final BundleContext bundleContext = executionContext.getBundleContext();
 
-			ServiceRegistration<?> serviceRegistration =
-				bundleContext.registerService(
-					ConfigurationListener.class,
-					(ConfigurationEvent configurationEvent) -> {
-						String incomingFactoryPid =
-							configurationEvent.getFactoryPid();
-
-						if (!factoryPid.equals(incomingFactoryPid)) {
-							return;
-						}
-
-						try {
-							countDownLatch.await(1, TimeUnit.MINUTES);
-						}
-						catch (InterruptedException e) {
-							return;
-						}
+			ConfigurationIndex configurationIndex = ConfigurationIndex.acquire(
+				bundleContext);
 
+			Runnable unsubscribe =
+				configurationIndex.subscribeFactory(
+					factoryPid,
+					(ConfigurationEvent configurationEvent) -> pendingEvents.execute(() -> {
 						String pid = configurationEvent.getPid();
 
 						Configuration configuration;
@@ -82,8 +68,12 @@ public class ConfigurationsOSGiImpl extends OSGiImpl<ConfigurationHolder> {
 							signalLeave(pid, terminators);
 						}
 						else {
-							configuration = getConfiguration(
-								bundleContext, configurationEvent);
+							configuration = configurationIndex.getConfiguration(
+								configurationEvent.getReference(), pid, factoryPid);
+
+							if (configuration == null) {
+								return;
+							}
 
 							Long oldChangeCount = configurationCounters.putIfAbsent(
 								pid, configuration.getChangeCount());
@@ -116,15 +106,15 @@ public class ConfigurationsOSGiImpl extends OSGiImpl<ConfigurationHolder> {
 								signalLeave(pid, terminators);
 							}
 						}
-					},
-					new Hashtable<>());
+					}));
 
 			ServiceReference<ConfigurationAdmin> serviceReference =
 				bundleContext.getServiceReference(ConfigurationAdmin.class);
 
 			if (serviceReference != null) {
-				Configuration[] configurations = getConfigurations(
-					bundleContext, factoryPid, serviceReference);
+				Configuration[] configurations =
+					configurationIndex.getConfigurations(
+						serviceReference, factoryPid);
 
 				for (Configuration configuration : configurations) {
 					configurationCounters.put(
@@ -136,91 +126,29 @@ public class ConfigurationsOSGiImpl extends OSGiImpl<ConfigurationHolder> {
 				}
 			}
 
-			countDownLatch.countDown();
+			pendingEvents.open();
 
 			return new OSGiResultImpl(
 				() -> {
 					closed.set(true);
 
-					serviceRegistration.unregister();
+					unsubscribe.run();
 
 					for (Runnable runnable : terminators.values()) {
 						if (runnable != null) {
 							runnable.run();
 						}
 					}
+
+					configurationIndex.release();
 				},
-				() -> terminators.values().stream().map(
-					OSGiResult::update
-				).reduce(
-					Boolean.FALSE, Boolean::logicalOr
-				));
+				() -> OSGiResults.updateAll(terminators.values()));
 		});
 	}
 
-	private static Configuration getConfiguration(
-		BundleContext bundleContext, ConfigurationEvent configurationEvent) {
-
-		String pid = configurationEvent.getPid();
-		String factoryPid = configurationEvent.getFactoryPid();
-
-		ServiceReference<ConfigurationAdmin> reference =
-			configurationEvent.getReference();
-
-		return getConfiguration(bundleContext, pid, factoryPid, reference);
-	}
-
-	private static Configuration getConfiguration(
-		BundleContext bundleContext, String pid, String factoryPid,
-		ServiceReference<ConfigurationAdmin> reference) {
-
-		ConfigurationAdmin configurationAdmin = bundleContext.getService(
-			reference);
-
-		try {
-			Configuration[] configurations =
-				configurationAdmin.listConfigurations(
-					"(&(service.pid=" + pid + ")" +
-						"(service.factoryPid="+ factoryPid + "))");
-
-			if (configurations == null || configurations.length == 0) {
-				return null;
-			}
-
-			return configurations[0];
-		}
-		catch (Exception e) {
-			return null;
-		}
-		finally {
-			bundleContext.ungetService(reference);
-		}
-	}
-
-	private static Configuration[] getConfigurations(
-		BundleContext bundleContext, String factoryPid,
-		ServiceReference<ConfigurationAdmin> serviceReference) {
-
-		ConfigurationAdmin configurationAdmin = bundleContext.getService(
-			serviceReference);
-
-		try {
-			Configuration[] configurations =
-				configurationAdmin.listConfigurations(
-					"(&(service.pid=*)(service.factoryPid="+ factoryPid +"))");
-
-			if (configurations == null) {
-				return new Configuration[0];
-			}
-
-			return configurations;
-		}
-		catch (Exception e) {
-			return new Configuration[0];
-		}
-		finally {
-			bundleContext.ungetService(serviceReference);
-		}
+	private static Supplier<Operator> describe(String factoryPid) {
+		return () -> Operator.of(
+			"configurations", attributes("factoryPid", factoryPid));
 	}
 
 	private static void signalLeave(
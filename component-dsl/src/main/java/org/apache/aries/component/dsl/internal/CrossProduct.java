@@ -0,0 +1,289 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import org.apache.aries.component.dsl.OSGiResult;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Function;
+
+/**
+ * Keeps the cross product of the values arriving on a fixed number of
+ * dimensions, publishing every combination of live values exactly once and
+ * closing it as soon as any of its values leaves.
+ *
+ * <p>Every value keeps the terminators of the combinations it takes part in,
+ * so leaving or updating only visits those combinations. The only lock is
+ * held while a value is appended to its dimension, never while publishing.
+ * A combination is published by whichever of its values arrived last.</p>
+ */
+public class CrossProduct {
+
+    public CrossProduct(
+        int dimensions, Function<Object[], OSGiResult> publisher) {
+
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        ConcurrentDoublyLinkedList<Entry>[] lists =
+            new ConcurrentDoublyLinkedList[dimensions];
+
+        _publisher = publisher;
+        _dimensions = lists;
+
+        for (int i = 0; i < dimensions; i++) {
+            _dimensions[i] = new ConcurrentDoublyLinkedList<>();
+        }
+    }
+
+    /**
+     * Adds a value to a dimension, publishing its combinations with the
+     * values already present in the other dimensions.
+     *
+     * @return the result that removes the value, closing its combinations,
+     * and updates them
+     */
+    public OSGiResult add(int dimension, Object value) {
+        Entry entry;
+
+        synchronized (_lock) {
+            entry = new Entry(dimension, value, _sequence++);
+
+            entry._node = _dimensions[dimension].addLast(entry);
+        }
+
+        Entry[] owners = new Entry[_dimensions.length];
+
+        owners[dimension] = entry;
+
+        try {
+            join(entry, owners, 0);
+        }
+        catch (Exception e) {
+            entry.close();
+
+            throw e;
+        }
+
+        return entry;
+    }
+
+    private void join(Entry entry, Entry[] owners, int dimension) {
+        if (dimension == owners.length) {
+            publish(entry, owners);
+
+            return;
+        }
+
+        if (dimension == entry._dimension) {
+            join(entry, owners, dimension + 1);
+
+            return;
+        }
+
+        _dimensions[dimension].forEach(other -> {
+            if (other._sequence < entry._sequence && !other.isClosed()) {
+                owners[dimension] = other;
+
+                join(entry, owners, dimension + 1);
+            }
+        });
+
+        owners[dimension] = null;
+    }
+
+    private void publish(Entry entry, Entry[] owners) {
+        Object[] values = new Object[owners.length];
+
+        for (int i = 0; i < owners.length; i++) {
+            values[i] = owners[i]._value;
+        }
+
+        Cell cell = new Cell(_publisher.apply(values));
+
+        entry.created(cell);
+
+        cell.link(entry, owners);
+    }
+
+    private final ConcurrentDoublyLinkedList<Entry>[] _dimensions;
+    private final Object _lock = new Object();
+    private final Function<Object[], OSGiResult> _publisher;
+    private long _sequence;
+
+    /**
+     * One published combination. The value that created it keeps it in its
+     * own array, the other values keep it in their cells, so that any of
+     * them can close it.
+     */
+    private static class Cell {
+
+        Cell(OSGiResult result) {
+            _result = result;
+        }
+
+        void close() {
+            if (_closedUpdater.compareAndSet(this, 0, 1)) {
+                if (_linked) {
+                    unlink();
+                }
+
+                _result.close();
+            }
+        }
+
+        /**
+         * An owner that closes while the cell is being linked might not see
+         * it in its cells, so once linked the cell checks the owners itself.
+         */
+        void link(Entry creator, Entry[] owners) {
+            _nodes = new ConcurrentDoublyLinkedList.Node[owners.length];
+
+            for (int i = 0; i < owners.length; i++) {
+                if (owners[i] != creator) {
+                    _nodes[i] = owners[i]._cells.addLast(this);
+                }
+            }
+
+            _linked = true;
+
+            for (Entry owner : owners) {
+                if (owner.isClosed()) {
+                    close();
+
+                    break;
+                }
+            }
+
+            if (isClosed()) {
+                unlink();
+            }
+        }
+
+        boolean isClosed() {
+            return _closed != 0;
+        }
+
+        boolean update() {
+            if (isClosed()) {
+                return false;
+            }
+
+            return _result.update();
+        }
+
+        private void unlink() {
+            for (ConcurrentDoublyLinkedList.Node node : _nodes) {
+                if (node != null) {
+                    node.remove();
+                }
+            }
+        }
+
+        private static final AtomicIntegerFieldUpdater<Cell> _closedUpdater =
+            AtomicIntegerFieldUpdater.newUpdater(Cell.class, "_closed");
+
+        private volatile int _closed;
+        private volatile boolean _linked;
+        private ConcurrentDoublyLinkedList.Node[] _nodes;
+        private final OSGiResult _result;
+
+    }
+
+    /**
+     * A value in one of the dimensions. The cells it created itself are only
+     * written while it is being added, so they are kept in a plain array; the
+     * cells created by values arriving later go to the concurrent list.
+     */
+    private static class Entry implements OSGiResult {
+
+        Entry(int dimension, Object value, long sequence) {
+            _dimension = dimension;
+            _value = value;
+            _sequence = sequence;
+        }
+
+        @Override
+        public void close() {
+            if (_closedUpdater.compareAndSet(this, 0, 1)) {
+                _node.remove();
+
+                for (int i = 0; i < _createdCount; i++) {
+                    close(_created[i]);
+                }
+
+                for (Cell cell : _cells) {
+                    close(cell);
+                }
+            }
+        }
+
+        @Override
+        public boolean update() {
+            if (isClosed()) {
+                return false;
+            }
+
+            boolean updated = false;
+
+            for (int i = 0; i < _createdCount; i++) {
+                updated |= _created[i].update();
+            }
+
+            return _cells.testAll(Cell::update) | updated;
+        }
+
+        void created(Cell cell) {
+            if (_createdCount == _created.length) {
+                _created = Arrays.copyOf(
+                    _created, _createdCount + (_createdCount >> 1) + 1);
+            }
+
+            _created[_createdCount++] = cell;
+        }
+
+        boolean isClosed() {
+            return _closed != 0;
+        }
+
+        private static void close(Cell cell) {
+            try {
+                cell.close();
+            }
+            catch (Exception e) {
+                Multicast.report(e);
+            }
+        }
+
+        private static final Cell[] EMPTY = new Cell[0];
+
+        private static final AtomicIntegerFieldUpdater<Entry> _closedUpdater =
+            AtomicIntegerFieldUpdater.newUpdater(Entry.class, "_closed");
+
+        private final ConcurrentDoublyLinkedList<Cell> _cells =
+            new ConcurrentDoublyLinkedList<>();
+        private volatile int _closed;
+        private Cell[] _created = EMPTY;
+        private int _createdCount;
+        private final int _dimension;
+        private ConcurrentDoublyLinkedList.Node _node;
+        private final long _sequence;
+        private final Object _value;
+
+    }
+
+}
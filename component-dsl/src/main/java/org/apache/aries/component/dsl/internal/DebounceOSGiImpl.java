@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.aries.component.dsl.internal;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.graph.Operator;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Holds the publications of a program in a {@link Quiescence} until it has
+ * been quiet, neither publishing nor removing elements, for the given
+ * window, and then publishes the elements still live in a
+ * {@link BatchSupport batch}. An element published and removed while the
+ * program was not quiet is never seen downstream.
+ *
+ * <p>Removals are not held. An element that goes away is retracted right
+ * away, since it may refer to a service that is being unregistered. The
+ * elements published while the program is being started are published right
+ * away too.</p>
+ */
+public class DebounceOSGiImpl<T> extends OSGiImpl<T> {
+
+    public DebounceOSGiImpl(OSGi<T> program, Duration window) {
+        super(describe(program, window), (executionContext, op) -> {
+            Quiescence<T> quiescence = new Quiescence<>(
+                window.toNanos(), executionContext.getExecutor(), true);
+
+            OSGiResult result = quiescence.start(
+                () -> program.run(
+                    executionContext, op.pipe(t -> quiescence.add(op, t))));
+
+            return new OSGiResultImpl(
+                () -> {
+                    quiescence.close();
+
+                    result.close();
+                },
+                result::update);
+        });
+    }
+
+    private static <T> Supplier<Operator> describe(
+        OSGi<T> program, Duration window) {
+
+        return () -> operator(
+            "debounce", attributes("window", window.toMillis() + "ms"),
+            program, source -> new DebounceOSGiImpl<>(source, window));
+    }
+
+}
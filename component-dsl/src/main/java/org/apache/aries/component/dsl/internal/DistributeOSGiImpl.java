@@ -19,11 +19,13 @@ package org.apache.aries.component.dsl.internal;
 
 import org.apache.aries.component.dsl.OSGi;
 import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.graph.Operator;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * @author Carlos Sierra Andrés
@@ -31,15 +33,28 @@ import java.util.function.Function;
 public class DistributeOSGiImpl<T, S> extends BaseOSGiImpl<S> {
 
     @SafeVarargs
+    @SuppressWarnings("varargs") // the functions are only read
     public DistributeOSGiImpl(OSGi<T> operation, Function<OSGi<T>, OSGi<S>>... funs) {
 
-        super((executionContext, publisher) -> {
+        super(describe(operation, funs), (executionContext, publisher) -> {
             Pad<T, S>[] pads = new Pad[funs.length];
 
             for (int i = 0; i < funs.length; i++) {
                 pads[i] = new Pad<>(executionContext, funs[i], publisher);
             }
 
+            Runnable inspection = inspect(
+                executionContext,
+                () -> {
+                    List<Long> live = new ArrayList<>(pads.length);
+
+                    for (Pad<T, S> pad : pads) {
+                        live.add(pad.getLiveCount());
+                    }
+
+                    return attributes("pads", live);
+                });
+
             OSGiResult result = operation.run(
                 executionContext,
                 publisher.pipe(t -> {
@@ -60,18 +75,23 @@ public class DistributeOSGiImpl<T, S> extends BaseOSGiImpl<S> {
 
                     return new OSGiResultImpl(
                         () -> cleanUp(terminators),
-                        () -> terminators.stream().map(
-                            os -> os.update()
-                        ).reduce(
-                            Boolean.FALSE, Boolean::logicalOr
-                        )
+                        () -> OSGiResults.updateAll(terminators)
                     );
                 }));
 
-            return new AggregateOSGiResult(result, new AggregateOSGiResult(pads));
+            return new AggregateOSGiResult(
+                inspection::run, result, new AggregateOSGiResult(pads));
         });
     }
 
+    private static <T, S> Supplier<Operator> describe(
+        OSGi<T> operation, Function<OSGi<T>, OSGi<S>>[] funs) {
+
+        return () -> operator(
+            "distribute", attributes("branches", funs.length), operation,
+            program -> new DistributeOSGiImpl<>(program, funs));
+    }
+
     private static void cleanUp(List<OSGiResult> terminators) {
         ListIterator<OSGiResult> iterator =
             terminators.listIterator(terminators.size());
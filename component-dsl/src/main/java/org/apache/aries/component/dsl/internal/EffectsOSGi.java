@@ -18,6 +18,7 @@
 package org.apache.aries.component.dsl.internal;
 
 import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.graph.Operator;
 
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -30,7 +31,7 @@ public class EffectsOSGi extends OSGiImpl<Void> {
         Runnable onAddingBefore, Runnable onAddingAfter,
         Runnable onRemovingBefore, Runnable onRemovingAfter, Runnable onUpdate) {
 
-        super((executionContext, op) -> {
+        super(() -> Operator.of("effects"), (executionContext, op) -> {
             onAddingBefore.run();
 
             try {
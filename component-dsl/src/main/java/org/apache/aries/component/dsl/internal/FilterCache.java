@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Filter;
+import org.osgi.framework.InvalidSyntaxException;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the filters created by every {@link BundleContext}, so that programs
+ * run over and over, like the ones nested in a {@code flatMap}, don't parse
+ * the same filter every time.
+ *
+ * <p>The bundle contexts are weakly referenced, and every context keeps at
+ * most {@link #MAX_FILTERS} filters, evicting the least recently used
+ * one. Both maps are concurrent, so looking a filter up doesn't take any
+ * lock, and a filter being parsed doesn't block the lookups of other
+ * threads.</p>
+ */
+public class FilterCache {
+
+    public static final int MAX_FILTERS = 256;
+
+    public static Filter getFilter(
+            BundleContext bundleContext, String filterString)
+        throws InvalidSyntaxException {
+
+        Filters filters = filters(bundleContext);
+
+        Filter filter = filters.get(filterString);
+
+        if (filter != null) {
+            _hits.increment();
+
+            return filter;
+        }
+
+        _misses.increment();
+
+        filter = bundleContext.createFilter(filterString);
+
+        filters.put(filterString, filter);
+
+        return filter;
+    }
+
+    public static long getHits() {
+        return _hits.sum();
+    }
+
+    public static long getMisses() {
+        return _misses.sum();
+    }
+
+    private static Filters filters(BundleContext bundleContext) {
+        Reference<? extends BundleContext> reference;
+
+        while ((reference = _queue.poll()) != null) {
+            _filters.remove(reference);
+        }
+
+        Filters filters = _filters.get(new ContextKey(bundleContext, null));
+
+        if (filters != null) {
+            return filters;
+        }
+
+        return _filters.computeIfAbsent(
+            new ContextKey(bundleContext, _queue), __ -> new Filters());
+    }
+
+    private static final ConcurrentMap<ContextKey, Filters> _filters =
+        new ConcurrentHashMap<>();
+    private static final LongAdder _hits = new LongAdder();
+    private static final LongAdder _misses = new LongAdder();
+    private static final ReferenceQueue<BundleContext> _queue =
+        new ReferenceQueue<>();
+
+    /**
+     * Weakly references a bundle context, comparing it by identity.
+     */
+    private static class ContextKey extends WeakReference<BundleContext> {
+
+        ContextKey(
+            BundleContext bundleContext,
+            ReferenceQueue<BundleContext> queue) {
+
+            super(bundleContext, queue);
+
+            _hashCode = System.identityHashCode(bundleContext);
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (this == object) {
+                return true;
+            }
+
+            if (!(object instanceof ContextKey)) {
+                return false;
+            }
+
+            BundleContext bundleContext = get();
+
+            return bundleContext != null &&
+                bundleContext == ((ContextKey)object).get();
+        }
+
+        @Override
+        public int hashCode() {
+            return _hashCode;
+        }
+
+        private final int _hashCode;
+
+    }
+
+    /**
+     * The filters of a bundle context. Every lookup stamps the filter with
+     * the next tick of the context, and the filter with the oldest stamp is
+     * evicted when there are too many.
+     */
+    private static class Filters {
+
+        Filter get(String filterString) {
+            Stamped stamped = _filters.get(filterString);
+
+            if (stamped == null) {
+                return null;
+            }
+
+            stamped._used = _clock.incrementAndGet();
+
+            return stamped._filter;
+        }
+
+        void put(String filterString, Filter filter) {
+            _filters.put(
+                filterString, new Stamped(filter, _clock.incrementAndGet()));
+
+            if (_filters.size() > MAX_FILTERS) {
+                evict();
+            }
+        }
+
+        private void evict() {
+            Map.Entry<String, Stamped> eldest = null;
+
+            for (Map.Entry<String, Stamped> entry : _filters.entrySet()) {
+                if (eldest == null ||
+                    entry.getValue()._used < eldest.getValue()._used) {
+
+                    eldest = entry;
+                }
+            }
+
+            if (eldest != null) {
+                _filters.remove(eldest.getKey(), eldest.getValue());
+            }
+        }
+
+        private final AtomicLong _clock = new AtomicLong();
+        private final ConcurrentMap<String, Stamped> _filters =
+            new ConcurrentHashMap<>();
+
+    }
+
+    private static class Stamped {
+
+        Stamped(Filter filter, long used) {
+            _filter = filter;
+            _used = used;
+        }
+
+        private final Filter _filter;
+        private volatile long _used;
+
+    }
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.Publisher;
+
+/**
+ * The Flight Recorder events of {@link FlightRecorderSupport}. This is the
+ * only class referring to {@code jdk.jfr}, and it is not loaded unless
+ * Flight Recorder is available.
+ */
+final class FlightRecorderEvents {
+
+    static Object beginUpdate() {
+        if (!_updateEventType.isEnabled()) {
+            return null;
+        }
+
+        UpdateEvent updateEvent = new UpdateEvent();
+
+        updateEvent.begin();
+
+        return updateEvent;
+    }
+
+    static void endUpdate(Object event) {
+        ((UpdateEvent)event).commit();
+    }
+
+    static <T> Publisher<T> instrument(
+        String operator, Publisher<? super T> op) {
+
+        return op.pipe(t -> {
+            Class<?> elementType = t == null ? null : t.getClass();
+
+            PublishEvent publishEvent = new PublishEvent();
+
+            publishEvent.begin();
+
+            OSGiResult result;
+
+            try {
+                result = op.publish(t);
+            }
+            finally {
+                publishEvent.operator = operator;
+                publishEvent.elementType = elementType;
+
+                publishEvent.commit();
+            }
+
+            return new OSGiResultImpl(
+                () -> {
+                    TerminateEvent terminateEvent = new TerminateEvent();
+
+                    terminateEvent.begin();
+
+                    try {
+                        result.close();
+                    }
+                    finally {
+                        terminateEvent.operator = operator;
+                        terminateEvent.elementType = elementType;
+
+                        terminateEvent.commit();
+                    }
+                },
+                result::update);
+        });
+    }
+
+    static boolean isPublishEnabled() {
+        return _publishEventType.isEnabled() ||
+            _terminateEventType.isEnabled();
+    }
+
+    static boolean register() {
+        return _publishEventType != null;
+    }
+
+    private static final EventType _publishEventType =
+        EventType.getEventType(PublishEvent.class);
+    private static final EventType _terminateEventType =
+        EventType.getEventType(TerminateEvent.class);
+    private static final EventType _updateEventType =
+        EventType.getEventType(UpdateEvent.class);
+
+    @Category({"OSGi", "Component DSL"})
+    @Description("An operator published an element")
+    @Label("Publish")
+    @Name("org.apache.aries.component.dsl.Publish")
+    static class PublishEvent extends Event {
+
+        @Label("Element Type")
+        Class<?> elementType;
+
+        @Label("Operator")
+        String operator;
+
+    }
+
+    @Category({"OSGi", "Component DSL"})
+    @Description("An element published by an operator was closed")
+    @Label("Terminate")
+    @Name("org.apache.aries.component.dsl.Terminate")
+    static class TerminateEvent extends Event {
+
+        @Label("Element Type")
+        Class<?> elementType;
+
+        @Label("Operator")
+        String operator;
+
+    }
+
+    @Category({"OSGi", "Component DSL"})
+    @Description(
+        "An update went through a program, including the closings and " +
+            "publications it caused")
+    @Label("Update")
+    @Name("org.apache.aries.component.dsl.Update")
+    static class UpdateEvent extends Event {
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.Publisher;
+import org.apache.aries.component.dsl.graph.ProgramGraph;
+
+/**
+ * Emits Java Flight Recorder events for the publications, closings and
+ * updates of the programs, so that they show up in the recordings of the
+ * runtime and can be analyzed with the usual JFR tooling.
+ *
+ * <p>Flight Recorder is optional. On runtimes without it, like Java 8 before
+ * update 262, or in frameworks not exposing {@code jdk.jfr} to this bundle,
+ * every method here does nothing.</p>
+ *
+ * <p>An operator emits publication and closing events when one of them is
+ * enabled in a recording at the time the operator starts running, so
+ * operators running before a recording starts only emit update events.
+ * Operators run over and over, like the ones nested in a {@code flatMap},
+ * are picked up by the recordings as they go.</p>
+ */
+public class FlightRecorderSupport {
+
+    /**
+     * @return the event of an update about to start, to be given to
+     *         {@link #endUpdate(Object)}, or {@code null} if updates are not
+     *         being recorded
+     */
+    public static Object beginUpdate() {
+        if (!_available) {
+            return null;
+        }
+
+        return FlightRecorderEvents.beginUpdate();
+    }
+
+    public static void endUpdate(Object event) {
+        if (event != null) {
+            FlightRecorderEvents.endUpdate(event);
+        }
+    }
+
+    /**
+     * @return a publisher emitting the events of the elements the program
+     *         publishes to {@code op}, or {@code op} itself if they are not
+     *         being recorded
+     */
+    public static <T> Publisher<? super T> instrument(
+        OSGi<?> program, Publisher<? super T> op) {
+
+        if (!_available || !FlightRecorderEvents.isPublishEnabled()) {
+            return op;
+        }
+
+        return FlightRecorderEvents.instrument(
+            ProgramGraph.operatorOf(program).getName(), op);
+    }
+
+    public static boolean isAvailable() {
+        return _available;
+    }
+
+    private static boolean available() {
+        try {
+            return FlightRecorderEvents.register();
+        }
+        catch (Throwable t) {
+            return false;
+        }
+    }
+
+    private static final boolean _available = available();
+
+}
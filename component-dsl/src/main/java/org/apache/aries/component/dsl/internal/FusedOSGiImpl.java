@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.graph.Operator;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * A run of consecutive {@code map} and {@code filter} stages applied to a
+ * program. The stages are kept in an array as the program is assembled, so
+ * that however many of them are chained the elements of the source go
+ * through all of them in a single publisher, instead of one publisher
+ * nested in the next per stage.
+ *
+ * @param <S> the type of the elements of the source
+ * @param <T> the type of the elements that come out of the last stage
+ */
+public class FusedOSGiImpl<S, T> extends BaseOSGiImpl<T> {
+
+    @SuppressWarnings("unchecked")
+    public FusedOSGiImpl(
+        OSGi<S> source, String[] names, Function<Object, Object>[] stages) {
+
+        super(
+            describe(source, names, stages),
+            (executionContext, op) -> source.run(
+                executionContext,
+                op.pipe(s -> {
+                    Object value = s;
+
+                    for (Function<Object, Object> stage : stages) {
+                        value = stage.apply(value);
+
+                        if (value == FILTERED) {
+                            return NOOP;
+                        }
+                    }
+
+                    return op.publish((T)value);
+                })));
+
+        _source = source;
+        _names = names;
+        _stages = stages;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> Function<Object, Object> filterStage(
+        Predicate<T> predicate) {
+
+        return t -> predicate.test((T)t) ? t : FILTERED;
+    }
+
+    @SuppressWarnings("unchecked")
+    static Function<Object, Object> mapStage(Function<?, ?> function) {
+        return (Function<Object, Object>)function;
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static Function<Object, Object>[] stages(Function<Object, Object> stage) {
+        return new Function[] {stage};
+    }
+
+    @Override
+    public OSGi<T> filter(Predicate<T> predicate) {
+        return new FusedOSGiImpl<>(
+            _source, append(_names, "filter"),
+            append(_stages, filterStage(predicate)));
+    }
+
+    @Override
+    public <R> OSGi<R> map(Function<? super T, ? extends R> function) {
+        return new FusedOSGiImpl<>(
+            _source, append(_names, "map"), append(_stages, mapStage(function)));
+    }
+
+    private static <E> E[] append(E[] array, E element) {
+        E[] copy = Arrays.copyOf(array, array.length + 1);
+
+        copy[array.length] = element;
+
+        return copy;
+    }
+
+    private static <S> Supplier<Operator> describe(
+        OSGi<S> source, String[] names, Function<Object, Object>[] stages) {
+
+        return () -> operator(
+            "fused",
+            attributes("stages", Collections.unmodifiableList(
+                Arrays.asList(names.clone()))),
+            source, program -> new FusedOSGiImpl<>(program, names, stages));
+    }
+
+    private static final Object FILTERED = new Object();
+
+    private final String[] _names;
+    private final OSGi<S> _source;
+    private final Function<Object, Object>[] _stages;
+
+}
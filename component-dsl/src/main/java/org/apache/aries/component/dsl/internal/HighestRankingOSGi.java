@@ -19,11 +19,13 @@ package org.apache.aries.component.dsl.internal;
 
 import org.apache.aries.component.dsl.OSGi;
 import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.graph.Operator;
 
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.PriorityQueue;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * @author Carlos Sierra Andrés
@@ -34,80 +36,108 @@ public class HighestRankingOSGi<T> extends OSGiImpl<T> {
         OSGi<T> previous, Comparator<? super T> comparator,
         Function<OSGi<T>, OSGi<T>> notHighest) {
 
-        super((executionContext, publisher) -> {
-            Comparator<Tuple<T>> comparing = Comparator.comparing(
-                Tuple::getT, comparator);
-            PriorityQueue<Tuple<T>> set = new PriorityQueue<>(
-                comparing.reversed());
-            AtomicReference<Tuple<T>> sent = new AtomicReference<>();
+        super(
+            describe(previous, comparator, notHighest),
+            (executionContext, publisher) -> {
+                Comparator<Tuple<T>> comparing = Comparator.comparing(
+                    Tuple::getT, comparator);
+                IndexedHeap<Tuple<T>> set = new IndexedHeap<>(
+                    comparing.reversed());
+                AtomicReference<Tuple<T>> sent = new AtomicReference<>();
+
+                Runnable inspection = inspect(
+                    executionContext,
+                    () -> {
+                        synchronized (set) {
+                            Tuple<T> highest = set.peek();
+
+                            return attributes(
+                                "ranked", set.size(),
+                                "highest",
+                                highest == null ?
+                                    null : String.valueOf(highest.t));
+                        }
+                    });
 
-            Pad<T, T> notHighestPad = new Pad<>(
-                executionContext, notHighest, publisher);
+                Pad<T, T> notHighestPad = new Pad<>(
+                    executionContext, notHighest, publisher);
 
-            OSGiResult result = previous.run(
-                executionContext,
-                publisher.pipe(t -> {
-                    Tuple<T> tuple = new Tuple<>(t);
+                OSGiResult result = previous.run(
+                    executionContext,
+                    publisher.pipe(t -> {
+                        Tuple<T> tuple = new Tuple<>(t);
 
-                    synchronized (set) {
-                        set.add(tuple);
+                        synchronized (set) {
+                            set.add(tuple);
 
-                        if (set.peek() == tuple) {
-                            Tuple<T> old = sent.get();
+                            if (set.peek() == tuple) {
+                                Tuple<T> old = sent.get();
 
-                            if (old != null) {
-                                old.osgiResult.run();
-                            }
+                                if (old != null) {
+                                    old.osgiResult.run();
+                                }
 
-                            tuple.osgiResult = publisher.apply(t);
+                                tuple.osgiResult = publisher.apply(t);
 
-                            if (old != null) {
-                                old.osgiResult = notHighestPad.publish(old.t);
-                            }
+                                if (old != null) {
+                                    old.osgiResult = notHighestPad.publish(
+                                        old.t);
+                                }
 
-                            sent.set(tuple);
-                        } else {
-                            tuple.osgiResult = notHighestPad.publish(t);
+                                sent.set(tuple);
+                            } else {
+                                tuple.osgiResult = notHighestPad.publish(t);
+                            }
                         }
-                    }
 
-                    return new OSGiResultImpl(
-                        () -> {
-                            synchronized (set) {
-                                Tuple<T> old = set.peek();
+                        return new OSGiResultImpl(
+                            () -> {
+                                synchronized (set) {
+                                    Tuple<T> old = set.peek();
 
-                                set.remove(tuple);
+                                    set.remove(tuple);
 
-                                Tuple<T> current = set.peek();
+                                    Tuple<T> current = set.peek();
 
-                                tuple.osgiResult.run();
+                                    tuple.osgiResult.run();
 
-                                if (current != old && current != null) {
-                                    current.osgiResult.run();
-                                    current.osgiResult = publisher.apply(
-                                        current.t);
-                                    sent.set(current);
+                                    if (current != old && current != null) {
+                                        current.osgiResult.run();
+                                        current.osgiResult = publisher.apply(
+                                            current.t);
+                                        sent.set(current);
+                                    }
+                                    if (current == null) {
+                                        sent.set(null);
+                                    }
                                 }
-                                if (current == null) {
-                                    sent.set(null);
+                            },
+                            () -> {
+                                synchronized (set) {
+                                    Tuple<T> current = set.peek();
+
+                                    return current.osgiResult.update();
                                 }
                             }
-                        },
-                        () -> {
-                            synchronized (set) {
-                                Tuple<T> current = set.peek();
+                        );
+                    }));
 
-                                return current.osgiResult.update();
-                            }
-                        }
-                    );
-                }));
+                return new AggregateOSGiResult(
+                    inspection::run, result, notHighestPad);
+            });
+    }
+
+    private static <T> Supplier<Operator> describe(
+        OSGi<T> previous, Comparator<? super T> comparator,
+        Function<OSGi<T>, OSGi<T>> notHighest) {
 
-            return new AggregateOSGiResult(result, notHighestPad);
-        });
+        return () -> operator(
+            "highest", Collections.emptyMap(), previous,
+            program -> new HighestRankingOSGi<>(
+                program, comparator, notHighest));
     }
 
-    private static class Tuple<T> {
+    private static class Tuple<T> extends IndexedHeap.Node {
 
         Tuple(T t) {
             this.t = t;
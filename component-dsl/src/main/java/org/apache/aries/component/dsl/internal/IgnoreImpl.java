@@ -19,6 +19,8 @@ package org.apache.aries.component.dsl.internal;
 
 import org.apache.aries.component.dsl.OSGi;
 
+import java.util.Collections;
+
 /**
  * @author Carlos Sierra Andrés
  */
@@ -26,7 +28,10 @@ public class IgnoreImpl extends OSGiImpl<Void> {
 
     public IgnoreImpl(OSGi<?> program) {
 
-        super((executionContext, op) -> program.run(executionContext, op.pipe(t -> NOOP)));
+        super(
+            () -> operator(
+                "ignore", Collections.emptyMap(), program, IgnoreImpl::new),
+            (executionContext, op) -> program.run(executionContext, op.pipe(t -> NOOP)));
     }
 
 }
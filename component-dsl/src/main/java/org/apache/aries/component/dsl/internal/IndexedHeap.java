@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * A binary heap whose elements remember their position in it, so that
+ * removing an arbitrary element costs O(log n) instead of the linear scan
+ * {@link java.util.PriorityQueue#remove(Object)} does. Like
+ * {@link java.util.PriorityQueue} the head is the least element according to
+ * the comparator.
+ *
+ * <p>An element can only be in one heap at a time. This class is not thread
+ * safe.</p>
+ */
+public class IndexedHeap<N extends IndexedHeap.Node> {
+
+    public IndexedHeap(Comparator<? super N> comparator) {
+        _comparator = comparator;
+    }
+
+    public void add(N node) {
+        if (node._index != -1) {
+            throw new IllegalArgumentException("Node already in a heap");
+        }
+
+        if (_size == _nodes.length) {
+            _nodes = Arrays.copyOf(_nodes, _size + (_size >> 1) + 1);
+        }
+
+        _nodes[_size] = node;
+        node._index = _size;
+
+        siftUp(_size++);
+    }
+
+    public boolean isEmpty() {
+        return _size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public N peek() {
+        return (N)_nodes[0];
+    }
+
+    /**
+     * @return {@code false} if the node was not in this heap
+     */
+    public boolean remove(N node) {
+        int index = node._index;
+
+        if (index < 0 || index >= _size || _nodes[index] != node) {
+            return false;
+        }
+
+        Node last = _nodes[--_size];
+
+        _nodes[_size] = null;
+        node._index = -1;
+
+        if (index != _size) {
+            _nodes[index] = last;
+            last._index = index;
+
+            siftDown(index);
+
+            if (_nodes[index] == last) {
+                siftUp(index);
+            }
+        }
+
+        return true;
+    }
+
+    public int size() {
+        return _size;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(Node a, Node b) {
+        return _comparator.compare((N)a, (N)b);
+    }
+
+    private void move(Node node, int index) {
+        _nodes[index] = node;
+        node._index = index;
+    }
+
+    private void siftDown(int index) {
+        Node node = _nodes[index];
+        int half = _size >>> 1;
+
+        while (index < half) {
+            int child = (index << 1) + 1;
+            int right = child + 1;
+
+            if (right < _size && compare(_nodes[right], _nodes[child]) < 0) {
+                child = right;
+            }
+
+            if (compare(node, _nodes[child]) <= 0) {
+                break;
+            }
+
+            move(_nodes[child], index);
+
+            index = child;
+        }
+
+        move(node, index);
+    }
+
+    private void siftUp(int index) {
+        Node node = _nodes[index];
+
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+
+            if (compare(node, _nodes[parent]) >= 0) {
+                break;
+            }
+
+            move(_nodes[parent], index);
+
+            index = parent;
+        }
+
+        move(node, index);
+    }
+
+    private final Comparator<? super N> _comparator;
+    private Node[] _nodes = new Node[11];
+    private int _size;
+
+    /**
+     * Base class for the elements of an {@link IndexedHeap}, holding their
+     * current position in it.
+     */
+    public static class Node {
+
+        int _index = -1;
+
+    }
+
+}
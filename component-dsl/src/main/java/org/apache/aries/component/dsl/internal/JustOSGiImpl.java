@@ -20,6 +20,7 @@ package org.apache.aries.component.dsl.internal;
 
 
 import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.graph.Operator;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -37,7 +38,7 @@ public class JustOSGiImpl<T> extends OSGiImpl<T> {
 	}
 
 	public JustOSGiImpl(Supplier<Collection<T>> supplier) {
-		super((executionContext, op) -> {
+		super(() -> Operator.of("just"), (executionContext, op) -> {
 
 			Collection<T> collection = supplier.get();
 			ArrayList<OSGiResult> references = new ArrayList<>(collection.size());
@@ -55,7 +56,7 @@ public class JustOSGiImpl<T> extends OSGiImpl<T> {
 
 			return new OSGiResultImpl(
 				() -> cleanUp(references),
-				() -> references.stream().map(res -> res.update()).reduce(Boolean.FALSE, Boolean::logicalOr)
+				() -> OSGiResults.updateAll(references)
 			);
 		});
 	}
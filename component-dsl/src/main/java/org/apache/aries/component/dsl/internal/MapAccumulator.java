@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import org.apache.aries.component.dsl.OSGi;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * The map {@link org.apache.aries.component.dsl.Utils#accumulateInMap} and
+ * its variants keep the values of the keys in, and take the maps they
+ * publish from.
+ */
+public interface MapAccumulator<K, V> {
+
+    /**
+     * Maps every key to the value of the highest element of the program for
+     * it, publishing a new map from {@code mapAccumulator} whenever a key
+     * changes.
+     */
+    static <K, V, T extends Comparable<T>> OSGi<Map<K, V>> accumulate(
+        OSGi<T> program, Function<T, OSGi<K>> keyFun,
+        Function<T, OSGi<V>> valueFun,
+        Supplier<MapAccumulator<K, V>> mapAccumulator) {
+
+        return OSGi.just(mapAccumulator).flatMap(map ->
+            OSGi.all(
+                OSGi.just(map::get),
+                program.splitBy(
+                    keyFun,
+                    (k, p) ->
+                        new HighestRankingOSGi<>(
+                            p, Comparator.naturalOrder(), q -> OSGi.nothing()).
+                            flatMap(t -> valueFun.apply(t)).
+                            flatMap(v -> {
+                                Object owner = new Object();
+
+                                return OSGi.just(v).effects(
+                                    __ -> map.put(k, v, owner),
+                                    __ -> {},
+                                    __ -> map.remove(k, owner),
+                                    __ -> {}
+                                );
+                            })
+                ).then(OSGi.just(map::get))
+            ).transform(
+                op -> OnlyLastPublisher.latest(op, map::get)
+            )
+        );
+    }
+
+    /**
+     * @return the map to publish, with the mappings now
+     */
+    Map<K, V> get();
+
+    /**
+     * Maps the key to the value on behalf of the owner, replacing the
+     * mapping of any other owner.
+     */
+    void put(K key, V value, Object owner);
+
+    /**
+     * Removes the key only if it is still mapped on behalf of the owner, so
+     * a value going away does not remove the one that replaced it, even if
+     * both are the same instance. The owners are compared by identity.
+     */
+    void remove(K key, Object owner);
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A map whose snapshots are copies taken under its monitor.
+ */
+public class MapCopies<K, V> implements MapAccumulator<K, V> {
+
+    @Override
+    public synchronized Map<K, V> get() {
+        return new HashMap<>(_map);
+    }
+
+    @Override
+    public synchronized void put(K key, V value, Object owner) {
+        _map.put(key, value);
+
+        _owners.put(key, owner);
+    }
+
+    @Override
+    public synchronized void remove(K key, Object owner) {
+        if (_owners.get(key) == owner) {
+            _map.remove(key);
+
+            _owners.remove(key);
+        }
+    }
+
+    private final Map<K, V> _map = new HashMap<>();
+    private final Map<K, Object> _owners = new HashMap<>();
+
+}
@@ -0,0 +1,423 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.Publisher;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Fans the elements of a single source out to several subscriptions, so
+ * that the source can be run once for all of them.
+ *
+ * <p>A new subscription is first given the elements that are live at that
+ * moment, and from then on the elements added and removed are fanned out to
+ * every subscription, in the order they subscribed. Every publication to a
+ * subscription is given its own view of the element.</p>
+ *
+ * <p>Exceptions thrown while retracting an element from a subscription are
+ * reported to the uncaught exception handler of the thread, so that they
+ * don't keep it from being retracted from the others.</p>
+ *
+ * @param <S> the type of the elements of the source
+ * @param <T> the type of the elements given to the subscriptions
+ */
+class Multicast<S, T> {
+
+    /**
+     * @param view builds what a subscription is given for an element
+     * @param onError handles an exception thrown by a subscription given an
+     *        element, either reporting it or rethrowing it to fail the
+     *        addition of the element
+     */
+    Multicast(
+        Function<? super S, ? extends T> view,
+        Consumer<RuntimeException> onError) {
+
+        _view = view;
+        _onError = onError;
+    }
+
+    /**
+     * Reports an exception thrown downstream to the uncaught exception
+     * handler of the thread.
+     */
+    static void report(Exception e) {
+        Thread thread = Thread.currentThread();
+
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+    }
+
+    /**
+     * Adds an element and publishes it to every subscription. If the
+     * element fails to be added what was published is retracted.
+     */
+    Element<S, T> add(S s) {
+        Element<S, T> element = new Element<>(s, _view);
+
+        element._node = _elements.addLast(element);
+
+        try {
+            for (Subscription<T> subscription : _subscriptions) {
+                try {
+                    element.publish(subscription);
+                }
+                catch (RuntimeException re) {
+                    _onError.accept(re);
+                }
+            }
+        }
+        catch (RuntimeException re) {
+            remove(element);
+
+            throw re;
+        }
+
+        return element;
+    }
+
+    /**
+     * Lets what every subscription was given for the element know that it
+     * has been modified in place. The ones asking for it are closed and
+     * given a new view of the element.
+     */
+    void modified(Element<S, T> element) {
+        for (Entry<S, T> entry : element.entries()) {
+            try {
+                entry.modified();
+            }
+            catch (RuntimeException re) {
+                _onError.accept(re);
+            }
+        }
+    }
+
+    void remove(Element<S, T> element) {
+        element._node.remove();
+
+        element.remove();
+    }
+
+    /**
+     * Subscribes the publisher, giving it the live elements. If one of them
+     * fails to be published the subscription is closed.
+     */
+    Subscription<T> subscribe(Publisher<? super T> publisher) {
+        Subscription<T> subscription = new Subscription<>(publisher);
+
+        subscription._node = _subscriptions.addLast(subscription);
+
+        try {
+            for (Element<S, T> element : _elements) {
+                element.publish(subscription);
+            }
+        }
+        catch (RuntimeException re) {
+            unsubscribe(subscription);
+
+            throw re;
+        }
+
+        return subscription;
+    }
+
+    /**
+     * Closes the subscription, retracting what it was given.
+     */
+    void unsubscribe(Subscription<T> subscription) {
+        subscription._closed = true;
+
+        subscription._node.remove();
+
+        for (Element<S, T> element : _elements) {
+            try {
+                element.close(subscription);
+            }
+            catch (Exception e) {
+                report(e);
+            }
+        }
+    }
+
+    /**
+     * @return whether any of the results given for the element asks to be
+     *         published again
+     */
+    boolean update(Element<S, T> element) {
+        boolean updated = false;
+
+        for (Entry<S, T> entry : element.entries()) {
+            updated |= entry.update();
+        }
+
+        return updated;
+    }
+
+    /**
+     * @return whether any of the results given to the subscription asks to
+     *         be published again
+     */
+    boolean update(Subscription<T> subscription) {
+        boolean updated = false;
+
+        for (Element<S, T> element : _elements) {
+            Entry<S, T> entry = element.entry(subscription);
+
+            if (entry != null) {
+                updated |= entry.update();
+            }
+        }
+
+        return updated;
+    }
+
+    private final ConcurrentDoublyLinkedList<Element<S, T>> _elements =
+        new ConcurrentDoublyLinkedList<>();
+    private final Consumer<RuntimeException> _onError;
+    private final ConcurrentDoublyLinkedList<Subscription<T>> _subscriptions =
+        new ConcurrentDoublyLinkedList<>();
+    private final Function<? super S, ? extends T> _view;
+
+    /**
+     * An element of the source together with what every subscription was
+     * given for it.
+     */
+    static class Element<S, T> {
+
+        Element(S s, Function<? super S, ? extends T> view) {
+            _s = s;
+            _view = view;
+        }
+
+        void close(Subscription<T> subscription) {
+            Entry<S, T> entry;
+
+            synchronized (this) {
+                entry = _entries.remove(subscription);
+            }
+
+            if (entry != null) {
+                entry.close();
+            }
+        }
+
+        synchronized List<Entry<S, T>> entries() {
+            return new ArrayList<>(_entries.values());
+        }
+
+        synchronized Entry<S, T> entry(Subscription<T> subscription) {
+            return _entries.get(subscription);
+        }
+
+        void publish(Subscription<T> subscription) {
+            Entry<S, T> entry;
+
+            synchronized (this) {
+                if (_removed || subscription._closed ||
+                    _entries.containsKey(subscription)) {
+
+                    return;
+                }
+
+                entry = new Entry<>(this, subscription._publisher);
+
+                _entries.put(subscription, entry);
+            }
+
+            entry.publish();
+        }
+
+        void remove() {
+            List<Entry<S, T>> entries;
+
+            synchronized (this) {
+                _removed = true;
+
+                entries = new ArrayList<>(_entries.values());
+
+                _entries.clear();
+            }
+
+            for (Entry<S, T> entry : entries) {
+                try {
+                    entry.close();
+                }
+                catch (Exception e) {
+                    report(e);
+                }
+            }
+        }
+
+        T view() {
+            return _view.apply(_s);
+        }
+
+        private final Map<Subscription<T>, Entry<S, T>> _entries =
+            new LinkedHashMap<>();
+        private volatile ConcurrentDoublyLinkedList.Node _node;
+        private boolean _removed;
+        private final S _s;
+        private final Function<? super S, ? extends T> _view;
+
+    }
+
+    /**
+     * What a subscription was given for an element. The state of an entry is
+     * changed under its monitor, but the publisher and the results it
+     * returns are called after releasing it, so a downstream calling back
+     * into the source from another thread can't deadlock with it. An entry
+     * closed while it is being published closes the result of the
+     * publication as soon as it is returned.
+     */
+    private static class Entry<S, T> {
+
+        Entry(Element<S, T> element, Publisher<? super T> publisher) {
+            _element = element;
+            _publisher = publisher;
+        }
+
+        void close() {
+            OSGiResult result;
+
+            synchronized (this) {
+                if (_closed) {
+                    return;
+                }
+
+                _closed = true;
+
+                result = _result;
+
+                _result = null;
+            }
+
+            if (result != null) {
+                result.close();
+            }
+        }
+
+        void modified() {
+            OSGiResult result;
+
+            synchronized (this) {
+                if (_closed || _result == PUBLISHING) {
+                    return;
+                }
+
+                result = _result;
+            }
+
+            if (result == null) {
+                publish();
+
+                return;
+            }
+
+            if (UpdateSupport.sendUpdate(result)) {
+                UpdateSupport.runUpdate(() -> {
+                    synchronized (this) {
+                        if (_result != result) {
+                            return;
+                        }
+
+                        _result = null;
+                    }
+
+                    result.close();
+
+                    publish();
+                });
+            }
+        }
+
+        void publish() {
+            synchronized (this) {
+                if (_closed || _result != null) {
+                    return;
+                }
+
+                _result = PUBLISHING;
+            }
+
+            OSGiResult result;
+
+            try {
+                result = _publisher.apply(_element.view());
+            }
+            catch (RuntimeException re) {
+                synchronized (this) {
+                    if (_result == PUBLISHING) {
+                        _result = null;
+                    }
+                }
+
+                throw re;
+            }
+
+            synchronized (this) {
+                if (!_closed) {
+                    _result = result;
+
+                    return;
+                }
+            }
+
+            result.close();
+        }
+
+        boolean update() {
+            OSGiResult result = _result;
+
+            if (result == null) {
+                return false;
+            }
+
+            return result.update();
+        }
+
+        /**
+         * The result of an entry whose publication has not returned yet.
+         */
+        private static final OSGiResult PUBLISHING = () -> {};
+
+        private boolean _closed;
+        private final Element<S, T> _element;
+        private final Publisher<? super T> _publisher;
+        private volatile OSGiResult _result;
+
+    }
+
+    static class Subscription<T> {
+
+        Subscription(Publisher<? super T> publisher) {
+            _publisher = publisher;
+        }
+
+        private volatile boolean _closed;
+        private volatile ConcurrentDoublyLinkedList.Node _node;
+        private final Publisher<? super T> _publisher;
+
+    }
+
+}
@@ -18,6 +18,7 @@
 package org.apache.aries.component.dsl.internal;
 
 import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.graph.Operator;
 
 /**
  * @author Carlos Sierra Andrés
@@ -25,6 +26,6 @@ import org.apache.aries.component.dsl.OSGi;
 public class NothingOSGiImpl<S> extends OSGiImpl<S> {
 
 	public NothingOSGiImpl() {
-		super((executionContext, __) -> new OSGiResultImpl(OSGi.NOOP,  () -> false));
+		super(() -> Operator.of("nothing"), (executionContext, __) -> new OSGiResultImpl(OSGi.NOOP,  () -> false));
 	}
 }
@@ -18,6 +18,9 @@
 package org.apache.aries.component.dsl.internal;
 
 import org.apache.aries.component.dsl.*;
+import org.apache.aries.component.dsl.graph.Operator;
+
+import java.util.function.Supplier;
 
 /**
  * @author Carlos Sierra Andrés
@@ -25,7 +28,13 @@ import org.apache.aries.component.dsl.*;
 public class OSGiImpl<T> extends BaseOSGiImpl<T> {
 
 	protected OSGiImpl(OSGiRunnable<T> operation) {
-		super(new ErrorHandlerOSGiRunnable<>(operation));
+		this(null, operation);
+	}
+
+	protected OSGiImpl(
+		Supplier<Operator> describer, OSGiRunnable<T> operation) {
+
+		super(describer, new ErrorHandlerOSGiRunnable<>(operation));
 	}
 
 	static <T extends Throwable> void rethrow(Throwable t) throws T {
@@ -33,7 +42,7 @@ public class OSGiImpl<T> extends BaseOSGiImpl<T> {
 	}
 
 	public static <T> OSGi<T> create(OSGiRunnable<T> runnable) {
-		return new OSGiImpl<>(runnable);
+		return new OSGiImpl<>(() -> Operator.of("runnable"), runnable);
 	}
 
 	protected static class ErrorHandlerOSGiRunnable<T>
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import org.apache.aries.component.dsl.OSGiResult;
+
+import java.util.List;
+
+/**
+ * Propagates an update to every result of a group, the way the results
+ * built out of several others do. Every result is updated, even after one of
+ * them has asked to be republished, and the answer is whether any of them
+ * did. None of the traversals allocate, except the one over a plain
+ * {@link Iterable}, which needs its iterator.
+ */
+public class OSGiResults {
+
+    /**
+     * Updates the results in the array, skipping the slots that have not
+     * been filled.
+     */
+    public static boolean updateAll(OSGiResult[] results) {
+        boolean updated = false;
+
+        for (int i = 0; i < results.length; i++) {
+            OSGiResult result = results[i];
+
+            if (result != null) {
+                updated |= result.update();
+            }
+        }
+
+        return updated;
+    }
+
+    /**
+     * Updates the results in a random access list, like an
+     * {@link java.util.ArrayList}, by index.
+     */
+    public static boolean updateAll(List<? extends OSGiResult> results) {
+        boolean updated = false;
+
+        for (int i = 0; i < results.size(); i++) {
+            updated |= results.get(i).update();
+        }
+
+        return updated;
+    }
+
+    public static boolean updateAll(
+        ConcurrentDoublyLinkedList<? extends OSGiResult> results) {
+
+        return results.testAll(OSGiResult::update);
+    }
+
+    public static boolean updateAll(Iterable<? extends OSGiResult> results) {
+        boolean updated = false;
+
+        for (OSGiResult result : results) {
+            updated |= result.update();
+        }
+
+        return updated;
+    }
+
+}
@@ -36,21 +36,42 @@ public class OnlyLastPublisher<T> implements Publisher<T> {
     public OnlyLastPublisher(
         Publisher<? super T> op, Supplier<T> injectOnLeave) {
 
+        this(op, injectOnLeave, false);
+    }
+
+    /**
+     * Returns a publisher that, whenever something is published to it or
+     * leaves, publishes the value the supplier returns at that moment instead
+     * of the one it was given. The supplier is read while holding the monitor
+     * of the publisher, so when two publications race the one applied last
+     * can't be a value older than the one applied before it.
+     */
+    public static <T> OnlyLastPublisher<T> latest(
+        Publisher<? super T> op, Supplier<T> latest) {
+
+        return new OnlyLastPublisher<>(op, latest, true);
+    }
+
+    private OnlyLastPublisher(
+        Publisher<? super T> op, Supplier<T> injectOnLeave, boolean latest) {
+
         _op = op;
         _injectOnLeave = injectOnLeave;
+        _latest = latest;
         _terminator = OSGi.NOOP;
     }
 
     private final Publisher<? super T> _op;
     private AtomicLong _counter = new AtomicLong();
     private Supplier<T> _injectOnLeave;
+    private final boolean _latest;
+    private Supplier<T> _pending;
+    private boolean _pendingSet;
     private OSGiResult _terminator;
 
     @Override
     public synchronized OSGiResult publish(T t) {
-        _terminator.run();
-
-        _terminator = _op.publish(t);
+        republish(_latest ? _injectOnLeave : () -> t);
 
         if (_injectOnLeave == null) {
             return OSGi.NOOP;
@@ -61,10 +82,11 @@ public class OnlyLastPublisher<T> implements Publisher<T> {
             return new OSGiResultImpl(
                 () -> {
                     synchronized (this) {
-                        _terminator.run();
-
                         if (_counter.decrementAndGet() > 0) {
-                            _terminator = _op.publish(_injectOnLeave.get());
+                            republish(_injectOnLeave);
+                        }
+                        else {
+                            republish(null);
                         }
                     }
                 },
@@ -73,6 +95,50 @@ public class OnlyLastPublisher<T> implements Publisher<T> {
         }
     }
 
+    /**
+     * Replaces the last value with the one given by the supplier, or with
+     * nothing if there is no supplier. Inside a batch only the last
+     * replacement is applied, once, when the batch ends.
+     */
+    private void republish(Supplier<T> supplier) {
+        if (BatchSupport.isBatch()) {
+            _pending = supplier;
+            _pendingSet = true;
+
+            BatchSupport.defer(this, this::flush);
+
+            return;
+        }
+
+        _pending = null;
+        _pendingSet = false;
+
+        apply(supplier);
+    }
+
+    private synchronized void flush() {
+        if (!_pendingSet) {
+            return;
+        }
+
+        Supplier<T> supplier = _pending;
+
+        _pending = null;
+        _pendingSet = false;
+
+        apply(supplier);
+    }
+
+    private void apply(Supplier<T> supplier) {
+        _terminator.run();
+
+        _terminator = OSGi.NOOP;
+
+        if (supplier != null) {
+            _terminator = _op.publish(supplier.get());
+        }
+    }
+
     @Override
     public <E extends Exception> OSGiResult error(T t, Exception e) throws E {
         return _op.error(t, e);
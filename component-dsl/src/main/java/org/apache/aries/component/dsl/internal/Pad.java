@@ -22,6 +22,7 @@ import org.apache.aries.component.dsl.OSGiResult;
 import org.apache.aries.component.dsl.OSGiRunnable.ExecutionContext;
 import org.apache.aries.component.dsl.Publisher;
 
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 
 import static org.apache.aries.component.dsl.OSGi.NOOP;
@@ -47,6 +48,13 @@ public class Pad<T, S> implements Publisher<T>, OSGiResult {
                 probe.getPublisher()::publish :
                 __ -> NOOP
         );
+
+        if (executionContext.getInstrumentation() != null) {
+            _live = new LongAdder();
+        }
+        else {
+            _live = null;
+        }
     }
 
     @Override
@@ -59,9 +67,36 @@ public class Pad<T, S> implements Publisher<T>, OSGiResult {
         return _result.update();
     }
 
+    /**
+     * @return the number of elements published to this pad and not closed
+     *         yet, or -1 if the program is not instrumented and they are not
+     *         counted
+     */
+    public long getLiveCount() {
+        if (_live == null) {
+            return -1;
+        }
+
+        return _live.sum();
+    }
+
     @Override
     public OSGiResult publish(T t) {
-        return _publisher.publish(t);
+        if (_live == null) {
+            return _publisher.publish(t);
+        }
+
+        OSGiResult result = _publisher.publish(t);
+
+        _live.increment();
+
+        return new OSGiResultImpl(
+            () -> {
+                _live.decrement();
+
+                result.close();
+            },
+            result::update);
     }
 
     @Override
@@ -69,6 +104,7 @@ public class Pad<T, S> implements Publisher<T>, OSGiResult {
         return _publisher.error(t, e);
     }
 
+    private final LongAdder _live;
     private final OSGiResult _result;
     private final Publisher<? super T> _publisher;
 }
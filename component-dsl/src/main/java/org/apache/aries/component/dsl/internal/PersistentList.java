@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.aries.component.dsl.internal;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable list whose elements are identified by increasing keys. Adding
+ * an element at the end or removing one by its key returns a new list in
+ * logarithmic time, sharing all but a logarithmic number of nodes with the
+ * list it comes from, which does not change.
+ *
+ * <p>The elements are kept in a treap ordered by key. The priority of a node
+ * is a hash of its key, so the tree is balanced with high probability even
+ * though the keys are added in order.</p>
+ */
+public final class PersistentList<T> extends AbstractList<T> {
+
+    @SuppressWarnings("unchecked")
+    public static <T> PersistentList<T> empty() {
+        return (PersistentList<T>)_empty;
+    }
+
+    /**
+     * @param key a key greater than the keys of the elements in the list
+     */
+    public PersistentList<T> append(long key, T t) {
+        return new PersistentList<>(
+            merge(_root, new Node<>(key, t, null, null)));
+    }
+
+    @Override
+    public T get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException(
+                "Index: " + index + ", Size: " + size());
+        }
+
+        Node<T> node = _root;
+
+        while (true) {
+            int left = size(node._left);
+
+            if (index < left) {
+                node = node._left;
+            }
+            else if (index > left) {
+                index -= left + 1;
+
+                node = node._right;
+            }
+            else {
+                return node._value;
+            }
+        }
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+
+            {
+                push(_root);
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !_stack.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                if (_stack.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+
+                Node<T> node = _stack.pop();
+
+                push(node._right);
+
+                return node._value;
+            }
+
+            private void push(Node<T> node) {
+                while (node != null) {
+                    _stack.push(node);
+
+                    node = node._left;
+                }
+            }
+
+            private final Deque<Node<T>> _stack = new ArrayDeque<>();
+
+        };
+    }
+
+    /**
+     * @return the list without the element with the key, or this list if it
+     *         has no element with the key
+     */
+    public PersistentList<T> removeKey(long key) {
+        Node<T> root = remove(_root, key);
+
+        if (root == _root) {
+            return this;
+        }
+
+        return new PersistentList<>(root);
+    }
+
+    @Override
+    public int size() {
+        return size(_root);
+    }
+
+    private static <T> Node<T> merge(Node<T> left, Node<T> right) {
+        if (left == null) {
+            return right;
+        }
+
+        if (right == null) {
+            return left;
+        }
+
+        if (left._priority > right._priority) {
+            return new Node<>(left, left._left, merge(left._right, right));
+        }
+
+        return new Node<>(right, merge(left, right._left), right._right);
+    }
+
+    private static int priority(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+
+        return (int)key;
+    }
+
+    private static <T> Node<T> remove(Node<T> node, long key) {
+        if (node == null) {
+            return null;
+        }
+
+        if (key < node._key) {
+            Node<T> left = remove(node._left, key);
+
+            return left == node._left ? node :
+                new Node<>(node, left, node._right);
+        }
+
+        if (key > node._key) {
+            Node<T> right = remove(node._right, key);
+
+            return right == node._right ? node :
+                new Node<>(node, node._left, right);
+        }
+
+        return merge(node._left, node._right);
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node._size;
+    }
+
+    private PersistentList(Node<T> root) {
+        _root = root;
+    }
+
+    private static final PersistentList<Object> _empty =
+        new PersistentList<>(null);
+
+    private final Node<T> _root;
+
+    private static final class Node<T> {
+
+        Node(long key, T value, Node<T> left, Node<T> right) {
+            this(key, value, priority(key), left, right);
+        }
+
+        Node(Node<T> node, Node<T> left, Node<T> right) {
+            this(node._key, node._value, node._priority, left, right);
+        }
+
+        private Node(
+            long key, T value, int priority, Node<T> left, Node<T> right) {
+
+            _key = key;
+            _value = value;
+            _priority = priority;
+            _left = left;
+            _right = right;
+            _size = size(left) + size(right) + 1;
+        }
+
+        private final long _key;
+        private final Node<T> _left;
+        private final int _priority;
+        private final Node<T> _right;
+        private final int _size;
+        private final T _value;
+
+    }
+
+}
@@ -0,0 +1,509 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.aries.component.dsl.internal;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An immutable hash map. Adding or removing a mapping returns a new map in
+ * time logarithmic in the size of the map, sharing all but a logarithmic
+ * number of nodes with the map it comes from, which does not change.
+ *
+ * <p>The mappings are kept in a hash array mapped trie: every level of the
+ * trie is indexed by the next five bits of the hash of the keys, and a node
+ * only has slots for the indexes in use, recorded in a bitmap. The keys whose
+ * hashes are equal end up in a collision node, searched linearly.</p>
+ */
+public final class PersistentMap<K, V> extends AbstractMap<K, V> {
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>)_empty;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key) != null;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator<>(_root);
+            }
+
+            @Override
+            public int size() {
+                return _size;
+            }
+
+        };
+    }
+
+    @Override
+    public V get(Object key) {
+        Entry<K, V> entry = find(key);
+
+        return entry == null ? null : entry.getValue();
+    }
+
+    @Override
+    public int size() {
+        return _size;
+    }
+
+    /**
+     * @return the map with the key mapped to the value, or this map if the
+     *         key is already mapped to the value
+     */
+    public PersistentMap<K, V> with(K key, V value) {
+        MapEntry<K, V> entry = new MapEntry<>(key, value, hash(key));
+
+        if (_root == null) {
+            return new PersistentMap<>(
+                new Node(1 << (entry._hash & MASK), new Object[] {entry}),
+                1);
+        }
+
+        boolean[] added = new boolean[1];
+
+        Node root = _root.with(entry, 0, added);
+
+        if (root == _root) {
+            return this;
+        }
+
+        return new PersistentMap<>(root, added[0] ? _size + 1 : _size);
+    }
+
+    /**
+     * @return the map without the key, or this map if the key is not mapped
+     */
+    public PersistentMap<K, V> without(Object key) {
+        if (_root == null) {
+            return this;
+        }
+
+        Node root = _root.without(key, hash(key), 0);
+
+        if (root == _root) {
+            return this;
+        }
+
+        if (root == null) {
+            return empty();
+        }
+
+        return new PersistentMap<>(root, _size - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Entry<K, V> find(Object key) {
+        int hash = hash(key);
+
+        Node node = _root;
+
+        for (int shift = 0; node != null; shift += BITS) {
+            if (node instanceof CollisionNode) {
+                for (Object slot : node._slots) {
+                    MapEntry<K, V> entry = (MapEntry<K, V>)slot;
+
+                    if (Objects.equals(entry.getKey(), key)) {
+                        return entry;
+                    }
+                }
+
+                return null;
+            }
+
+            int bit = bit(hash, shift);
+
+            if ((node._bitmap & bit) == 0) {
+                return null;
+            }
+
+            Object slot = node._slots[node.index(bit)];
+
+            if (slot instanceof Node) {
+                node = (Node)slot;
+
+                continue;
+            }
+
+            MapEntry<K, V> entry = (MapEntry<K, V>)slot;
+
+            if (entry._hash == hash && Objects.equals(entry.getKey(), key)) {
+                return entry;
+            }
+
+            return null;
+        }
+
+        return null;
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    private static int hash(Object key) {
+        int hash = Objects.hashCode(key);
+
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * @return a node holding both entries, whose hashes are equal up to the
+     *         shift
+     */
+    private static Node merge(
+        MapEntry<?, ?> first, MapEntry<?, ?> second, int shift) {
+
+        if (shift >= Integer.SIZE) {
+            return new CollisionNode(new Object[] {first, second});
+        }
+
+        int firstBit = bit(first._hash, shift);
+        int secondBit = bit(second._hash, shift);
+
+        if (firstBit == secondBit) {
+            return new Node(
+                firstBit,
+                new Object[] {merge(first, second, shift + BITS)});
+        }
+
+        if (Integer.compareUnsigned(firstBit, secondBit) < 0) {
+            return new Node(firstBit | secondBit, new Object[] {first, second});
+        }
+
+        return new Node(firstBit | secondBit, new Object[] {second, first});
+    }
+
+    private PersistentMap(Node root, int size) {
+        _root = root;
+        _size = size;
+    }
+
+    private static final int BITS = 5;
+
+    private static final int MASK = (1 << BITS) - 1;
+
+    private static final PersistentMap<Object, Object> _empty =
+        new PersistentMap<>(null, 0);
+
+    private final Node _root;
+    private final int _size;
+
+    /**
+     * A node with a slot, holding either an entry or a child node, for
+     * every index set in its bitmap.
+     */
+    private static class Node {
+
+        Node(int bitmap, Object[] slots) {
+            _bitmap = bitmap;
+            _slots = slots;
+        }
+
+        int index(int bit) {
+            return Integer.bitCount(_bitmap & (bit - 1));
+        }
+
+        /**
+         * @return the entry this node can be replaced with in its parent,
+         *         or {@code null} if it has more than one entry
+         */
+        Object single() {
+            if (_slots.length == 1 && !(_slots[0] instanceof Node)) {
+                return _slots[0];
+            }
+
+            return null;
+        }
+
+        Node with(MapEntry<?, ?> entry, int shift, boolean[] added) {
+            int bit = bit(entry._hash, shift);
+
+            int index = index(bit);
+
+            if ((_bitmap & bit) == 0) {
+                added[0] = true;
+
+                Object[] slots = new Object[_slots.length + 1];
+
+                System.arraycopy(_slots, 0, slots, 0, index);
+                System.arraycopy(
+                    _slots, index, slots, index + 1, _slots.length - index);
+
+                slots[index] = entry;
+
+                return new Node(_bitmap | bit, slots);
+            }
+
+            Object slot = _slots[index];
+
+            if (slot instanceof Node) {
+                Node node = ((Node)slot).with(entry, shift + BITS, added);
+
+                return node == slot ? this : replace(index, node);
+            }
+
+            MapEntry<?, ?> current = (MapEntry<?, ?>)slot;
+
+            if (current._hash == entry._hash &&
+                Objects.equals(current.getKey(), entry.getKey())) {
+
+                if (current.getValue() == entry.getValue()) {
+                    return this;
+                }
+
+                return replace(index, entry);
+            }
+
+            added[0] = true;
+
+            return replace(index, merge(current, entry, shift + BITS));
+        }
+
+        Node without(Object key, int hash, int shift) {
+            int bit = bit(hash, shift);
+
+            if ((_bitmap & bit) == 0) {
+                return this;
+            }
+
+            int index = index(bit);
+
+            Object slot = _slots[index];
+
+            if (slot instanceof Node) {
+                Node node = ((Node)slot).without(key, hash, shift + BITS);
+
+                if (node == slot) {
+                    return this;
+                }
+
+                if (node != null) {
+                    Object single = node.single();
+
+                    return replace(index, single == null ? node : single);
+                }
+            }
+            else {
+                MapEntry<?, ?> entry = (MapEntry<?, ?>)slot;
+
+                if (entry._hash != hash ||
+                    !Objects.equals(entry.getKey(), key)) {
+
+                    return this;
+                }
+            }
+
+            if (_slots.length == 1) {
+                return null;
+            }
+
+            Object[] slots = new Object[_slots.length - 1];
+
+            System.arraycopy(_slots, 0, slots, 0, index);
+            System.arraycopy(
+                _slots, index + 1, slots, index, slots.length - index);
+
+            return new Node(_bitmap & ~bit, slots);
+        }
+
+        private Node replace(int index, Object slot) {
+            Object[] slots = _slots.clone();
+
+            slots[index] = slot;
+
+            return new Node(_bitmap, slots);
+        }
+
+        final int _bitmap;
+        final Object[] _slots;
+
+    }
+
+    /**
+     * The node of the entries whose keys have the same hash.
+     */
+    private static class CollisionNode extends Node {
+
+        CollisionNode(Object[] slots) {
+            super(0, slots);
+        }
+
+        @Override
+        Node with(MapEntry<?, ?> entry, int shift, boolean[] added) {
+            int index = indexOf(entry.getKey());
+
+            Object[] slots;
+
+            if (index < 0) {
+                added[0] = true;
+
+                slots = new Object[_slots.length + 1];
+
+                System.arraycopy(_slots, 0, slots, 0, _slots.length);
+
+                index = _slots.length;
+            }
+            else if (((MapEntry<?, ?>)_slots[index]).getValue() ==
+                        entry.getValue()) {
+
+                return this;
+            }
+            else {
+                slots = _slots.clone();
+            }
+
+            slots[index] = entry;
+
+            return new CollisionNode(slots);
+        }
+
+        @Override
+        Node without(Object key, int hash, int shift) {
+            int index = indexOf(key);
+
+            if (index < 0) {
+                return this;
+            }
+
+            if (_slots.length == 1) {
+                return null;
+            }
+
+            Object[] slots = new Object[_slots.length - 1];
+
+            System.arraycopy(_slots, 0, slots, 0, index);
+            System.arraycopy(
+                _slots, index + 1, slots, index, slots.length - index);
+
+            return new CollisionNode(slots);
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < _slots.length; i++) {
+                if (Objects.equals(((MapEntry<?, ?>)_slots[i]).getKey(), key)) {
+                    return i;
+                }
+            }
+
+            return -1;
+        }
+
+    }
+
+    private static class EntryIterator<K, V> implements Iterator<Entry<K, V>> {
+
+        EntryIterator(Node root) {
+            if (root != null) {
+                _nodes[0] = root;
+            }
+            else {
+                _depth = -1;
+            }
+
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _next != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (_next == null) {
+                throw new NoSuchElementException();
+            }
+
+            Entry<K, V> next = _next;
+
+            advance();
+
+            return next;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            while (_depth >= 0) {
+                Node node = _nodes[_depth];
+
+                if (_positions[_depth] == node._slots.length) {
+                    _depth--;
+
+                    continue;
+                }
+
+                Object slot = node._slots[_positions[_depth]++];
+
+                if (slot instanceof Node) {
+                    _depth++;
+
+                    _nodes[_depth] = (Node)slot;
+                    _positions[_depth] = 0;
+
+                    continue;
+                }
+
+                _next = (Entry<K, V>)slot;
+
+                return;
+            }
+
+            _next = null;
+        }
+
+        private int _depth;
+        private Entry<K, V> _next;
+        private final Node[] _nodes = new Node[LEVELS];
+        private final int[] _positions = new int[LEVELS];
+
+        private static final int LEVELS = Integer.SIZE / BITS + 2;
+
+    }
+
+    private static class MapEntry<K, V>
+        extends AbstractMap.SimpleImmutableEntry<K, V> {
+
+        MapEntry(K key, V value, int hash) {
+            super(key, value);
+
+            _hash = hash;
+        }
+
+        private static final long serialVersionUID = 1L;
+
+        final int _hash;
+
+    }
+
+}
@@ -20,6 +20,7 @@ package org.apache.aries.component.dsl.internal;
 import org.apache.aries.component.dsl.OSGiResult;
 import org.apache.aries.component.dsl.OSGiRunnable;
 import org.apache.aries.component.dsl.Publisher;
+import org.apache.aries.component.dsl.graph.Operator;
 
 /**
  * @author Carlos Sierra Andrés
@@ -27,7 +28,7 @@ import org.apache.aries.component.dsl.Publisher;
 public class ProbeImpl<T> extends BaseOSGiImpl<T> {
 
     public ProbeImpl() {
-        super(new ProbeOperationImpl<>());
+        super(() -> Operator.of("probe"), new ProbeOperationImpl<>());
     }
 
     public Publisher<? super T> getPublisher() {
@@ -0,0 +1,262 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aries.component.dsl.internal;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.OSGiRunnable.ExecutionContext;
+import org.apache.aries.component.dsl.Publisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Holds the publications of an operator until they have stopped coming for
+ * a window, or for at most ten windows since the first one held, and then
+ * publishes them together in a {@link BatchSupport batch}. The window is
+ * measured on the {@link SharedScheduler}, and the publications are released
+ * on the executor of the program, or on a thread of their own if there is
+ * none, one batch at a time. They are never released on the thread of the
+ * scheduler, which is shared by every operator.
+ *
+ * <p>The elements published while the operator is being started are
+ * published right away. Removals are never held: an element that goes away
+ * is retracted right away, or never published if it was still being held,
+ * and it can start the window again when the operator waits for its upstream
+ * to be quiet, neither publishing nor removing elements.</p>
+ */
+class Quiescence<T> {
+
+    Quiescence(long window, Executor executor, boolean removalsTouch) {
+        _window = window;
+        _executor = executor != null ?
+            executor : new SerialExecutor(
+                ExecutionContext.threadPerTaskExecutor());
+        _removalsTouch = removalsTouch;
+    }
+
+    /**
+     * Holds the publication of the element, or publishes it right away if
+     * the operator is being started by the current thread.
+     *
+     * @return the result retracting the element
+     */
+    OSGiResult add(Publisher<? super T> op, T t) {
+        Entry entry = new Entry(op, t);
+
+        if (_starting == Thread.currentThread()) {
+            entry.publish();
+
+            return entry;
+        }
+
+        if (!hold(entry)) {
+            return OSGi.NOOP;
+        }
+
+        return entry;
+    }
+
+    /**
+     * Stops holding publications. The elements held and not published yet
+     * are dropped.
+     */
+    void close() {
+        List<Entry> held;
+
+        synchronized (this) {
+            _closed = true;
+
+            if (_future != null) {
+                _future.cancel(false);
+
+                _future = null;
+            }
+
+            held = _held;
+
+            _held = new ArrayList<>();
+        }
+
+        for (Entry entry : held) {
+            entry.close();
+        }
+    }
+
+    OSGiResult start(Supplier<OSGiResult> run) {
+        _starting = Thread.currentThread();
+
+        try {
+            return run.get();
+        }
+        finally {
+            _starting = null;
+        }
+    }
+
+    private void expire() {
+        List<Entry> held;
+
+        synchronized (this) {
+            if (_closed) {
+                return;
+            }
+
+            long remaining = _deadline - System.nanoTime();
+
+            if (remaining > 0) {
+                _future = SharedScheduler.schedule(
+                    this::expire, remaining, TimeUnit.NANOSECONDS);
+
+                return;
+            }
+
+            _future = null;
+
+            held = _held;
+
+            _held = new ArrayList<>();
+        }
+
+        _executor.execute(() -> {
+            synchronized (_releaseLock) {
+                BatchSupport.runInBatch(() -> publish(held));
+            }
+        });
+    }
+
+    /**
+     * @return {@code false} if the quiescence has already been closed
+     */
+    private synchronized boolean hold(Entry entry) {
+        if (_closed) {
+            return false;
+        }
+
+        long now = System.nanoTime();
+
+        if (_held.isEmpty()) {
+            _limit = now + _window * 10;
+        }
+
+        _held.add(entry);
+
+        _deadline = Math.min(now + _window, _limit);
+
+        if (_future == null) {
+            _future = SharedScheduler.schedule(
+                this::expire, _window, TimeUnit.NANOSECONDS);
+        }
+
+        return true;
+    }
+
+    private void publish(List<Entry> entries) {
+        for (Entry entry : entries) {
+            try {
+                entry.publish();
+            }
+            catch (Exception e) {
+                Multicast.report(e);
+            }
+        }
+    }
+
+    /**
+     * Starts the window again without holding any element, if there are
+     * elements held.
+     */
+    private synchronized void touch() {
+        if (!_closed && !_held.isEmpty()) {
+            _deadline = Math.min(System.nanoTime() + _window, _limit);
+        }
+    }
+
+    private boolean _closed;
+    private long _deadline;
+    private final Executor _executor;
+    private ScheduledFuture<?> _future;
+    private List<Entry> _held = new ArrayList<>();
+    private long _limit;
+    private final Object _releaseLock = new Object();
+    private final boolean _removalsTouch;
+    private volatile Thread _starting;
+    private final long _window;
+
+    private class Entry implements OSGiResult {
+
+        public Entry(Publisher<? super T> op, T t) {
+            _op = op;
+            _t = t;
+        }
+
+        /**
+         * Retracts the element right away, and starts the window of the
+         * elements held again if removals are part of the quiet.
+         */
+        @Override
+        public void close() {
+            OSGiResult result;
+
+            synchronized (this) {
+                _closed = true;
+
+                result = _result;
+
+                _result = null;
+            }
+
+            if (result != null) {
+                result.close();
+            }
+
+            if (_removalsTouch) {
+                touch();
+            }
+        }
+
+        public synchronized void publish() {
+            if (!_closed && _result == null) {
+                _result = _op.publish(_t);
+            }
+        }
+
+        /**
+         * An element still being held is published with its latest state, so
+         * its updates are dropped.
+         */
+        @Override
+        public synchronized boolean update() {
+            if (_result == null) {
+                return false;
+            }
+
+            return _result.update();
+        }
+
+        private boolean _closed;
+        private final Publisher<? super T> _op;
+        private OSGiResult _result;
+        private final T _t;
+
+    }
+
+}
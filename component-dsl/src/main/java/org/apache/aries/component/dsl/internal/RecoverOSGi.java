@@ -21,6 +21,7 @@ import org.apache.aries.component.dsl.OSGi;
 import org.apache.aries.component.dsl.OSGiResult;
 import org.apache.aries.component.dsl.Publisher;
 
+import java.util.Collections;
 import java.util.function.BiFunction;
 
 /**
@@ -29,7 +30,11 @@ import java.util.function.BiFunction;
 public class RecoverOSGi<T> extends OSGiImpl<T> {
 
     public RecoverOSGi(OSGi<T> program, BiFunction<T, Exception, T> error) {
-        super((executionContext, op) -> program.run(
+        super(
+            () -> operator(
+                "recover", Collections.emptyMap(), program,
+                source -> new RecoverOSGi<>(source, error)),
+            (executionContext, op) -> program.run(
             executionContext, new RecoverOSGi.RecoverPublisher<>(op, error)));
     }
 
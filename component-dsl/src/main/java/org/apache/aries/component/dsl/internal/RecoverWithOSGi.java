@@ -21,6 +21,7 @@ import org.apache.aries.component.dsl.OSGi;
 import org.apache.aries.component.dsl.OSGiResult;
 import org.apache.aries.component.dsl.Publisher;
 
+import java.util.Collections;
 import java.util.function.BiFunction;
 
 /**
@@ -29,7 +30,11 @@ import java.util.function.BiFunction;
 public class RecoverWithOSGi<T> extends OSGiImpl<T> {
 
     public RecoverWithOSGi(OSGi<T> program, BiFunction<T, Exception, OSGi<T>> error) {
-        super((executionContext, op) -> program.run(
+        super(
+            () -> operator(
+                "recoverWith", Collections.emptyMap(), program,
+                source -> new RecoverWithOSGi<>(source, error)),
+            (executionContext, op) -> program.run(
             executionContext, new RecoverWithPublisher<>(executionContext, op, error)));
     }
 
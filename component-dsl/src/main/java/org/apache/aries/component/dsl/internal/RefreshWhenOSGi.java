@@ -19,8 +19,11 @@ package org.apache.aries.component.dsl.internal;
 
 import org.apache.aries.component.dsl.OSGi;
 import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.graph.Operator;
 
+import java.util.Collections;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * @author Carlos Sierra Andrés
@@ -28,7 +31,7 @@ import java.util.function.Predicate;
 public class RefreshWhenOSGi<T> extends OSGiImpl<T> {
 
     public RefreshWhenOSGi(OSGi<T> program, Predicate<T> refresher) {
-        super((executionContext, op) -> {
+        super(describe(program, refresher), (executionContext, op) -> {
             OSGiResult result = program.run(
                 executionContext,
                 op.pipe(
@@ -57,4 +60,13 @@ public class RefreshWhenOSGi<T> extends OSGiImpl<T> {
         });
     }
 
+    private static <T> Supplier<Operator> describe(
+        OSGi<T> program, Predicate<T> refresher) {
+
+        return () -> operator(
+            "refreshWhen", Collections.emptyMap(), program,
+            source -> new RefreshWhenOSGi<>(source, refresher));
+    }
+
+
 }
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs the tasks submitted to it one at a time, in submission order, on an
+ * underlying executor. At most one task of this executor is submitted to the
+ * underlying one at any time, and it drains the queue before returning.
+ *
+ * <p>A task throwing an exception does not prevent the following ones from
+ * running: they are handed to the underlying executor again, and the
+ * exception is thrown to it, so it is reported like the failure of any other
+ * task of that executor.</p>
+ */
+public class SerialExecutor implements Executor {
+
+    public SerialExecutor(Executor executor) {
+        _executor = executor;
+    }
+
+    @Override
+    public void execute(Runnable runnable) {
+        _tasks.add(runnable);
+
+        schedule();
+    }
+
+    private void drain() {
+        try {
+            Runnable task;
+
+            while ((task = _tasks.poll()) != null) {
+                task.run();
+            }
+        }
+        finally {
+            _scheduled.set(false);
+
+            if (!_tasks.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    private void schedule() {
+        if (_scheduled.compareAndSet(false, true)) {
+            try {
+                _executor.execute(this::drain);
+            }
+            catch (RuntimeException re) {
+                _scheduled.set(false);
+
+                throw re;
+            }
+        }
+    }
+
+    private final Executor _executor;
+    private final AtomicBoolean _scheduled = new AtomicBoolean();
+    private final Queue<Runnable> _tasks = new ConcurrentLinkedQueue<>();
+
+}
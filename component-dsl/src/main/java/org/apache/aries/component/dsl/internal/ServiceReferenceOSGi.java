@@ -17,12 +17,10 @@
 
 package org.apache.aries.component.dsl.internal;
 
-import org.apache.aries.component.dsl.OSGiResult;
 import org.apache.aries.component.dsl.CachingServiceReference;
-import org.apache.aries.component.dsl.Publisher;
-import org.osgi.framework.ServiceReference;
-import org.osgi.util.tracker.ServiceTracker;
-import org.osgi.util.tracker.ServiceTrackerCustomizer;
+import org.apache.aries.component.dsl.graph.Operator;
+
+import java.util.function.Supplier;
 
 /**
  * @author Carlos Sierra Andrés
@@ -32,82 +30,26 @@ public class ServiceReferenceOSGi<T>
 
 	public ServiceReferenceOSGi(Class<T> clazz, String filterString) {
 
-		super((executionContext, op) -> {
-			ServiceTracker<T, Tracked<T>>
-				serviceTracker = new ServiceTracker<>(
-					executionContext.getBundleContext(),
-					buildFilter(executionContext, filterString, clazz),
-					new DefaultServiceTrackerCustomizer<>(op));
-
-			serviceTracker.open();
-
-			return new OSGiResultImpl(
-				serviceTracker::close,
-				() -> serviceTracker.getTracked().values().stream().map(
-					tracked -> tracked.runnable.update()
-				).reduce(
-					Boolean.FALSE, Boolean::logicalOr
-				)
-			);
-		});
+		this(clazz, filterString, buildFilterString(filterString, clazz));
 	}
 
-	private static class DefaultServiceTrackerCustomizer<T>
-		implements ServiceTrackerCustomizer<T, Tracked<T>> {
-
-		public DefaultServiceTrackerCustomizer(
-			Publisher<? super CachingServiceReference<T>> addedSource) {
-
-			_addedSource = addedSource;
-		}
-
-		@Override
-		public Tracked<T> addingService(ServiceReference<T> reference) {
-			CachingServiceReference<T> cachingServiceReference =
-				new CachingServiceReference<>(reference);
-
-			return new Tracked<>(
-				cachingServiceReference, _addedSource.apply(cachingServiceReference));
-		}
-
-		@Override
-		public void modifiedService(
-			ServiceReference<T> reference, Tracked<T> tracked) {
-
-			if (UpdateSupport.sendUpdate(tracked.runnable)) {
-				UpdateSupport.runUpdate(() -> {
-					tracked.runnable.run();
-					tracked.cachingServiceReference = new CachingServiceReference<>(
-						reference);
-					tracked.runnable =
-						_addedSource.apply(tracked.cachingServiceReference);
-				});
-			}
-		}
-
-		@Override
-		public void removedService(
-			ServiceReference<T> reference, Tracked<T> tracked) {
-
-			tracked.runnable.run();
-		}
-
-		private final Publisher<? super CachingServiceReference<T>> _addedSource;
+	private ServiceReferenceOSGi(
+		Class<T> clazz, String filterString, String filter) {
 
+		super(
+			describe(clazz, filterString),
+			(executionContext, op) -> SharedServiceTracker.subscribe(
+				executionContext.getBundleContext(), filter, op));
 	}
 
-	private static class Tracked<T> {
-
-		public Tracked(
-			CachingServiceReference<T> cachingServiceReference,
-			OSGiResult osgiResult) {
-
-			this.cachingServiceReference = cachingServiceReference;
-			this.runnable = osgiResult;
-		}
-
-		volatile CachingServiceReference<T> cachingServiceReference;
-		volatile OSGiResult runnable;
+	private static Supplier<Operator> describe(
+		Class<?> clazz, String filterString) {
 
+		return () -> Operator.of(
+			"serviceReferences",
+			attributes(
+				"class", clazz == null ? null : clazz.getName(),
+				"filter", filterString));
 	}
+
 }
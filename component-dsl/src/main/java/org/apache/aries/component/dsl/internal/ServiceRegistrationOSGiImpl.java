@@ -19,6 +19,7 @@ package org.apache.aries.component.dsl.internal;
 
 import org.apache.aries.component.dsl.OSGiResult;
 import org.apache.aries.component.dsl.Publisher;
+import org.apache.aries.component.dsl.graph.Operator;
 import org.osgi.framework.ServiceFactory;
 import org.osgi.framework.ServiceRegistration;
 
@@ -36,7 +37,7 @@ public class ServiceRegistrationOSGiImpl<T>
 		Class<T> clazz, Supplier<T> service,
 		Supplier<Map<String, ?>> properties) {
 
-		super((executionContext, op) -> {
+		super(describe(clazz.getName()), (executionContext, op) -> {
 			ServiceRegistration<?> serviceRegistration =
 				executionContext.getBundleContext().registerService(
 					clazz, service.get(), getProperties(properties.get()));
@@ -49,7 +50,7 @@ public class ServiceRegistrationOSGiImpl<T>
 		Class<T> clazz, ServiceFactory<T> serviceFactory,
 		Supplier<Map<String, ?>> properties) {
 
-		super((executionContext, op) -> {
+		super(describe(clazz.getName()), (executionContext, op) -> {
 			ServiceRegistration<?> serviceRegistration =
 				executionContext.getBundleContext().registerService(
 					clazz, serviceFactory,
@@ -63,7 +64,7 @@ public class ServiceRegistrationOSGiImpl<T>
 		String[] clazz, Supplier<Object> service,
 		Supplier<Map<String, ?>> properties) {
 
-		super((executionContext, op) -> {
+		super(describe(String.join(",", clazz)), (executionContext, op) -> {
 			ServiceRegistration<?> serviceRegistration =
 				executionContext.getBundleContext().registerService(
 					clazz, service.get(), new Hashtable<>(properties.get()));
@@ -72,6 +73,10 @@ public class ServiceRegistrationOSGiImpl<T>
 		});
 	}
 
+	private static Supplier<Operator> describe(String classes) {
+		return () -> Operator.of("register", attributes("classes", classes));
+	}
+
 	private static Hashtable<String, Object> getProperties(
 		Map<String, ?> properties) {
 
@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.OSGiRunnable.ExecutionContext;
+import org.apache.aries.component.dsl.graph.Operator;
+import org.apache.aries.component.dsl.metrics.Instrumentation;
+import org.osgi.framework.BundleContext;
+
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs a program once for all the places that use it with the same
+ * {@link ExecutionContext}, that is with the same bundle context, executor
+ * and instrumentation, and multicasts its publications, removals and updates
+ * to each of them.
+ *
+ * <p>The runs are counted. The first one runs the program, and the last one
+ * to be closed closes it. A run joining later is first given the elements
+ * that are live at that moment, and from then on the events of the program
+ * are fanned out to every run through a {@link Multicast}, in the order they
+ * joined.</p>
+ *
+ * <p>An update sent by the program is relayed to what every run was given
+ * for the element, and if any of them asks to be published again the
+ * program is asked to publish the element again, so that every run gets
+ * the new element. An update requested through the result of a run reaches
+ * what that run was given.</p>
+ */
+public class ShareOSGiImpl<T> extends BaseOSGiImpl<T> {
+
+    public ShareOSGiImpl(OSGi<T> program) {
+        this(program, new ConcurrentHashMap<>());
+    }
+
+    private ShareOSGiImpl(OSGi<T> program, ConcurrentMap<Key, Hub<T>> hubs) {
+        super(describe(program), (executionContext, op) -> {
+            Key key = new Key(executionContext);
+
+            Hub<T> hub = acquire(
+                hubs, key,
+                () -> new Hub<>(hubs, key, executionContext, program));
+
+            Multicast.Subscription<T> subscription;
+
+            try {
+                subscription = hub._multicast.subscribe(op);
+            }
+            catch (Exception e) {
+                hub.release();
+
+                throw e;
+            }
+
+            return new OSGiResultImpl(
+                () -> {
+                    try {
+                        hub._multicast.unsubscribe(subscription);
+                    }
+                    finally {
+                        hub.release();
+                    }
+                },
+                () -> hub._multicast.update(subscription));
+        });
+    }
+
+    private static <T> Hub<T> acquire(
+        ConcurrentMap<Key, Hub<T>> hubs, Key key, Supplier<Hub<T>> supplier) {
+
+        while (true) {
+            Hub<T> hub = hubs.computeIfAbsent(key, __ -> supplier.get());
+
+            if (hub.acquire()) {
+                return hub;
+            }
+
+            hubs.remove(key, hub);
+        }
+    }
+
+    private static <T> Supplier<Operator> describe(OSGi<T> program) {
+        return () -> operator(
+            "share", Collections.emptyMap(), program, ShareOSGiImpl::new);
+    }
+
+    /**
+     * The run of the program shared by the runs using the same execution
+     * context. The program is run and closed outside the monitor of the hub,
+     * which is only held to count the runs. Runs joining while the program
+     * starts wait for it to have started.
+     */
+    private static class Hub<T> {
+
+        Hub(
+            ConcurrentMap<Key, Hub<T>> hubs, Key key,
+            ExecutionContext executionContext, OSGi<T> program) {
+
+            _hubs = hubs;
+            _key = key;
+            _executionContext = executionContext;
+            _program = program;
+        }
+
+        /**
+         * @return {@code false} if the hub has already been closed
+         */
+        boolean acquire() {
+            synchronized (this) {
+                boolean interrupted = false;
+
+                while (_starting) {
+                    try {
+                        wait();
+                    }
+                    catch (InterruptedException ie) {
+                        interrupted = true;
+                    }
+                }
+
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+
+                if (_closed) {
+                    return false;
+                }
+
+                if (_count++ > 0) {
+                    return true;
+                }
+
+                _starting = true;
+            }
+
+            OSGiResult result;
+
+            try {
+                result = _program.run(_executionContext, this::publish);
+            }
+            catch (RuntimeException re) {
+                synchronized (this) {
+                    _closed = true;
+                    _starting = false;
+
+                    notifyAll();
+                }
+
+                _hubs.remove(_key, this);
+
+                throw re;
+            }
+
+            synchronized (this) {
+                _result = result;
+                _starting = false;
+
+                notifyAll();
+            }
+
+            return true;
+        }
+
+        void release() {
+            OSGiResult result;
+
+            synchronized (this) {
+                if (--_count > 0) {
+                    return;
+                }
+
+                _closed = true;
+
+                result = _result;
+            }
+
+            _hubs.remove(_key, this);
+
+            result.close();
+        }
+
+        private OSGiResult publish(T t) {
+            Multicast.Element<T, T> element = _multicast.add(t);
+
+            return new OSGiResultImpl(
+                () -> _multicast.remove(element),
+                () -> _multicast.update(element));
+        }
+
+        private boolean _closed;
+        private int _count;
+        private final ExecutionContext _executionContext;
+        private final ConcurrentMap<Key, Hub<T>> _hubs;
+        private final Key _key;
+        private final Multicast<T, T> _multicast = new Multicast<>(
+            Function.identity(),
+            re -> {
+                throw re;
+            });
+        private final OSGi<T> _program;
+        private OSGiResult _result;
+        private boolean _starting;
+
+    }
+
+    /**
+     * The execution context a hub runs the program with. Execution contexts
+     * are created for every run, so they are told apart by what they hold.
+     */
+    private static class Key {
+
+        Key(ExecutionContext executionContext) {
+            _bundleContext = executionContext.getBundleContext();
+            _executor = executionContext.getExecutor();
+            _instrumentation = executionContext.getInstrumentation();
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (this == object) {
+                return true;
+            }
+
+            if (!(object instanceof Key)) {
+                return false;
+            }
+
+            Key key = (Key)object;
+
+            return _bundleContext == key._bundleContext &&
+                _executor == key._executor &&
+                _instrumentation == key._instrumentation;
+        }
+
+        @Override
+        public int hashCode() {
+            return (System.identityHashCode(_bundleContext) * 31 +
+                System.identityHashCode(_executor)) * 31 +
+                    System.identityHashCode(_instrumentation);
+        }
+
+        private final BundleContext _bundleContext;
+        private final Executor _executor;
+        private final Instrumentation _instrumentation;
+
+    }
+
+}
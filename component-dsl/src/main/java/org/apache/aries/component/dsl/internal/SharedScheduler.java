@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The timer of the operators waiting for time to pass. It is a single daemon
+ * thread, created the first time something is scheduled, so the tasks have
+ * to be short or to hand their work over to an executor.
+ */
+public class SharedScheduler {
+
+    public static ScheduledFuture<?> schedule(
+        Runnable runnable, long delay, TimeUnit unit) {
+
+        return Holder._scheduler.schedule(runnable, delay, unit);
+    }
+
+    private static class Holder {
+
+        private static final ScheduledThreadPoolExecutor _scheduler;
+
+        static {
+            _scheduler = new ScheduledThreadPoolExecutor(
+                1,
+                runnable -> {
+                    Thread thread = new Thread(
+                        runnable, "Aries Component DSL Scheduler");
+
+                    thread.setDaemon(true);
+
+                    return thread;
+                });
+
+            _scheduler.setRemoveOnCancelPolicy(true);
+        }
+
+    }
+
+}
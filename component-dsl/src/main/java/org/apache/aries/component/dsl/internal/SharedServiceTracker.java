@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import org.apache.aries.component.dsl.CachingServiceReference;
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.Publisher;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceReference;
+import org.osgi.util.tracker.ServiceTracker;
+import org.osgi.util.tracker.ServiceTrackerCustomizer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A {@link ServiceTracker} shared by all the programs tracking the same
+ * filter with the same {@link BundleContext}, so that the framework evaluates
+ * every service event once per filter instead of once per program.
+ *
+ * <p>The trackers are kept in a registry and counted. The first subscription
+ * creates and opens the tracker, and the last one to leave closes it and
+ * removes it from the registry. A new subscription first gets the references
+ * already tracked, and from then on the events of the tracker are fanned out
+ * to every subscription through a {@link Multicast}, in the order they
+ * subscribed.</p>
+ *
+ * <p>Every subscription gets its own {@link CachingServiceReference} for a
+ * reference, so the programs don't see the properties cached by each
+ * other.</p>
+ */
+public class SharedServiceTracker<T>
+    implements ServiceTrackerCustomizer<
+        T, Multicast.Element<ServiceReference<T>, CachingServiceReference<T>>> {
+
+    /**
+     * Subscribes the publisher to the tracker of the filter, creating and
+     * opening the tracker if no other program is using it.
+     *
+     * @return the result that unsubscribes the publisher and retracts what it
+     *         was given
+     */
+    public static <T> OSGiResult subscribe(
+        BundleContext bundleContext, String filterString,
+        Publisher<? super CachingServiceReference<T>> publisher) {
+
+        SharedServiceTracker<T> sharedServiceTracker = acquire(
+            new Key(bundleContext, filterString));
+
+        Multicast<ServiceReference<T>, CachingServiceReference<T>> multicast =
+            sharedServiceTracker._multicast;
+
+        Multicast.Subscription<CachingServiceReference<T>> subscription;
+
+        try {
+            subscription = multicast.subscribe(publisher);
+        }
+        catch (Exception e) {
+            sharedServiceTracker.release();
+
+            throw e;
+        }
+
+        return new OSGiResultImpl(
+            () -> {
+                try {
+                    multicast.unsubscribe(subscription);
+                }
+                finally {
+                    sharedServiceTracker.release();
+                }
+            },
+            () -> multicast.update(subscription));
+    }
+
+    /**
+     * Exceptions thrown downstream while delivering an added reference are
+     * reported instead of thrown to the framework, which would stop the
+     * delivery to the other subscriptions and leave the reference
+     * untracked.
+     */
+    @Override
+    public Multicast.Element<ServiceReference<T>, CachingServiceReference<T>>
+        addingService(ServiceReference<T> reference) {
+
+        return _multicast.add(reference);
+    }
+
+    @Override
+    public void modifiedService(
+        ServiceReference<T> reference,
+        Multicast.Element<ServiceReference<T>, CachingServiceReference<T>>
+            element) {
+
+        _multicast.modified(element);
+    }
+
+    @Override
+    public void removedService(
+        ServiceReference<T> reference,
+        Multicast.Element<ServiceReference<T>, CachingServiceReference<T>>
+            element) {
+
+        _multicast.remove(element);
+    }
+
+    static int size() {
+        return _sharedServiceTrackers.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> SharedServiceTracker<T> acquire(Key key) {
+        while (true) {
+            SharedServiceTracker<T> sharedServiceTracker =
+                (SharedServiceTracker<T>)_sharedServiceTrackers.computeIfAbsent(
+                    key, SharedServiceTracker::new);
+
+            if (sharedServiceTracker.acquire()) {
+                return sharedServiceTracker;
+            }
+
+            _sharedServiceTrackers.remove(key, sharedServiceTracker);
+        }
+    }
+
+    private SharedServiceTracker(Key key) {
+        _key = key;
+
+        try {
+            _serviceTracker = new ServiceTracker<>(
+                key._bundleContext,
+                FilterCache.getFilter(key._bundleContext, key._filterString),
+                this);
+        }
+        catch (InvalidSyntaxException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return {@code false} if the tracker has already been closed
+     */
+    private synchronized boolean acquire() {
+        if (_closed) {
+            return false;
+        }
+
+        if (_count++ == 0) {
+            try {
+                _serviceTracker.open();
+            }
+            catch (RuntimeException re) {
+                _closed = true;
+
+                _sharedServiceTrackers.remove(_key, this);
+
+                throw re;
+            }
+        }
+
+        return true;
+    }
+
+    private synchronized void release() {
+        if (--_count == 0) {
+            _closed = true;
+
+            _sharedServiceTrackers.remove(_key, this);
+
+            _serviceTracker.close();
+        }
+    }
+
+    private static final ConcurrentMap<Key, SharedServiceTracker<?>>
+        _sharedServiceTrackers = new ConcurrentHashMap<>();
+
+    private boolean _closed;
+    private int _count;
+    private final Key _key;
+    private final Multicast<ServiceReference<T>, CachingServiceReference<T>>
+        _multicast = new Multicast<>(
+            CachingServiceReference::new, Multicast::report);
+    private final ServiceTracker<
+        T, Multicast.Element<ServiceReference<T>, CachingServiceReference<T>>>
+            _serviceTracker;
+
+    private static class Key {
+
+        Key(BundleContext bundleContext, String filterString) {
+            _bundleContext = bundleContext;
+            _filterString = filterString;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (this == object) {
+                return true;
+            }
+
+            if (!(object instanceof Key)) {
+                return false;
+            }
+
+            Key key = (Key)object;
+
+            return _bundleContext == key._bundleContext &&
+                _filterString.equals(key._filterString);
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(_bundleContext) * 31 +
+                _filterString.hashCode();
+        }
+
+        private final BundleContext _bundleContext;
+        private final String _filterString;
+
+    }
+
+}
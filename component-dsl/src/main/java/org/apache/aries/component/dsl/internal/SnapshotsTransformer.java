@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.aries.component.dsl.internal;
+
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.Publisher;
+import org.apache.aries.component.dsl.Transformer;
+
+import java.util.List;
+
+/**
+ * Publishes, for every element of the program, a snapshot of the elements
+ * live at that moment, as a {@link PersistentList persistent list}.
+ */
+public class SnapshotsTransformer<T> implements Transformer<T, List<T>> {
+
+    /**
+     * @return the snapshot of the elements live now
+     */
+    public List<T> get() {
+        return _snapshot;
+    }
+
+    @Override
+    public Publisher<T> transform(Publisher<? super List<T>> op) {
+        return t -> {
+            long key;
+            List<T> snapshot;
+
+            synchronized (this) {
+                key = _next++;
+
+                snapshot = _snapshot = _snapshot.append(key, t);
+            }
+
+            OSGiResult result = op.publish(snapshot);
+
+            return new OSGiResultImpl(
+                () -> {
+                    synchronized (this) {
+                        _snapshot = _snapshot.removeKey(key);
+                    }
+
+                    result.close();
+                },
+                result::update
+            );
+        };
+    }
+
+    private long _next;
+    private volatile PersistentList<T> _snapshot = PersistentList.empty();
+
+}
@@ -0,0 +1,335 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.OSGiResult;
+
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.apache.aries.component.dsl.graph.Operator;
+import static org.apache.aries.component.dsl.OSGi.NOOP;
+
+/**
+ * Sends every element to a {@link Pad} per key, keeping the pads in a
+ * {@link ConcurrentHashMap} so that elements of different keys go through in
+ * parallel. Only the elements of the same key wait for each other, and only
+ * while the pad of the key is created.
+ *
+ * <p>A pad counts the elements published to it, and it is closed and evicted
+ * once the last one leaves. An element arriving later for the same key gets
+ * a new pad.</p>
+ */
+public class SplitByOSGiImpl<T, K, S> extends BaseOSGiImpl<S> {
+
+    public SplitByOSGiImpl(
+        OSGi<T> program, Function<T, OSGi<K>> mapper,
+        BiFunction<K, OSGi<T>, OSGi<S>> fun) {
+
+        super(describe(program, mapper, fun), (executionContext, op) -> {
+            ConcurrentHashMap<K, KeyPad<T, S>> pads =
+                new ConcurrentHashMap<>();
+            AtomicBoolean closed = new AtomicBoolean();
+
+            Runnable inspection = inspect(
+                executionContext, () -> attributes("pads", pads.size()));
+
+            OSGiResult result = program.run(
+                executionContext,
+                op.pipe(t -> mapper.apply(t).run(
+                    executionContext,
+                    k -> publish(
+                        pads, closed, k, t,
+                        () -> new Pad<>(
+                            executionContext, p -> fun.apply(k, p), op))
+                )));
+
+            return new OSGiResultImpl(
+                () -> {
+                    inspection.run();
+
+                    closed.set(true);
+
+                    for (KeyPad<T, S> keyPad : pads.values()) {
+                        close(keyPad.evict());
+                    }
+
+                    pads.clear();
+
+                    result.close();
+                },
+                () -> {
+                    boolean updated = false;
+
+                    for (KeyPad<T, S> keyPad : pads.values()) {
+                        updated |= keyPad.update();
+                    }
+
+                    return updated | result.update();
+                }
+            );
+        });
+    }
+
+    private static <T, K, S> Supplier<Operator> describe(
+        OSGi<T> program, Function<T, OSGi<K>> mapper,
+        BiFunction<K, OSGi<T>, OSGi<S>> fun) {
+
+        return () -> operator(
+            "splitBy", Collections.emptyMap(), program,
+            source -> new SplitByOSGiImpl<>(source, mapper, fun));
+    }
+
+    private static void close(Pad<?, ?> pad) {
+        if (pad != null) {
+            pad.close();
+        }
+    }
+
+    private static <T, K, S> OSGiResult publish(
+        ConcurrentHashMap<K, KeyPad<T, S>> pads, AtomicBoolean closed, K k,
+        T t, Supplier<Pad<T, S>> padFactory) {
+
+        KeyPad<T, S> keyPad;
+
+        while (true) {
+            if (closed.get()) {
+                return NOOP;
+            }
+
+            keyPad = pads.computeIfAbsent(k, __ -> new KeyPad<>());
+
+            try {
+                if (keyPad.acquire(padFactory)) {
+                    break;
+                }
+            }
+            catch (Exception e) {
+                pads.remove(k, keyPad);
+
+                throw e;
+            }
+
+            pads.remove(k, keyPad);
+        }
+
+        KeyPad<T, S> acquired = keyPad;
+
+        OSGiResult result;
+
+        try {
+            result = acquired.publish(t, closed);
+        }
+        catch (Exception e) {
+            release(pads, k, acquired);
+
+            throw e;
+        }
+
+        if (result == null) {
+            release(pads, k, acquired);
+
+            return NOOP;
+        }
+
+        return new OSGiResultImpl(
+            () -> {
+                try {
+                    result.close();
+                }
+                finally {
+                    release(pads, k, acquired);
+                }
+            },
+            result::update
+        );
+    }
+
+    private static <T, K, S> void release(
+        ConcurrentHashMap<K, KeyPad<T, S>> pads, K k, KeyPad<T, S> keyPad) {
+
+        Pad<T, S> pad = keyPad.release();
+
+        if (pad != null) {
+            pads.remove(k, keyPad);
+
+            pad.close();
+        }
+    }
+
+    /**
+     * The pad of a key together with the number of elements published to
+     * it. Once evicted it can't be acquired again and the map entry has to be
+     * replaced.
+     *
+     * <p>The pad is created by the first element acquiring the key pad,
+     * without holding its monitor since it runs the program of the key, and
+     * the elements acquiring it in the meantime wait for it. Publishing runs
+     * the downstream of the key, so it doesn't hold the monitor either: an
+     * element published while the key pad is being evicted is closed right
+     * away instead of being left in a closed pad.</p>
+     */
+    private static class KeyPad<T, S> {
+
+        /**
+         * @return {@code false} if this key pad has already been evicted
+         */
+        boolean acquire(Supplier<Pad<T, S>> padFactory) {
+            synchronized (this) {
+                boolean interrupted = false;
+
+                while (_creating && !_evicted) {
+                    try {
+                        wait();
+                    }
+                    catch (InterruptedException ie) {
+                        interrupted = true;
+                    }
+                }
+
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+
+                if (_evicted) {
+                    return false;
+                }
+
+                if (_pad != null) {
+                    _count++;
+
+                    return true;
+                }
+
+                _creating = true;
+            }
+
+            Pad<T, S> pad;
+
+            try {
+                pad = padFactory.get();
+            }
+            catch (RuntimeException re) {
+                synchronized (this) {
+                    _creating = false;
+                    _evicted = true;
+
+                    notifyAll();
+                }
+
+                throw re;
+            }
+
+            synchronized (this) {
+                _creating = false;
+
+                notifyAll();
+
+                if (!_evicted) {
+                    _pad = pad;
+
+                    _count++;
+
+                    return true;
+                }
+            }
+
+            pad.close();
+
+            return false;
+        }
+
+        /**
+         * @return the pad to close if the key pad was not evicted yet
+         */
+        synchronized Pad<T, S> evict() {
+            if (_evicted) {
+                return null;
+            }
+
+            _evicted = true;
+
+            notifyAll();
+
+            return _pad;
+        }
+
+        /**
+         * @return the result of the publication, or {@code null} if the key
+         *         pad has been evicted or the program closed
+         */
+        OSGiResult publish(T t, AtomicBoolean closed) {
+            Pad<T, S> pad;
+
+            synchronized (this) {
+                if (_evicted || closed.get()) {
+                    return null;
+                }
+
+                pad = _pad;
+            }
+
+            OSGiResult result = pad.publish(t);
+
+            synchronized (this) {
+                if (!_evicted && !closed.get()) {
+                    return result;
+                }
+            }
+
+            result.close();
+
+            return null;
+        }
+
+        /**
+         * @return the pad to close if this was its last element
+         */
+        synchronized Pad<T, S> release() {
+            if (_evicted || --_count > 0) {
+                return null;
+            }
+
+            _evicted = true;
+
+            return _pad;
+        }
+
+        boolean update() {
+            Pad<T, S> pad = _pad;
+
+            if (pad == null || _evicted) {
+                return false;
+            }
+
+            return pad.update();
+        }
+
+        private int _count;
+        private boolean _creating;
+        private volatile boolean _evicted;
+        private volatile Pad<T, S> _pad;
+
+    }
+
+}
@@ -19,8 +19,7 @@ package org.apache.aries.component.dsl.internal;
 
 import org.apache.aries.component.dsl.OSGiResult;
 
-import java.util.Deque;
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.function.Supplier;
 
 /**
@@ -28,20 +27,15 @@ import java.util.function.Supplier;
  */
 public class UpdateSupport {
 
-    private static final ThreadLocal<Deque<Deque<Runnable>>>
-        deferredPublishersStack = ThreadLocal.withInitial(LinkedList::new);
-    private static final ThreadLocal<Deque<Deque<Runnable>>>
-        deferredTerminatorsStack = ThreadLocal.withInitial(LinkedList::new);
-    private static final ThreadLocal<Boolean> isUpdate =
-        ThreadLocal.withInitial(() -> Boolean.FALSE);
-
     public static boolean isUpdate() {
-        return isUpdate.get();
+        return frame.get()._update;
     }
 
     public static void deferPublication(Runnable runnable) {
-        if (isUpdate.get()) {
-            deferredPublishersStack.get().peekLast().addLast(runnable);
+        Frame current = frame.get();
+
+        if (current._update) {
+            current._publishers.peek().add(runnable);
         }
         else {
             runnable.run();
@@ -49,8 +43,10 @@ public class UpdateSupport {
     }
 
     public static void deferTermination(Runnable runnable) {
-        if (isUpdate.get()) {
-            deferredTerminatorsStack.get().peekLast().addLast(runnable);
+        Frame current = frame.get();
+
+        if (current._update) {
+            current._terminators.peek().add(runnable);
         }
         else {
             runnable.run();
@@ -66,38 +62,154 @@ public class UpdateSupport {
     }
 
     public static <R> R runInUpdate(Supplier<R> supplier) {
-        isUpdate.set(true);
+        Frame current = frame.get();
+
+        current._update = true;
 
-        Deque<Deque<Runnable>> deferredPublishers =
-            deferredPublishersStack.get();
-        Deque<Deque<Runnable>> deferredTerminators =
-            deferredTerminatorsStack.get();
+        current._publishers.push();
+        current._terminators.push();
 
-        deferredPublishers.addLast(new LinkedList<>());
-        deferredTerminators.addLast(new LinkedList<>());
+        Object event = FlightRecorderSupport.beginUpdate();
 
         try {
             return supplier.get();
         }
         finally {
-            isUpdate.set(false);
+            current._update = false;
+
+            Buffer publishers = null;
+
+            try {
+                current._terminators.pop().runAll();
+
+                publishers = current._publishers.pop();
+
+                publishers.runAll();
+            }
+            finally {
+                if (publishers == null) {
+                    current._publishers.pop().clear();
+                }
+
+                current._update = !current._terminators.isEmpty();
+
+                FlightRecorderSupport.endUpdate(event);
+            }
+        }
+    }
+
+    private static final ThreadLocal<Frame> frame =
+        ThreadLocal.withInitial(Frame::new);
+
+    /**
+     * The update state of a thread. The buffers of every nesting level are
+     * kept and reused by later updates, so that once a thread has reached its
+     * usual nesting depth running an update allocates nothing.
+     */
+    private static class Frame {
+
+        private final BufferStack _publishers = new BufferStack();
+        private final BufferStack _terminators = new BufferStack();
+        private boolean _update;
+
+    }
+
+    private static class BufferStack {
+
+        boolean isEmpty() {
+            return _size == 0;
+        }
+
+        Buffer peek() {
+            return _buffers[_size - 1];
+        }
+
+        /**
+         * Takes the top buffer out of the stack, so that it can be run while
+         * updates nested in its actions push buffers of their own in its
+         * place. It goes back to its slot once run or, when one of those
+         * nested updates has left a buffer there already, is kept aside for
+         * the next push that finds its slot empty.
+         */
+        Buffer pop() {
+            Buffer buffer = _buffers[--_size];
 
-            Deque<Runnable> terminators =
-                deferredTerminatorsStack.get().removeLast();
+            _buffers[_size] = null;
 
-            for (Runnable terminator : terminators) {
-                terminator.run();
+            buffer._slot = _size;
+            buffer._stack = this;
+
+            return buffer;
+        }
+
+        void push() {
+            if (_size == _buffers.length) {
+                _buffers = Arrays.copyOf(_buffers, _size * 2);
             }
 
-            Deque<Runnable> publishers =
-                deferredPublishersStack.get().removeLast();
+            if (_buffers[_size] == null) {
+                if (_spare != null) {
+                    _buffers[_size] = _spare;
 
-            for (Runnable publisher : publishers) {
-                publisher.run();
+                    _spare = null;
+                }
+                else {
+                    _buffers[_size] = new Buffer();
+                }
             }
 
-            isUpdate.set(!deferredTerminators.isEmpty());
+            _size++;
+        }
+
+        void release(Buffer buffer) {
+            if (_buffers[buffer._slot] == null) {
+                _buffers[buffer._slot] = buffer;
+            }
+            else {
+                _spare = buffer;
+            }
         }
+
+        private Buffer[] _buffers = new Buffer[4];
+        private int _size;
+        private Buffer _spare;
+
+    }
+
+    private static class Buffer {
+
+        void add(Runnable runnable) {
+            if (_size == _runnables.length) {
+                _runnables = Arrays.copyOf(_runnables, _size * 2);
+            }
+
+            _runnables[_size++] = runnable;
+        }
+
+        void clear() {
+            Arrays.fill(_runnables, 0, _size, null);
+
+            _size = 0;
+
+            _stack.release(this);
+        }
+
+        void runAll() {
+            try {
+                for (int i = 0; i < _size; i++) {
+                    _runnables[i].run();
+                }
+            }
+            finally {
+                clear();
+            }
+        }
+
+        private Runnable[] _runnables = new Runnable[8];
+        private int _size;
+        private int _slot;
+        private BufferStack _stack;
+
     }
 
 }
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of latencies in nanoseconds. Latencies are counted in buckets
+ * whose bounds are powers of two, so percentiles are reported as the upper
+ * bound of the bucket they fall in, which is at most twice the real value.
+ * Recording does not lock, and allocates the buckets the first time only, so
+ * that the many histograms nobody records in stay small.
+ */
+public final class Histogram {
+
+    public long getCount() {
+        return _count.sum();
+    }
+
+    public long getMaxNanos() {
+        return _max.get();
+    }
+
+    public double getMeanNanos() {
+        long count = getCount();
+
+        if (count == 0) {
+            return 0;
+        }
+
+        return (double)getTotalNanos() / count;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the upper bound of the bucket the percentile falls in, never
+     *         more than {@link #getMaxNanos()}, or 0 if nothing was recorded
+     */
+    public long getPercentileNanos(double percentile) {
+        if ((percentile < 0) || (percentile > 100)) {
+            throw new IllegalArgumentException(
+                "Percentile out of range: " + percentile);
+        }
+
+        AtomicLongArray buckets = _buckets;
+
+        if (buckets == null) {
+            return 0;
+        }
+
+        long count = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            count += buckets.get(i);
+        }
+
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = (long)Math.ceil(count * percentile / 100);
+        long seen = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+
+            if ((seen >= rank) && (seen > 0)) {
+                return Math.min(upperBound(i), getMaxNanos());
+            }
+        }
+
+        return getMaxNanos();
+    }
+
+    public long getTotalNanos() {
+        return _total.sum();
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+
+        AtomicLongArray buckets = _buckets;
+
+        if (buckets == null) {
+            _bucketsUpdater.compareAndSet(
+                this, null, new AtomicLongArray(BUCKETS));
+
+            buckets = _buckets;
+        }
+
+        buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(nanos));
+        _count.increment();
+        _max.accumulate(nanos);
+        _total.add(nanos);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "count=%d mean=%.0fns p50=%dns p99=%dns max=%dns", getCount(),
+            getMeanNanos(), getPercentileNanos(50), getPercentileNanos(99),
+            getMaxNanos());
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket >= BUCKETS - 1) {
+            return Long.MAX_VALUE;
+        }
+
+        return (1L << bucket) - 1;
+    }
+
+    private static final int BUCKETS = 65;
+
+    private static final AtomicReferenceFieldUpdater<Histogram, AtomicLongArray>
+        _bucketsUpdater = AtomicReferenceFieldUpdater.newUpdater(
+            Histogram.class, AtomicLongArray.class, "_buckets");
+
+    private volatile AtomicLongArray _buckets;
+    private final LongAdder _count = new LongAdder();
+    private final LongAccumulator _max = new LongAccumulator(Math::max, 0);
+    private final LongAdder _total = new LongAdder();
+
+}
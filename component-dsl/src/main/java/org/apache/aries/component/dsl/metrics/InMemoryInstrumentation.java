@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.metrics;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.graph.ProgramGraph;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * An {@link Instrumentation} keeping the {@link OperatorMetrics} of every
+ * operator instance in memory, for as long as the instance is referenced.
+ *
+ * <pre>
+ * InMemoryInstrumentation instrumentation = new InMemoryInstrumentation();
+ *
+ * program.run(
+ *     new ExecutionContext(bundleContext, null, instrumentation));
+ *
+ * instrumentation.getMetrics().forEach(System.out::println);
+ * </pre>
+ */
+public class InMemoryInstrumentation implements Instrumentation {
+
+    /**
+     * @return the metrics of every operator instance, the ones that took the
+     *         longest to publish first
+     */
+    public List<OperatorMetrics> getMetrics() {
+        List<OperatorMetrics> metrics;
+
+        synchronized (_metrics) {
+            metrics = new ArrayList<>(_metrics.values());
+        }
+
+        metrics.sort(
+            Comparator.comparingLong(
+                (OperatorMetrics operatorMetrics) ->
+                    operatorMetrics.getPublishLatency().getTotalNanos()
+            ).reversed());
+
+        return metrics;
+    }
+
+    /**
+     * @return the metrics of the operator instance, or {@code null} if it
+     *         has not run with this instrumentation
+     */
+    public OperatorMetrics getMetrics(OSGi<?> program) {
+        synchronized (_metrics) {
+            return _metrics.get(program);
+        }
+    }
+
+    @Override
+    public OperatorMetrics recorder(OSGi<?> program) {
+        synchronized (_metrics) {
+            return _metrics.computeIfAbsent(
+                program,
+                __ -> new OperatorMetrics(ProgramGraph.operatorOf(program)));
+        }
+    }
+
+    private final Map<OSGi<?>, OperatorMetrics> _metrics = new WeakHashMap<>();
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.metrics;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.OSGiRunnable.ExecutionContext;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Records what the operators of a program do while it runs. It is given to
+ * the {@link ExecutionContext} the program runs with, and every operator
+ * asks it for the {@link Recorder} of the elements it publishes.
+ *
+ * <p>Programs run without one are not instrumented and pay nothing for
+ * it.</p>
+ *
+ * @see InMemoryInstrumentation
+ */
+public interface Instrumentation {
+
+    /**
+     * Called by the operators keeping state of their own, like the pads of
+     * {@code splitBy} or the element ranked highest by {@code highest}, every
+     * time they run, so that the state of the run can be inspected while it
+     * lasts.
+     *
+     * @param program the operator instance that is running
+     * @param state returns a view of the state of the run. It can be called
+     *        from any thread.
+     * @return what the operator runs when the run is closed
+     */
+    default Runnable inspect(
+        OSGi<?> program, Supplier<Map<String, Object>> state) {
+
+        return () -> {};
+    }
+
+    /**
+     * Called when a program is run with this instrumentation through
+     * {@code run(ExecutionContext)}, and not by another operator, so that the programs running with it can
+     * be known without every caller reporting them.
+     *
+     * @param program the program that is about to run
+     * @return what is run when the program is closed
+     */
+    default Runnable running(OSGi<?> program) {
+        return () -> {};
+    }
+
+    /**
+     * @param program the operator instance that is about to run
+     * @return the recorder of the elements the program publishes
+     */
+    Recorder recorder(OSGi<?> program);
+
+}
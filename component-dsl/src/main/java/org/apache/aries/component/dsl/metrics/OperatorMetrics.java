@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.metrics;
+
+import org.apache.aries.component.dsl.graph.Operator;
+
+
+/**
+ * The metrics of an operator instance kept by an
+ * {@link InMemoryInstrumentation}.
+ */
+public final class OperatorMetrics implements Recorder {
+
+    public OperatorMetrics(Operator operator) {
+        _operator = operator;
+    }
+
+    @Override
+    public void closed(long nanos) {
+        _closeLatency.record(nanos);
+    }
+
+    public Histogram getCloseLatency() {
+        return _closeLatency;
+    }
+
+    /**
+     * @return the number of elements published and not closed yet
+     */
+    public long getLiveCount() {
+        return getPublishCount() - getTerminatorCount();
+    }
+
+    public Operator getOperator() {
+        return _operator;
+    }
+
+    public long getPublishCount() {
+        return _publishLatency.getCount();
+    }
+
+    public Histogram getPublishLatency() {
+        return _publishLatency;
+    }
+
+    /**
+     * @return the number of elements closed
+     */
+    public long getTerminatorCount() {
+        return _closeLatency.getCount();
+    }
+
+    public long getUpdateCount() {
+        return _updateLatency.getCount();
+    }
+
+    public Histogram getUpdateLatency() {
+        return _updateLatency;
+    }
+
+    @Override
+    public void published(long nanos) {
+        _publishLatency.record(nanos);
+    }
+
+    @Override
+    public String toString() {
+        return _operator + " published=" + getPublishCount() + " live=" +
+            getLiveCount() + " closed=" + getTerminatorCount() + " updated=" +
+            getUpdateCount() + " publish[" + _publishLatency + "] close[" +
+            _closeLatency + "] update[" + _updateLatency + "]";
+    }
+
+    @Override
+    public void updated(long nanos) {
+        _updateLatency.record(nanos);
+    }
+
+    private final Histogram _closeLatency = new Histogram();
+    private final Operator _operator;
+    private final Histogram _publishLatency = new Histogram();
+    private final Histogram _updateLatency = new Histogram();
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.metrics;
+
+/**
+ * Receives the events of the elements an operator publishes, together with
+ * how long the rest of the program, downstream of the operator, took to
+ * handle them. The time of an operator therefore includes the time of every
+ * operator after it, and the cost of an operator, like the callbacks of
+ * {@code effects}, shows up as the difference between the time of the
+ * operator before it and its own.
+ *
+ * <p>Recorders are called concurrently from any thread publishing
+ * elements.</p>
+ */
+public interface Recorder {
+
+    /**
+     * An element the operator published was closed.
+     */
+    void closed(long nanos);
+
+    /**
+     * The operator published an element.
+     */
+    void published(long nanos);
+
+    /**
+     * An element the operator published was updated.
+     */
+    void updated(long nanos);
+
+}
@@ -0,0 +1,268 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.metrics;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.OSGiRunnable.ExecutionContext;
+import org.apache.aries.component.dsl.graph.ProgramGraph;
+import org.osgi.framework.BundleContext;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * An {@link InMemoryInstrumentation} that knows the programs running with it
+ * and describes, at any time, what each of them is doing, as JSON.
+ *
+ * <p>Every program is described as the tree of its operators, as in
+ * {@link ProgramGraph}, where every operator has its metrics and the state
+ * of its runs: the live branches of a {@code flatMap}, the pads of a
+ * {@code splitBy}, the live elements of the pads of {@code choose} and
+ * {@code distribute}, the program {@code coalesce} is currently using and
+ * the element {@code highest} ranks highest. An operator shared by several
+ * others is described once, and referred to by its id afterwards.</p>
+ *
+ * <p>Programs opt in by running with it in their {@link ExecutionContext},
+ * and are described until they are closed. To look at the programs of a
+ * running framework, register it as a service:</p>
+ *
+ * <pre>
+ * TopologyInspector inspector = new TopologyInspector();
+ *
+ * inspector.register(bundleContext);
+ *
+ * program.run(new ExecutionContext(bundleContext, null, inspector));
+ * </pre>
+ */
+public class TopologyInspector extends InMemoryInstrumentation {
+
+    @Override
+    public Runnable inspect(
+        OSGi<?> program, Supplier<Map<String, Object>> state) {
+
+        Set<Supplier<Map<String, Object>>> states;
+
+        synchronized (_states) {
+            states = _states.computeIfAbsent(
+                program, __ -> ConcurrentHashMap.newKeySet());
+        }
+
+        states.add(state);
+
+        return () -> states.remove(state);
+    }
+
+    /**
+     * Registers this inspector as a {@link TopologyInspector} service, until
+     * the result is closed.
+     */
+    public OSGiResult register(BundleContext bundleContext) {
+        return OSGi.register(
+            TopologyInspector.class, this, new HashMap<>()
+        ).run(
+            bundleContext
+        );
+    }
+
+    @Override
+    public Runnable running(OSGi<?> program) {
+        _programs.add(program);
+
+        return () -> _programs.remove(program);
+    }
+
+    /**
+     * @return the description of the programs running with this inspector
+     *         and not closed yet, as a JSON object with a {@code programs}
+     *         array
+     */
+    public String snapshot() {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("{\"programs\":[");
+
+        Iterator<OSGi<?>> iterator = _programs.iterator();
+
+        while (iterator.hasNext()) {
+            ProgramGraph programGraph = ProgramGraph.of(iterator.next());
+
+            describe(
+                programGraph.getRoot(), sb,
+                Collections.newSetFromMap(new IdentityHashMap<>()));
+
+            if (iterator.hasNext()) {
+                sb.append(',');
+            }
+        }
+
+        sb.append("]}");
+
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return snapshot();
+    }
+
+    private static void json(Object value, StringBuilder sb) {
+        if ((value == null) || (value instanceof Number) ||
+            (value instanceof Boolean)) {
+
+            sb.append(value);
+        }
+        else if (value instanceof Map) {
+            sb.append('{');
+
+            Iterator<? extends Map.Entry<?, ?>> iterator =
+                ((Map<?, ?>)value).entrySet().iterator();
+
+            while (iterator.hasNext()) {
+                Map.Entry<?, ?> entry = iterator.next();
+
+                json(String.valueOf(entry.getKey()), sb);
+
+                sb.append(':');
+
+                json(entry.getValue(), sb);
+
+                if (iterator.hasNext()) {
+                    sb.append(',');
+                }
+            }
+
+            sb.append('}');
+        }
+        else if (value instanceof Collection) {
+            sb.append('[');
+
+            Iterator<?> iterator = ((Collection<?>)value).iterator();
+
+            while (iterator.hasNext()) {
+                json(iterator.next(), sb);
+
+                if (iterator.hasNext()) {
+                    sb.append(',');
+                }
+            }
+
+            sb.append(']');
+        }
+        else {
+            String string = value.toString();
+
+            sb.append('"');
+
+            for (int i = 0; i < string.length(); i++) {
+                char c = string.charAt(i);
+
+                if ((c == '"') || (c == '\\')) {
+                    sb.append('\\').append(c);
+                }
+                else if (c < 0x20) {
+                    sb.append(String.format("\\u%04x", (int)c));
+                }
+                else {
+                    sb.append(c);
+                }
+            }
+
+            sb.append('"');
+        }
+    }
+
+    private void describe(
+        ProgramGraph.Node node, StringBuilder sb,
+        Set<ProgramGraph.Node> described) {
+
+        sb.append("{\"id\":");
+        sb.append(node.getId());
+
+        if (!described.add(node)) {
+            sb.append(",\"shared\":true}");
+
+            return;
+        }
+
+        sb.append(",\"operator\":");
+        json(node.getOperator().getName(), sb);
+        sb.append(",\"attributes\":");
+        json(node.getOperator().getAttributes(), sb);
+
+        OperatorMetrics operatorMetrics = getMetrics(node.getProgram());
+
+        if (operatorMetrics != null) {
+            sb.append(",\"published\":");
+            sb.append(operatorMetrics.getPublishCount());
+            sb.append(",\"live\":");
+            sb.append(operatorMetrics.getLiveCount());
+            sb.append(",\"closed\":");
+            sb.append(operatorMetrics.getTerminatorCount());
+            sb.append(",\"updated\":");
+            sb.append(operatorMetrics.getUpdateCount());
+        }
+
+        Set<Supplier<Map<String, Object>>> states;
+
+        synchronized (_states) {
+            states = _states.get(node.getProgram());
+        }
+
+        if ((states != null) && !states.isEmpty()) {
+            List<Map<String, Object>> runs = new ArrayList<>();
+
+            for (Supplier<Map<String, Object>> state : states) {
+                runs.add(state.get());
+            }
+
+            sb.append(",\"runs\":");
+            json(runs, sb);
+        }
+
+        sb.append(",\"inputs\":[");
+
+        Iterator<ProgramGraph.Node> iterator = node.getInputs().iterator();
+
+        while (iterator.hasNext()) {
+            describe(iterator.next(), sb, described);
+
+            if (iterator.hasNext()) {
+                sb.append(',');
+            }
+        }
+
+        sb.append("]}");
+    }
+
+    private final List<OSGi<?>> _programs = new CopyOnWriteArrayList<>();
+    private final Map<OSGi<?>, Set<Supplier<Map<String, Object>>>> _states =
+        new WeakHashMap<>();
+
+}
@@ -19,10 +19,50 @@ package org.apache.aries.component.dsl.services;
 
 import org.apache.aries.component.dsl.CachingServiceReference;
 import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.internal.BatchingOSGiImpl;
 import org.apache.aries.component.dsl.internal.ServiceReferenceOSGi;
 
+import java.util.concurrent.TimeUnit;
+
 public interface ServiceReferences {
 
+    /**
+     * Tracks the references like {@link #withUpdate(Class)} but delivers
+     * the services appearing in a burst, like the ones registered while
+     * bundles are refreshed, in batches. A batch is published once no
+     * service has appeared for the window, or ten windows after the first
+     * one, and the operators accumulating the references, like
+     * {@code Utils.accumulate}, republish once per batch instead of once per
+     * reference.
+     *
+     * <p>The references present when the program starts are published
+     * right away, and references going away are retracted right away.</p>
+     */
+    static <T> OSGi<CachingServiceReference<T>> batched(
+        Class<T> clazz, long window, TimeUnit unit) {
+
+        return batched(clazz, null, window, unit);
+    }
+
+    /**
+     * @see #batched(Class, long, TimeUnit)
+     */
+    static OSGi<CachingServiceReference<Object>> batched(
+        String filterString, long window, TimeUnit unit) {
+
+        return batched(null, filterString, window, unit);
+    }
+
+    /**
+     * @see #batched(Class, long, TimeUnit)
+     */
+    static <T> OSGi<CachingServiceReference<T>> batched(
+        Class<T> clazz, String filterString, long window, TimeUnit unit) {
+
+        return new BatchingOSGiImpl<>(
+            new ServiceReferenceOSGi<>(clazz, filterString), window, unit);
+    }
+
     static <T> OSGi<CachingServiceReference<T>> withUpdate(
         Class<T> clazz) {
 
@@ -0,0 +1,361 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl;
+
+import org.apache.aries.component.dsl.test.framework.InMemoryConfigurationAdmin;
+import org.apache.aries.component.dsl.test.framework.InMemoryFramework;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleException;
+import org.osgi.framework.ServiceFactory;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.service.cm.Configuration;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.apache.aries.component.dsl.OSGi.bundles;
+import static org.apache.aries.component.dsl.OSGi.configuration;
+import static org.apache.aries.component.dsl.OSGi.configurations;
+import static org.apache.aries.component.dsl.OSGi.register;
+import static org.apache.aries.component.dsl.OSGi.serviceReferences;
+import static org.apache.aries.component.dsl.OSGi.services;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the OSGi backed programs of the DSL on top of the in-memory
+ * framework, which also checks the stand-in behaves like a real framework
+ * where the DSL relies on it.
+ */
+public class InMemoryFrameworkTest {
+
+    @Before
+    public void setUp() {
+        _framework = new InMemoryFramework();
+        _bundleContext = _framework.getBundleContext();
+    }
+
+    @Test
+    public void testBundles() throws BundleException {
+        List<String> active = new ArrayList<>();
+
+        Bundle bundle = _framework.installBundle("test.bundle");
+
+        try (OSGiResult result =
+                 bundles(Bundle.ACTIVE).run(
+                     _bundleContext,
+                     b -> {
+                         active.add(b.getSymbolicName());
+
+                         return () -> active.remove(b.getSymbolicName());
+                     })) {
+
+            assertEquals(Collections.singletonList("system.bundle"), active);
+
+            bundle.start();
+
+            assertEquals(
+                Arrays.asList("system.bundle", "test.bundle"),
+                active);
+
+            bundle.stop();
+
+            assertEquals(Collections.singletonList("system.bundle"), active);
+        }
+    }
+
+    @Test
+    public void testConfiguration() throws Exception {
+        InMemoryConfigurationAdmin configurationAdmin =
+            new InMemoryConfigurationAdmin(_bundleContext);
+
+        configurationAdmin.open();
+
+        List<Object> values = new ArrayList<>();
+
+        try (OSGiResult result =
+                 configuration("test.configuration").run(
+                     _bundleContext,
+                     properties -> {
+                         values.add(properties.get("key"));
+
+                         return () -> values.remove(properties.get("key"));
+                     })) {
+
+            assertTrue(values.isEmpty());
+
+            Configuration configuration = configurationAdmin.getConfiguration(
+                "test.configuration");
+
+            configuration.update(properties("key", "first"));
+
+            assertEquals(Collections.singletonList("first"), values);
+
+            configuration.update(properties("key", "second"));
+
+            assertEquals(Collections.singletonList("second"), values);
+
+            configuration.delete();
+
+            assertTrue(values.isEmpty());
+        }
+        finally {
+            configurationAdmin.close();
+        }
+    }
+
+    @Test
+    public void testConfigurationUpdatedWhilePublished() throws Exception {
+        InMemoryConfigurationAdmin configurationAdmin =
+            new InMemoryConfigurationAdmin(_bundleContext);
+
+        configurationAdmin.open();
+
+        Configuration configuration = configurationAdmin.getConfiguration(
+            "test.configuration");
+
+        configuration.update(properties("key", "first"));
+
+        List<Object> values = new ArrayList<>();
+
+        long start = System.nanoTime();
+
+        try (OSGiResult result =
+                 configuration("test.configuration").run(
+                     _bundleContext,
+                     properties -> {
+                         values.add(properties.get("key"));
+
+                         if ("first".equals(properties.get("key"))) {
+                             try {
+                                 configuration.update(
+                                     properties("key", "second"));
+                             }
+                             catch (IOException ioe) {
+                                 throw new RuntimeException(ioe);
+                             }
+                         }
+
+                         return () -> values.remove(properties.get("key"));
+                     })) {
+
+            // the event is delivered on the thread running the program,
+            // which must not wait for itself
+
+            assertEquals(Collections.singletonList("second"), values);
+            assertTrue(
+                System.nanoTime() - start < TimeUnit.SECONDS.toNanos(30));
+        }
+        finally {
+            configurationAdmin.close();
+        }
+    }
+
+    @Test
+    public void testConfigurations() throws Exception {
+        InMemoryConfigurationAdmin configurationAdmin =
+            new InMemoryConfigurationAdmin(_bundleContext);
+
+        configurationAdmin.open();
+
+        Configuration existing = configurationAdmin.createFactoryConfiguration(
+            "test.factory");
+
+        existing.update(properties("key", "existing"));
+
+        List<Object> values = new ArrayList<>();
+
+        try (OSGiResult result =
+                 configurations("test.factory").run(
+                     _bundleContext,
+                     properties -> {
+                         values.add(properties.get("key"));
+
+                         return () -> values.remove(properties.get("key"));
+                     })) {
+
+            assertEquals(Collections.singletonList("existing"), values);
+
+            Configuration created =
+                configurationAdmin.getFactoryConfiguration(
+                    "test.factory", "created");
+
+            created.update(properties("key", "created"));
+
+            assertEquals(
+                Arrays.asList("existing", "created"), values);
+
+            existing.delete();
+
+            assertEquals(Collections.singletonList("created"), values);
+        }
+
+        assertTrue(values.isEmpty());
+
+        configurationAdmin.close();
+    }
+
+    @Test
+    public void testRegister() {
+        AtomicInteger gets = new AtomicInteger();
+        AtomicInteger ungets = new AtomicInteger();
+
+        ServiceFactory<Service> serviceFactory = new ServiceFactory<Service>() {
+
+            @Override
+            public Service getService(
+                Bundle bundle, ServiceRegistration<Service> registration) {
+
+                gets.incrementAndGet();
+
+                return new Service();
+            }
+
+            @Override
+            public void ungetService(
+                Bundle bundle, ServiceRegistration<Service> registration,
+                Service service) {
+
+                ungets.incrementAndGet();
+            }
+
+        };
+
+        List<Service> services = new ArrayList<>();
+
+        try (OSGiResult tracking =
+                 services(Service.class).run(
+                     _bundleContext,
+                     service -> {
+                         services.add(service);
+
+                         return () -> services.remove(service);
+                     })) {
+
+            OSGiResult registration = register(
+                Service.class, serviceFactory, Collections.emptyMap()
+            ).run(
+                _bundleContext
+            );
+
+            assertEquals(1, services.size());
+            assertEquals(1, gets.get());
+
+            registration.close();
+
+            assertTrue(services.isEmpty());
+            assertEquals(1, ungets.get());
+        }
+    }
+
+    @Test
+    public void testServiceReferencesWithFilter() {
+        ServiceRegistration<Service> serviceRegistration =
+            _bundleContext.registerService(
+                Service.class, new Service(), properties("admissible", "true"));
+
+        List<Object> tracked = new ArrayList<>();
+
+        try (OSGiResult result =
+                 serviceReferences(Service.class, "(admissible=true)").run(
+                     _bundleContext,
+                     csr -> {
+                         tracked.add(csr);
+
+                         return () -> tracked.remove(csr);
+                     })) {
+
+            assertEquals(1, tracked.size());
+
+            serviceRegistration.setProperties(properties("admissible", "false"));
+
+            assertTrue(tracked.isEmpty());
+
+            serviceRegistration.setProperties(properties("admissible", "true"));
+
+            assertEquals(1, tracked.size());
+        }
+        finally {
+            serviceRegistration.unregister();
+        }
+
+        assertTrue(tracked.isEmpty());
+    }
+
+    @Test
+    public void testStoppingABundleUnregistersItsServices()
+        throws BundleException {
+
+        Bundle bundle = _framework.installBundle("test.bundle");
+
+        bundle.start();
+
+        List<Service> services = new ArrayList<>();
+
+        try (OSGiResult result =
+                 services(Service.class).run(
+                     _bundleContext,
+                     service -> {
+                         services.add(service);
+
+                         return () -> services.remove(service);
+                     })) {
+
+            register(
+                Service.class, new Service(), Collections.emptyMap()
+            ).run(
+                bundle.getBundleContext()
+            );
+
+            assertEquals(1, services.size());
+
+            bundle.stop();
+
+            assertTrue(services.isEmpty());
+            assertNull(bundle.getBundleContext());
+        }
+    }
+
+    private static Dictionary<String, Object> properties(
+        String key, Object value) {
+
+        Hashtable<String, Object> properties = new Hashtable<>();
+
+        properties.put(key, value);
+
+        return properties;
+    }
+
+    private BundleContext _bundleContext;
+    private InMemoryFramework _framework;
+
+    private static class Service {
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.graph;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.test.framework.InMemoryFramework;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ProgramGraphTest {
+
+    @Test
+    public void testSharedProgramsAreOneNode() {
+        OSGi<String> shared = OSGi.just("a");
+
+        ProgramGraph graph = ProgramGraph.of(
+            OSGi.all(
+                shared.map(String::toUpperCase),
+                shared.filter(s -> !s.isEmpty()).map(s -> s + s)));
+
+        assertEquals(4, graph.size());
+        assertEquals(3, graph.getDepth());
+        assertEquals("all", graph.getRoot().getOperator().getName());
+        assertSame(graph.getRoot(), graph.getNodes().get(3));
+
+        Map<String, Integer> counts = new HashMap<>();
+
+        counts.put("all", 1);
+        counts.put("fused", 2);
+        counts.put("just", 1);
+
+        assertEquals(counts, graph.getOperatorCounts());
+
+        assertEquals(
+            "#0 all\n" +
+            "  #1 fused {stages=[map]}\n" +
+            "    #2 just\n" +
+            "  #3 fused {stages=[filter, map]}\n" +
+            "    #2 just (shared)\n",
+            graph.dump());
+    }
+
+    @Test
+    public void testOperatorsKeepTheirAttributes() {
+        ProgramGraph graph = ProgramGraph.of(
+            OSGi.serviceReferences(Runnable.class, "(key=value)").flatMap(
+                reference -> OSGi.configuration("pid")));
+
+        ProgramGraph.Node flatMap = graph.getRoot();
+
+        assertEquals("flatMap", flatMap.getOperator().getName());
+
+        ProgramGraph.Node refreshWhen = flatMap.getInputs().get(0);
+
+        assertEquals("refreshWhen", refreshWhen.getOperator().getName());
+
+        Operator serviceReferences =
+            refreshWhen.getInputs().get(0).getOperator();
+
+        assertEquals("serviceReferences", serviceReferences.getName());
+        assertEquals(
+            "java.lang.Runnable",
+            serviceReferences.getAttributes().get("class"));
+        assertEquals(
+            "(key=value)", serviceReferences.getAttributes().get("filter"));
+    }
+
+    @Test
+    public void testRewrite() {
+        OSGi<Integer> program = OSGi.combine(
+            (a, b) -> a + b, OSGi.just(1), OSGi.just(2).map(i -> i * 10));
+
+        assertSame(program, ProgramGraph.rewrite(program, p -> p));
+
+        OSGi<Integer> rewritten = ProgramGraph.rewrite(
+            program,
+            p -> "just".equals(ProgramGraph.operatorOf(p).getName()) ?
+                OSGi.just(3) : p);
+
+        assertEquals(Arrays.asList(33), run(rewritten));
+        assertEquals(Arrays.asList(21), run(program));
+    }
+
+    private static <T> List<T> run(OSGi<T> program) {
+        List<T> values = new ArrayList<>();
+
+        OSGiResult result = program.foreach(values::add).run(
+            new InMemoryFramework().getBundleContext());
+
+        result.close();
+
+        return values;
+    }
+
+}
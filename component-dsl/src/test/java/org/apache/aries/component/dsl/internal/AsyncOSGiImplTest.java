@@ -0,0 +1,413 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.OSGiRunnable.ExecutionContext;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncOSGiImplTest {
+
+    @Test
+    public void testEventsKeepTheirOrder() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+        try {
+            ProbeImpl<Integer> probe = new ProbeImpl<>();
+
+            List<String> events = Collections.synchronizedList(
+                new ArrayList<>());
+            CountDownLatch last = new CountDownLatch(1);
+
+            OSGiResult result = probe.async().effects(
+                i -> {
+                    events.add("+" + i);
+
+                    if (i == 1000) {
+                        last.countDown();
+                    }
+                },
+                i -> events.add("-" + i)
+            ).run(new ExecutionContext(null, executorService));
+
+            List<String> expected = new ArrayList<>();
+
+            for (int i = 0; i <= 1000; i++) {
+                OSGiResult published = probe.getPublisher().publish(i);
+
+                if (i % 3 == 0 && i != 1000) {
+                    published.close();
+                }
+                else {
+                    expected.add("+" + i);
+                }
+            }
+
+            assertTrue(last.await(30, TimeUnit.SECONDS));
+
+            // An element closed before its publication ran is skipped, any
+            // other has to be removed right after being published
+
+            List<String> surviving = new ArrayList<>();
+
+            for (int i = 0; i < events.size(); i++) {
+                String event = events.get(i);
+
+                if (event.startsWith("-")) {
+                    assertEquals("+" + event.substring(1), events.get(i - 1));
+
+                    surviving.remove(surviving.size() - 1);
+                }
+                else {
+                    surviving.add(event);
+                }
+            }
+
+            assertEquals(expected, surviving);
+
+            result.close();
+        }
+        finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testParallelElementsDoNotWaitForEachOther()
+        throws Exception {
+
+        ProbeImpl<Integer> probe = new ProbeImpl<>();
+
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch second = new CountDownLatch(1);
+
+        OSGiResult result = probe.parallel().effects(
+            i -> {
+                if (i == 1) {
+                    try {
+                        blocked.await();
+                    }
+                    catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                else {
+                    second.countDown();
+                }
+            },
+            __ -> {}
+        ).run(
+            new ExecutionContext(
+                null, ExecutionContext.threadPerTaskExecutor()));
+
+        probe.getPublisher().publish(1);
+        probe.getPublisher().publish(2);
+
+        try {
+            assertTrue(second.await(30, TimeUnit.SECONDS));
+        }
+        finally {
+            blocked.countDown();
+
+            result.close();
+        }
+    }
+
+    @Test
+    public void testParallelRepublicationFollowsTheRemoval() throws Exception {
+        ProbeImpl<Integer> probe = new ProbeImpl<>();
+
+        List<String> events = Collections.synchronizedList(
+            new ArrayList<>());
+        CountDownLatch republished = new CountDownLatch(1);
+
+        probe.parallel().effects(
+            i -> {
+                events.add("+" + i);
+
+                if (i == 2) {
+                    republished.countDown();
+                }
+            },
+            i -> {
+                try {
+                    Thread.sleep(50);
+                }
+                catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+
+                events.add("-" + i);
+            }
+        ).run(
+            new ExecutionContext(
+                null, ExecutionContext.threadPerTaskExecutor()));
+
+        OSGiResult first = probe.getPublisher().publish(1);
+
+        awaitSize(events, 1);
+
+        UpdateSupport.runUpdate(() -> {
+            first.close();
+
+            probe.getPublisher().publish(2);
+        });
+
+        assertTrue(republished.await(30, TimeUnit.SECONDS));
+
+        assertEquals(Arrays.asList("+1", "-1", "+2"), events);
+    }
+
+    @Test
+    public void testPublicationFailuresReachTheExecutor() throws Exception {
+        List<Throwable> failures = Collections.synchronizedList(
+            new ArrayList<>());
+
+        ProbeImpl<Integer> probe = new ProbeImpl<>();
+
+        List<Integer> published = Collections.synchronizedList(
+            new ArrayList<>());
+
+        probe.async().run(
+            new ExecutionContext(
+                null,
+                runnable -> {
+                    Thread thread = new Thread(runnable);
+
+                    thread.setUncaughtExceptionHandler(
+                        (__, throwable) -> failures.add(throwable));
+
+                    thread.start();
+                }),
+            i -> {
+                if (i == 1) {
+                    throw new IllegalStateException();
+                }
+
+                published.add(i);
+
+                return OSGi.NOOP;
+            });
+
+        probe.getPublisher().publish(1);
+        probe.getPublisher().publish(2);
+
+        awaitSize(failures, 1);
+        awaitSize(published, 1);
+
+        assertTrue(failures.get(0) instanceof IllegalStateException);
+        assertEquals(Collections.singletonList(2), published);
+    }
+
+    @Test
+    public void testPublishesOnTheExecutor() throws Exception {
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+        try {
+            ProbeImpl<Integer> probe = new ProbeImpl<>();
+
+            CountDownLatch blocked = new CountDownLatch(1);
+            List<Thread> threads = Collections.synchronizedList(
+                new ArrayList<>());
+
+            probe.async(executorService).effects(
+                __ -> {
+                    threads.add(Thread.currentThread());
+
+                    try {
+                        blocked.await();
+                    }
+                    catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                    }
+                },
+                __ -> {}
+            ).run(new ExecutionContext(null));
+
+            probe.getPublisher().publish(1);
+            probe.getPublisher().publish(2);
+
+            blocked.countDown();
+
+            awaitSize(threads, 2);
+
+            assertEquals(2, threads.size());
+            assertNotSame(Thread.currentThread(), threads.get(0));
+        }
+        finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSynchronousWithoutExecutor() {
+        ProbeImpl<Integer> probe = new ProbeImpl<>();
+
+        List<Thread> threads = new ArrayList<>();
+
+        probe.async().effects(
+            __ -> threads.add(Thread.currentThread()), __ -> {}
+        ).run(new ExecutionContext(null));
+
+        probe.getPublisher().publish(1);
+
+        assertEquals(1, threads.size());
+        assertSame(Thread.currentThread(), threads.get(0));
+    }
+
+    @Test
+    public void testUpdatesRunOnTheLane() throws Exception {
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+        try {
+            ProbeImpl<Integer> probe = new ProbeImpl<>();
+
+            List<String> events = Collections.synchronizedList(
+                new ArrayList<>());
+
+            probe.async().effects(
+                i -> events.add("+" + i), __ -> {}, __ -> {},
+                i -> events.add("-" + i), i -> events.add("~" + i)
+            ).run(new ExecutionContext(null, executorService));
+
+            OSGiResult published = probe.getPublisher().publish(1);
+
+            assertFalse(published.update());
+
+            awaitSize(events, 2);
+
+            assertEquals(Arrays.asList("+1", "~1"), events);
+
+            published.close();
+
+            assertFalse(published.update());
+
+            awaitSize(events, 3);
+
+            assertEquals(Arrays.asList("+1", "~1", "-1"), events);
+        }
+        finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testUpdatesRepublishWhenDownstreamAsks() throws Exception {
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+        try {
+            ProbeImpl<Integer> probe = new ProbeImpl<>();
+
+            List<String> events = Collections.synchronizedList(
+                new ArrayList<>());
+
+            probe.async().run(
+                new ExecutionContext(null, executorService),
+                i -> {
+                    events.add("+" + i);
+
+                    return new OSGiResultImpl(
+                        () -> events.add("-" + i), () -> true);
+                });
+
+            OSGiResult published = probe.getPublisher().publish(1);
+
+            assertFalse(published.update());
+
+            awaitSize(events, 3);
+
+            assertEquals(Arrays.asList("+1", "-1", "+1"), events);
+        }
+        finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testUpdatesInPlaceRunOnUpdateOnce() throws Exception {
+        List<String> events = runUpdate(false);
+
+        assertEquals(Arrays.asList("add1", "onUpdate1"), events);
+    }
+
+    @Test
+    public void testUpdatesRepublishingSkipOnUpdate() throws Exception {
+        List<String> events = runUpdate(true);
+
+        assertEquals(Arrays.asList("add1", "rem1", "add1"), events);
+    }
+
+    private static void awaitSize(List<?> list, int size)
+        throws InterruptedException {
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+
+        while (list.size() < size && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static List<String> runUpdate(boolean republish)
+        throws Exception {
+
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+        try {
+            ProbeImpl<Integer> probe = new ProbeImpl<>();
+
+            List<String> events = Collections.synchronizedList(
+                new ArrayList<>());
+
+            probe.async().effects(
+                i -> events.add("add" + i), i -> {},
+                i -> events.add("rem" + i), i -> {},
+                i -> events.add("onUpdate" + i)
+            ).run(
+                new ExecutionContext(null, executorService),
+                i -> new OSGiResultImpl(() -> {}, () -> republish));
+
+            OSGiResult published = probe.getPublisher().publish(1);
+
+            assertFalse(UpdateSupport.sendUpdate(published));
+
+            executorService.submit(() -> {}).get(30, TimeUnit.SECONDS);
+
+            return events;
+        }
+        finally {
+            executorService.shutdownNow();
+        }
+    }
+
+}
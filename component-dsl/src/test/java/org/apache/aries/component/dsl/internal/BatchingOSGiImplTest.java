@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.aries.component.dsl.internal;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.Utils;
+import org.apache.aries.component.dsl.test.framework.InMemoryFramework;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.aries.component.dsl.services.ServiceReferences.batched;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BatchingOSGiImplTest {
+
+    @Test
+    public void testABurstIsAccumulatedOnce() throws InterruptedException {
+        _bundleContext.registerService(
+            Service.class, new Service(), new Hashtable<>());
+
+        List<Integer> sizes = new CopyOnWriteArrayList<>();
+
+        OSGiResult result = Utils.accumulate(
+            batched(Service.class, 200, TimeUnit.MILLISECONDS)
+        ).run(
+            _bundleContext,
+            list -> {
+                sizes.add(list.size());
+
+                return OSGi.NOOP;
+            });
+
+        assertEquals(Arrays.asList(0, 1), sizes);
+
+        List<ServiceRegistration<Service>> registrations = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            registrations.add(
+                _bundleContext.registerService(
+                    Service.class, new Service(), new Hashtable<>()));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+        while (last(sizes) < 101 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(101, last(sizes));
+        assertTrue(sizes.toString(), sizes.size() < 6);
+
+        int published = sizes.size();
+
+        registrations.get(0).unregister();
+
+        assertEquals(published + 1, sizes.size());
+        assertEquals(100, last(sizes));
+
+        result.close();
+    }
+
+    @Test
+    public void testAServiceGoneBeforeTheBatchIsNeverPublished() {
+        List<Object> events = new ArrayList<>();
+
+        OSGiResult result =
+            batched(Service.class, 1, TimeUnit.MINUTES).effects(
+                events::add, events::add
+            ).run(_bundleContext);
+
+        _bundleContext.registerService(
+            Service.class, new Service(), new Hashtable<>()
+        ).unregister();
+
+        result.close();
+
+        assertEquals(0, events.size());
+    }
+
+    @Test
+    public void testBatchesAreNotPublishedOnTheScheduler()
+        throws InterruptedException {
+
+        List<String> threads = new CopyOnWriteArrayList<>();
+
+        OSGiResult result =
+            batched(Service.class, 10, TimeUnit.MILLISECONDS).effects(
+                __ -> threads.add(Thread.currentThread().getName()), __ -> {}
+            ).run(_bundleContext);
+
+        _bundleContext.registerService(
+            Service.class, new Service(), new Hashtable<>());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+        while (threads.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        result.close();
+
+        assertEquals(1, threads.size());
+        assertNotEquals("Aries Component DSL Scheduler", threads.get(0));
+    }
+
+    private static int last(List<Integer> sizes) {
+        return sizes.get(sizes.size() - 1);
+    }
+
+    private final BundleContext _bundleContext =
+        new InMemoryFramework().getBundleContext();
+
+    private static class Service {
+    }
+
+}
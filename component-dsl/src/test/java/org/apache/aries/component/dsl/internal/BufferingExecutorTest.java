@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BufferingExecutorTest {
+
+    @Test
+    public void testTasksAreReplayedInOrder() {
+        BufferingExecutor bufferingExecutor = new BufferingExecutor();
+
+        List<Integer> tasks = new ArrayList<>();
+
+        bufferingExecutor.execute(() -> {
+            tasks.add(1);
+
+            bufferingExecutor.execute(() -> tasks.add(3));
+        });
+        bufferingExecutor.execute(() -> {
+            throw new IllegalStateException();
+        });
+        bufferingExecutor.execute(() -> tasks.add(2));
+
+        assertTrue(tasks.isEmpty());
+
+        bufferingExecutor.open();
+
+        assertEquals(Arrays.asList(1, 2, 3), tasks);
+
+        bufferingExecutor.execute(() -> tasks.add(4));
+
+        assertEquals(Arrays.asList(1, 2, 3, 4), tasks);
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.OSGiRunnable.ExecutionContext;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CombineOSGiImplTest {
+
+    @Test
+    public void testCombine() {
+        ProbeImpl<String> strings = new ProbeImpl<>();
+        ProbeImpl<Integer> integers = new ProbeImpl<>();
+
+        Set<String> live = new HashSet<>();
+
+        OSGiResult result = OSGi.combine(
+            (s, i, c) -> s + i + c, strings, integers, OSGi.just('x')
+        ).run(
+            new ExecutionContext(null),
+            combined -> {
+                live.add(combined);
+
+                return () -> live.remove(combined);
+            });
+
+        OSGiResult a = strings.getPublisher().publish("a");
+        OSGiResult one = integers.getPublisher().publish(1);
+        strings.getPublisher().publish("b");
+        integers.getPublisher().publish(2);
+
+        assertEquals(
+            new HashSet<>(Arrays.asList("a1x", "a2x", "b1x", "b2x")), live);
+
+        a.close();
+        one.close();
+
+        assertEquals(new HashSet<>(Arrays.asList("b2x")), live);
+
+        result.close();
+
+        assertTrue(live.isEmpty());
+    }
+
+    @Test
+    public void testProgramsRunInOrderAndCloseInReverse() {
+        List<String> events = new ArrayList<>();
+
+        OSGiResult result = OSGi.combine(
+            (a, b, c) -> a + b + c, track("a", events), track("b", events),
+            track("c", events)
+        ).run(new ExecutionContext(null));
+
+        result.close();
+
+        assertEquals(
+            Arrays.asList(
+                "run a", "run b", "run c", "close c", "close b", "close a"),
+            events);
+    }
+
+    @Test
+    public void testFailingProgramClosesThePreviousOnes() {
+        List<String> events = new ArrayList<>();
+
+        OSGi<String> failing = OSGiImpl.create((executionContext, op) -> {
+            throw new IllegalStateException();
+        });
+
+        try {
+            OSGi.combine(
+                (a, b, c) -> a + b + c, track("a", events),
+                track("b", events), failing
+            ).run(new ExecutionContext(null));
+
+            fail();
+        }
+        catch (IllegalStateException ise) {
+        }
+
+        assertEquals(
+            Arrays.asList("run a", "run b", "close b", "close a"), events);
+    }
+
+    private static OSGi<String> track(String name, List<String> events) {
+        return OSGiImpl.create((executionContext, op) -> {
+            events.add("run " + name);
+
+            OSGiResult published = op.publish(name);
+
+            return () -> {
+                published.close();
+
+                events.add("close " + name);
+            };
+        });
+    }
+
+}
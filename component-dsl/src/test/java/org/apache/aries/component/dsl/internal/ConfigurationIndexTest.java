@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.test.framework.InMemoryConfigurationAdmin;
+import org.apache.aries.component.dsl.test.framework.InMemoryFramework;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.service.cm.Configuration;
+import org.osgi.service.cm.ConfigurationListener;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class ConfigurationIndexTest {
+
+    @Before
+    public void setUp() {
+        _bundleContext = new InMemoryFramework().getBundleContext();
+
+        _configurationAdmin = new CountingConfigurationAdmin(_bundleContext);
+
+        _configurationAdmin.open();
+    }
+
+    @After
+    public void tearDown() {
+        _configurationAdmin.close();
+    }
+
+    @Test
+    public void testEventsDontListConfigurations() throws Exception {
+        List<OSGiResult> results = new ArrayList<>();
+        AtomicInteger published = new AtomicInteger();
+
+        for (int i = 0; i < 10; i++) {
+            results.add(
+                OSGi.configurations("factory.pid").run(
+                    _bundleContext,
+                    __ -> {
+                        published.incrementAndGet();
+
+                        return () -> {};
+                    }));
+        }
+
+        assertEquals(1, _configurationAdmin.lists.get());
+        assertEquals(
+            1,
+            _bundleContext.getServiceReferences(
+                ConfigurationListener.class, null).size());
+
+        int initial = _configurationAdmin.lists.get();
+
+        Configuration configuration =
+            _configurationAdmin.createFactoryConfiguration("factory.pid");
+
+        configuration.update(properties(0));
+
+        assertEquals(10, published.get());
+        assertEquals(initial + 1, _configurationAdmin.lists.get());
+
+        for (int i = 1; i <= 5; i++) {
+            configuration.update(properties(i));
+        }
+
+        assertEquals(60, published.get());
+        assertEquals(initial + 1, _configurationAdmin.lists.get());
+
+        results.add(OSGi.configurations("factory.pid").run(
+            _bundleContext,
+            __ -> {
+                published.incrementAndGet();
+
+                return () -> {};
+            }));
+
+        assertEquals(61, published.get());
+        assertEquals(initial + 1, _configurationAdmin.lists.get());
+
+        results.forEach(OSGiResult::close);
+
+        assertEquals(0, ConfigurationIndex.size());
+    }
+
+    @Test
+    public void testDeletedConfigurationsAreEvicted() throws IOException {
+        List<Object> values = new ArrayList<>();
+
+        OSGiResult result = OSGi.configuration("pid").run(
+            _bundleContext,
+            properties -> {
+                values.add(properties.get("key"));
+
+                return () -> values.remove(properties.get("key"));
+            });
+
+        Configuration configuration = _configurationAdmin.getConfiguration(
+            "pid");
+
+        configuration.update(properties(1));
+
+        assertEquals(Collections.singletonList(1), values);
+
+        configuration.delete();
+
+        assertEquals(Collections.emptyList(), values);
+
+        _configurationAdmin.getConfiguration("pid").update(properties(2));
+
+        assertEquals(Collections.singletonList(2), values);
+
+        result.close();
+
+        assertEquals(0, ConfigurationIndex.size());
+    }
+
+    private static Hashtable<String, Object> properties(int value) {
+        Hashtable<String, Object> properties = new Hashtable<>();
+
+        properties.put("key", value);
+
+        return properties;
+    }
+
+    private BundleContext _bundleContext;
+    private CountingConfigurationAdmin _configurationAdmin;
+
+    private static class CountingConfigurationAdmin
+        extends InMemoryConfigurationAdmin {
+
+        CountingConfigurationAdmin(BundleContext bundleContext) {
+            super(bundleContext);
+        }
+
+        @Override
+        public Configuration[] listConfigurations(String filter)
+            throws InvalidSyntaxException {
+
+            lists.incrementAndGet();
+
+            return super.listConfigurations(filter);
+        }
+
+        final AtomicInteger lists = new AtomicInteger();
+
+    }
+
+}
@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import org.apache.aries.component.dsl.OSGiResult;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CrossProductTest {
+
+    @Test
+    public void testCombinations() {
+        Set<List<Object>> live = new HashSet<>();
+
+        CrossProduct crossProduct = new CrossProduct(
+            3, values -> track(live, Arrays.asList(values)));
+
+        OSGiResult a = crossProduct.add(0, "a");
+        OSGiResult one = crossProduct.add(1, 1);
+
+        assertTrue(live.isEmpty());
+
+        crossProduct.add(2, 'x');
+        crossProduct.add(0, "b");
+        OSGiResult two = crossProduct.add(1, 2);
+
+        assertEquals(4, live.size());
+        assertTrue(live.contains(Arrays.asList("b", 2, 'x')));
+
+        one.close();
+
+        assertEquals(
+            new HashSet<>(
+                Arrays.asList(
+                    Arrays.asList("a", 2, 'x'), Arrays.asList("b", 2, 'x'))),
+            live);
+
+        a.close();
+        a.close();
+
+        assertEquals(1, live.size());
+
+        two.close();
+
+        assertTrue(live.isEmpty());
+    }
+
+    @Test
+    public void testEqualValuesAreKeptApart() {
+        AtomicInteger count = new AtomicInteger();
+
+        CrossProduct crossProduct = new CrossProduct(
+            2, values -> {
+                count.incrementAndGet();
+
+                return count::decrementAndGet;
+            });
+
+        String value = "value";
+
+        OSGiResult first = crossProduct.add(0, value);
+        crossProduct.add(0, value);
+        crossProduct.add(1, value);
+        crossProduct.add(1, value);
+
+        assertEquals(4, count.get());
+
+        first.close();
+
+        assertEquals(2, count.get());
+    }
+
+    @Test
+    public void testFailedPublicationClosesTheValue() {
+        Set<List<Object>> live = new HashSet<>();
+
+        CrossProduct crossProduct = new CrossProduct(
+            2, values -> {
+                if ("fail".equals(values[1]) && "b".equals(values[0])) {
+                    throw new IllegalStateException();
+                }
+
+                return track(live, Arrays.asList(values));
+            });
+
+        crossProduct.add(0, "a");
+        crossProduct.add(0, "b");
+
+        try {
+            crossProduct.add(1, "fail");
+
+            fail();
+        }
+        catch (IllegalStateException ise) {
+        }
+
+        assertTrue(live.isEmpty());
+
+        crossProduct.add(0, "c");
+
+        assertTrue(live.isEmpty());
+    }
+
+    @Test
+    public void testUpdate() {
+        AtomicBoolean updated = new AtomicBoolean();
+        AtomicInteger updates = new AtomicInteger();
+
+        CrossProduct crossProduct = new CrossProduct(
+            2, values -> new OSGiResult() {
+                @Override
+                public void close() {
+                }
+
+                @Override
+                public boolean update() {
+                    updates.incrementAndGet();
+
+                    return values[1].equals(updated.get());
+                }
+            });
+
+        OSGiResult value = crossProduct.add(0, "value");
+
+        assertFalse(value.update());
+
+        crossProduct.add(1, true);
+        crossProduct.add(1, false);
+
+        updates.set(0);
+
+        assertTrue(value.update());
+        assertEquals(2, updates.get());
+
+        value.close();
+
+        assertFalse(value.update());
+    }
+
+    @Test
+    public void testConcurrentArrivalsAndDepartures() throws Exception {
+        Set<List<Object>> live = ConcurrentHashMap.newKeySet();
+        AtomicInteger published = new AtomicInteger();
+
+        CrossProduct crossProduct = new CrossProduct(
+            2, values -> {
+                List<Object> combination = Arrays.asList(values);
+
+                published.incrementAndGet();
+
+                if (!live.add(combination)) {
+                    throw new AssertionError(combination + " published twice");
+                }
+
+                return () -> live.remove(combination);
+            });
+
+        int threads = 4;
+        int values = 200;
+
+        ExecutorService executorService = Executors.newFixedThreadPool(
+            threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<OSGiResult>>> futures = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < threads; i++) {
+                int thread = i;
+
+                futures.add(executorService.submit(() -> {
+                    List<OSGiResult> kept = new ArrayList<>();
+
+                    start.await();
+
+                    for (int j = 0; j < values; j++) {
+                        OSGiResult result = crossProduct.add(
+                            thread % 2, thread * values + j);
+
+                        if (j % 2 == 0) {
+                            result.close();
+                        }
+                        else {
+                            kept.add(result);
+                        }
+                    }
+
+                    return kept;
+                }));
+            }
+
+            start.countDown();
+
+            List<OSGiResult> kept = new ArrayList<>();
+
+            for (Future<List<OSGiResult>> future : futures) {
+                kept.addAll(future.get(30, TimeUnit.SECONDS));
+            }
+
+            int perDimension = threads / 2 * values / 2;
+
+            assertEquals(perDimension * perDimension, live.size());
+
+            kept.forEach(OSGiResult::close);
+
+            assertTrue(live.isEmpty());
+            assertTrue(published.get() >= perDimension * perDimension);
+        }
+        finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private static OSGiResult track(
+        Set<List<Object>> live, List<Object> combination) {
+
+        live.add(combination);
+
+        return () -> live.remove(combination);
+    }
+
+}
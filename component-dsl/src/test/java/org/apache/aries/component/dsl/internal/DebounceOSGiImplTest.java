@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.aries.component.dsl.internal;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.Publisher;
+import org.apache.aries.component.dsl.test.framework.InMemoryConfigurationAdmin;
+import org.apache.aries.component.dsl.test.framework.InMemoryFramework;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.service.cm.Configuration;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.apache.aries.component.dsl.OSGi.NOOP;
+import static org.apache.aries.component.dsl.OSGi.configurations;
+import static org.apache.aries.component.dsl.OSGi.serviceReferences;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DebounceOSGiImplTest {
+
+    @Test
+    public void testOnlyTheFinalStateIsPublished() throws Exception {
+        ServiceRegistration<Service> existing = _bundleContext.registerService(
+            Service.class, new Service(), properties("name", "existing"));
+
+        List<String> events = new CopyOnWriteArrayList<>();
+
+        OSGiResult result = serviceReferences(Service.class).debounce(
+            Duration.ofSeconds(1)
+        ).effects(
+            reference -> events.add("+" + reference.getProperty("name")),
+            reference -> events.add("-" + reference.getProperty("name"))
+        ).run(_bundleContext);
+
+        assertEquals(Collections.singletonList("+existing"), events);
+
+        existing.unregister();
+
+        for (int i = 0; i < 5; i++) {
+            _bundleContext.registerService(
+                Service.class, new Service(), properties("name", "" + i)
+            ).unregister();
+        }
+
+        _bundleContext.registerService(
+            Service.class, new Service(), properties("name", "last"));
+
+        assertEquals(Arrays.asList("+existing", "-existing"), events);
+
+        await(() -> events.size() == 3);
+
+        assertEquals(Arrays.asList("+existing", "-existing", "+last"), events);
+
+        result.close();
+
+        assertEquals(
+            Arrays.asList("+existing", "-existing", "+last", "-last"), events);
+    }
+
+    @Test
+    public void testAConfigurationStormActivatesOnce() throws Exception {
+        InMemoryConfigurationAdmin configurationAdmin =
+            new InMemoryConfigurationAdmin(_bundleContext);
+
+        configurationAdmin.open();
+
+        Configuration configuration =
+            configurationAdmin.getFactoryConfiguration("test.factory", "a");
+
+        configuration.update(properties("key", 0));
+
+        List<Object> activations = new CopyOnWriteArrayList<>();
+        List<Object> values = new CopyOnWriteArrayList<>();
+
+        try (OSGiResult result =
+                 configurations("test.factory").debounce(
+                     Duration.ofMillis(100)
+                 ).run(
+                     _bundleContext,
+                     properties -> {
+                         activations.add(properties.get("key"));
+                         values.add(properties.get("key"));
+
+                         return () -> values.remove(properties.get("key"));
+                     })) {
+
+            for (int i = 1; i <= 10; i++) {
+                configuration.update(properties("key", i));
+            }
+
+            await(() -> values.equals(Collections.singletonList(10)));
+
+            assertEquals(Arrays.asList(0, 10), activations);
+        }
+        finally {
+            configurationAdmin.close();
+        }
+
+        assertTrue(values.isEmpty());
+    }
+
+    @Test
+    public void testAnEndlessStormIsPublishedAfterTenWindows()
+        throws Exception {
+
+        AtomicReference<Publisher<? super Integer>> publisher =
+            new AtomicReference<>();
+
+        List<Integer> values = new CopyOnWriteArrayList<>();
+
+        OSGiResult result = OSGiImpl.<Integer>create(
+            (executionContext, op) -> {
+                publisher.set(op);
+
+                return NOOP;
+            }
+        ).debounce(
+            Duration.ofMillis(50)
+        ).run(
+            _bundleContext,
+            i -> {
+                values.add(i);
+
+                return NOOP;
+            });
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+        for (int i = 0; values.isEmpty() && System.nanoTime() < deadline;
+             i++) {
+
+            publisher.get().publish(i);
+
+            Thread.sleep(10);
+        }
+
+        result.close();
+
+        assertFalse(values.isEmpty());
+    }
+
+    private static void await(BooleanSupplier condition)
+        throws InterruptedException {
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertTrue(condition.getAsBoolean());
+    }
+
+    private static Dictionary<String, Object> properties(
+        String key, Object value) {
+
+        Hashtable<String, Object> properties = new Hashtable<>();
+
+        properties.put(key, value);
+
+        return properties;
+    }
+
+    private final BundleContext _bundleContext =
+        new InMemoryFramework().getBundleContext();
+
+    private static class Service {
+    }
+
+}
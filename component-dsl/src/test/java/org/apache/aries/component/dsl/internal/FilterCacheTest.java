@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import org.apache.aries.component.dsl.test.framework.InMemoryFramework;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Filter;
+import org.osgi.framework.InvalidSyntaxException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class FilterCacheTest {
+
+    @Test
+    public void testFiltersAreParsedOnce() throws InvalidSyntaxException {
+        BundleContext bundleContext =
+            new InMemoryFramework().getBundleContext();
+
+        long hits = FilterCache.getHits();
+        long misses = FilterCache.getMisses();
+
+        Filter filter = FilterCache.getFilter(bundleContext, "(key=value)");
+
+        assertSame(
+            filter, FilterCache.getFilter(bundleContext, "(key=value)"));
+        assertEquals(hits + 1, FilterCache.getHits());
+        assertEquals(misses + 1, FilterCache.getMisses());
+
+        assertNotSame(
+            filter,
+            FilterCache.getFilter(
+                new InMemoryFramework().getBundleContext(), "(key=value)"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedFiltersAreEvicted()
+        throws InvalidSyntaxException {
+
+        BundleContext bundleContext =
+            new InMemoryFramework().getBundleContext();
+
+        Filter first = FilterCache.getFilter(bundleContext, "(key=0)");
+        Filter second = FilterCache.getFilter(bundleContext, "(key=1)");
+
+        for (int i = 2; i <= FilterCache.MAX_FILTERS; i++) {
+            FilterCache.getFilter(bundleContext, "(key=" + i + ")");
+
+            FilterCache.getFilter(bundleContext, "(key=0)");
+        }
+
+        assertSame(first, FilterCache.getFilter(bundleContext, "(key=0)"));
+        assertNotSame(
+            second, FilterCache.getFilter(bundleContext, "(key=1)"));
+    }
+
+    @Test(expected = InvalidSyntaxException.class)
+    public void testInvalidFiltersAreNotCached()
+        throws InvalidSyntaxException {
+
+        BundleContext bundleContext =
+            new InMemoryFramework().getBundleContext();
+
+        try {
+            FilterCache.getFilter(bundleContext, "(key=value");
+        }
+        catch (InvalidSyntaxException ise) {
+        }
+
+        FilterCache.getFilter(bundleContext, "(key=value");
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.OSGiRunnable.ExecutionContext;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FlightRecorderSupportTest {
+
+    @Test
+    public void testEventsAreRecorded() throws Exception {
+        Assume.assumeTrue(
+            FlightRecorderSupport.isAvailable() &&
+                FlightRecorder.isAvailable());
+
+        Path path = Files.createTempFile("component-dsl", ".jfr");
+
+        try {
+            try (Recording recording = new Recording()) {
+                recording.enable(
+                    "org.apache.aries.component.dsl.Publish"
+                ).withoutThreshold();
+                recording.enable(
+                    "org.apache.aries.component.dsl.Terminate"
+                ).withoutThreshold();
+                recording.enable(
+                    "org.apache.aries.component.dsl.Update"
+                ).withoutThreshold();
+
+                recording.start();
+
+                OSGiResult result = OSGi.just(
+                    Arrays.asList(1, 2)
+                ).map(
+                    i -> "value" + i
+                ).run(
+                    new ExecutionContext(null)
+                );
+
+                UpdateSupport.sendUpdate(result);
+
+                result.close();
+
+                recording.stop();
+                recording.dump(path);
+            }
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(path);
+
+            assertEquals(
+                Arrays.asList(
+                    "Publish fused java.lang.String",
+                    "Publish fused java.lang.String",
+                    "Publish just java.lang.Integer",
+                    "Publish just java.lang.Integer"),
+                describe(events, "Publish"));
+            assertEquals(4, describe(events, "Terminate").size());
+            assertTrue(describe(events, "Update").size() >= 1);
+        }
+        finally {
+            Files.delete(path);
+        }
+    }
+
+    private static List<String> describe(
+        List<RecordedEvent> events, String name) {
+
+        return events.stream(
+        ).filter(
+            event -> event.getEventType().getName().equals(
+                "org.apache.aries.component.dsl." + name)
+        ).map(
+            event -> {
+                if (!event.hasField("operator")) {
+                    return name;
+                }
+
+                return name + " " + event.getString("operator") + " " +
+                    event.getClass("elementType").getName();
+            }
+        ).sorted(
+        ).collect(
+            Collectors.toList()
+        );
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.test.framework.InMemoryFramework;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FusedOSGiImplTest {
+
+    @Test
+    public void testStagesApplyInOrder() {
+        List<String> added = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+
+        OSGi<String> program = OSGi.just(
+            Arrays.asList(1, 2, 3, 4, 5, 6)
+        ).map(
+            i -> i * 2
+        ).filter(
+            i -> i % 3 != 0
+        ).map(
+            i -> i == 8 ? null : String.valueOf(i)
+        ).filter(
+            s -> !"10".equals(s)
+        );
+
+        assertTrue(program instanceof FusedOSGiImpl);
+
+        OSGiResult result = program.effects(
+            added::add, removed::add
+        ).run(_bundleContext);
+
+        assertEquals(Arrays.asList("2", "4", null), added);
+
+        result.close();
+
+        assertEquals(Arrays.asList(null, "4", "2"), removed);
+    }
+
+    @Test
+    public void testSharedPrefixesDontInterfere() {
+        OSGi<Integer> doubled = OSGi.just(1).map(i -> i * 2);
+
+        List<Object> results = new ArrayList<>();
+
+        doubled.map(i -> i + 1).foreach(results::add).run(_bundleContext);
+        doubled.filter(i -> i > 2).foreach(results::add).run(_bundleContext);
+        doubled.map(String::valueOf).foreach(results::add).run(
+            _bundleContext);
+
+        assertEquals(Arrays.asList(3, "2"), results);
+    }
+
+    @Test
+    public void testCallDepthDoesNotGrowWithStages() {
+        assertEquals(depthAfter(1), depthAfter(50));
+    }
+
+    private int depthAfter(int stages) {
+        OSGi<Integer> program = OSGi.just(0);
+
+        for (int i = 0; i < stages; i++) {
+            program = program.map(x -> x + 1).filter(x -> x > 0);
+        }
+
+        List<Integer> depths = new ArrayList<>();
+
+        program.foreach(
+            __ -> depths.add(new Throwable().getStackTrace().length)
+        ).run(_bundleContext).close();
+
+        return depths.get(0);
+    }
+
+    private final BundleContext _bundleContext =
+        new InMemoryFramework().getBundleContext();
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class IndexedHeapTest {
+
+    @Test
+    public void testAddAndRemoveArbitraryNodes() {
+        Random random = new Random(42);
+
+        IndexedHeap<Element> heap = new IndexedHeap<>(COMPARATOR);
+        List<Element> live = new ArrayList<>();
+
+        for (int i = 0; i < 10000; i++) {
+            if (live.isEmpty() || random.nextInt(3) != 0) {
+                Element element = new Element(random.nextInt(1000));
+
+                heap.add(element);
+                live.add(element);
+            }
+            else {
+                Element element = live.remove(random.nextInt(live.size()));
+
+                assertTrue(heap.remove(element));
+            }
+
+            assertEquals(live.size(), heap.size());
+
+            if (!live.isEmpty()) {
+                assertEquals(
+                    Collections.min(live, COMPARATOR).value,
+                    heap.peek().value);
+            }
+        }
+
+        while (!live.isEmpty()) {
+            assertTrue(heap.remove(live.remove(live.size() - 1)));
+        }
+
+        assertTrue(heap.isEmpty());
+        assertNull(heap.peek());
+    }
+
+    @Test
+    public void testRemoveTwice() {
+        IndexedHeap<Element> heap = new IndexedHeap<>(COMPARATOR);
+
+        Element first = new Element(1);
+        Element second = new Element(2);
+
+        heap.add(first);
+        heap.add(second);
+
+        assertTrue(heap.remove(first));
+        assertFalse(heap.remove(first));
+        assertSame(second, heap.peek());
+    }
+
+    @Test
+    public void testRemoveFromAnotherHeap() {
+        IndexedHeap<Element> heap = new IndexedHeap<>(COMPARATOR);
+        IndexedHeap<Element> other = new IndexedHeap<>(COMPARATOR);
+
+        Element element = new Element(1);
+
+        heap.add(element);
+        other.add(new Element(2));
+
+        assertFalse(other.remove(element));
+        assertEquals(1, other.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddTwice() {
+        IndexedHeap<Element> heap = new IndexedHeap<>(COMPARATOR);
+
+        Element element = new Element(1);
+
+        heap.add(element);
+        heap.add(element);
+    }
+
+    private static final Comparator<Element> COMPARATOR =
+        Comparator.comparingInt(e -> e.value);
+
+    private static class Element extends IndexedHeap.Node {
+
+        Element(int value) {
+            this.value = value;
+        }
+
+        final int value;
+
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.test.framework.InMemoryFramework;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OSGiResultsTest {
+
+    @Test
+    public void testEveryResultIsUpdated() {
+        List<Integer> updated = new ArrayList<>();
+
+        List<OSGiResult> results = Arrays.asList(
+            result(updated, 0, false), result(updated, 1, true),
+            result(updated, 2, false));
+
+        assertTrue(OSGiResults.updateAll(results));
+        assertEquals(Arrays.asList(0, 1, 2), updated);
+
+        updated.clear();
+
+        ConcurrentDoublyLinkedList<OSGiResult> list =
+            new ConcurrentDoublyLinkedList<>(results);
+
+        assertTrue(OSGiResults.updateAll(list));
+        assertEquals(Arrays.asList(0, 1, 2), updated);
+
+        updated.clear();
+
+        assertFalse(
+            OSGiResults.updateAll(
+                new OSGiResult[] {
+                    result(updated, 0, false), null,
+                    result(updated, 2, false)}));
+        assertEquals(Arrays.asList(0, 2), updated);
+    }
+
+    @Test
+    public void testCoalesceUpdatesTheProgramsRun() {
+        OSGiResult result = OSGi.coalesce(
+            OSGi.just(1), OSGi.just(2)
+        ).run(new InMemoryFramework().getBundleContext());
+
+        assertFalse(result.update());
+
+        result.close();
+    }
+
+    private static OSGiResult result(
+        List<Integer> updated, int id, boolean republish) {
+
+        return new OSGiResultImpl(
+            () -> {},
+            () -> {
+                updated.add(id);
+
+                return republish;
+            });
+    }
+
+}
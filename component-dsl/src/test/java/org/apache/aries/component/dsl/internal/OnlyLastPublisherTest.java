@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.OSGiResult;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+
+public class OnlyLastPublisherTest {
+
+    @Test
+    public void testLatestIgnoresStalePublications() {
+        AtomicReference<String> latest = new AtomicReference<>("s1");
+        List<String> events = new ArrayList<>();
+
+        OnlyLastPublisher<String> publisher = OnlyLastPublisher.latest(
+            s -> {
+                events.add("+" + s);
+
+                return () -> events.add("-" + s);
+            },
+            latest::get);
+
+        OSGiResult first = publisher.publish("s1");
+
+        latest.set("s2");
+
+        OSGiResult second = publisher.publish("s2");
+
+        OSGiResult stale = publisher.publish("s1");
+
+        assertEquals(Arrays.asList("+s1", "-s1", "+s2", "-s2", "+s2"), events);
+
+        events.clear();
+
+        first.close();
+        second.close();
+        stale.close();
+
+        assertEquals(Arrays.asList("-s2", "+s2", "-s2", "+s2", "-s2"), events);
+    }
+
+    @Test
+    public void testPublishesTheValuesGiven() {
+        List<String> events = new ArrayList<>();
+
+        OnlyLastPublisher<String> publisher = new OnlyLastPublisher<>(
+            s -> {
+                events.add("+" + s);
+
+                return OSGi.NOOP;
+            });
+
+        publisher.publish("s1");
+        publisher.publish("s2");
+
+        assertEquals(Arrays.asList("+s1", "+s2"), events);
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.aries.component.dsl.internal;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.OSGiRunnable.ExecutionContext;
+import org.apache.aries.component.dsl.Utils;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class PersistentListTest {
+
+    @Test
+    public void testBehavesLikeAList() {
+        Random random = new Random(42);
+
+        List<Long> keys = new ArrayList<>();
+        List<Integer> expected = new ArrayList<>();
+
+        PersistentList<Integer> list = PersistentList.empty();
+
+        long next = 0;
+
+        for (int i = 0; i < 10000; i++) {
+            if (expected.isEmpty() || random.nextInt(3) > 0) {
+                keys.add(next);
+                expected.add(i);
+
+                list = list.append(next++, i);
+            }
+            else {
+                int index = random.nextInt(keys.size());
+
+                list = list.removeKey(keys.remove(index));
+
+                expected.remove(index);
+            }
+
+            if (i % 1000 == 0) {
+                assertEquals(expected, list);
+            }
+        }
+
+        assertEquals(expected, list);
+        assertEquals(expected.size(), list.size());
+
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), list.get(i));
+        }
+    }
+
+    @Test
+    public void testOlderVersionsDoNotChange() {
+        PersistentList<String> empty = PersistentList.empty();
+
+        PersistentList<String> ab = empty.append(0, "a").append(1, "b");
+        PersistentList<String> abc = ab.append(2, "c");
+        PersistentList<String> ac = abc.removeKey(1);
+
+        assertEquals(Collections.emptyList(), empty);
+        assertEquals(Arrays.asList("a", "b"), ab);
+        assertEquals(Arrays.asList("a", "b", "c"), abc);
+        assertEquals(Arrays.asList("a", "c"), ac);
+        assertSame(ac, ac.removeKey(1));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testCanNotBeModified() {
+        PersistentList.empty().append(0, "a").add("b");
+    }
+
+    @Test
+    public void testAccumulateSnapshots() {
+        List<List<Integer>> snapshots = new ArrayList<>();
+
+        OSGi<Integer> program = OSGi.just(Arrays.asList(1, 2, 3)).flatMap(i ->
+            OSGi.just(i).effects(__ -> {}, __ -> {}));
+
+        OSGiResult result = Utils.accumulateSnapshots(program).run(
+            new ExecutionContext(null),
+            snapshot -> {
+                snapshots.add(snapshot);
+
+                return OSGi.NOOP;
+            });
+
+        assertEquals(
+            Arrays.asList(
+                Collections.emptyList(), Arrays.asList(1),
+                Arrays.asList(1, 2), Arrays.asList(1, 2, 3)),
+            snapshots);
+
+        result.close();
+
+        assertEquals(Arrays.asList(1, 2, 3), snapshots.get(3));
+    }
+
+}
@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.aries.component.dsl.internal;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.OSGiRunnable.ExecutionContext;
+import org.apache.aries.component.dsl.Utils;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PersistentMapTest {
+
+    @Test
+    public void testBehavesLikeAMap() {
+        Random random = new Random(42);
+
+        Map<Key, Integer> expected = new HashMap<>();
+
+        PersistentMap<Key, Integer> map = PersistentMap.empty();
+
+        for (int i = 0; i < 20000; i++) {
+            Key key = new Key(random.nextInt(2000));
+
+            if (random.nextInt(3) > 0) {
+                expected.put(key, i);
+
+                map = map.with(key, i);
+            }
+            else {
+                expected.remove(key);
+
+                map = map.without(key);
+            }
+
+            if (i % 1000 == 0) {
+                assertEquals(expected, map);
+            }
+        }
+
+        assertEquals(expected, map);
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected.hashCode(), map.hashCode());
+
+        for (int i = 0; i < 2000; i++) {
+            Key key = new Key(i);
+
+            assertEquals(expected.get(key), map.get(key));
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+        }
+
+        for (Key key : expected.keySet()) {
+            map = map.without(key);
+        }
+
+        assertSame(PersistentMap.empty(), map);
+    }
+
+    @Test
+    public void testOlderVersionsDoNotChange() {
+        PersistentMap<String, Integer> empty = PersistentMap.empty();
+
+        PersistentMap<String, Integer> a = empty.with("a", 1);
+        PersistentMap<String, Integer> ab = a.with("b", 2).with(null, 0);
+        PersistentMap<String, Integer> b = ab.without("a");
+
+        assertEquals(Collections.emptyMap(), empty);
+        assertEquals(Collections.singletonMap("a", 1), a);
+        assertEquals(3, ab.size());
+        assertEquals(Integer.valueOf(0), ab.get(null));
+        assertEquals(2, b.size());
+        assertTrue(b.containsKey(null));
+        assertSame(b, b.without("a"));
+        assertSame(a, a.with("a", 1));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testCanNotBeModified() {
+        PersistentMap.<String, Integer>empty().with("a", 1).put("b", 2);
+    }
+
+    @Test
+    public void testAccumulateInMapSnapshots() {
+        List<Map<String, Integer>> snapshots = new ArrayList<>();
+
+        OSGi<Integer> program = OSGi.just(Arrays.asList(1, 2, 3));
+
+        OSGiResult result = Utils.accumulateInMapSnapshots(
+            program, i -> OSGi.just((i & 1) == 0 ? "even" : "odd"),
+            i -> OSGi.just(i * 10)
+        ).run(
+            new ExecutionContext(null),
+            snapshot -> {
+                snapshots.add(snapshot);
+
+                return OSGi.NOOP;
+            });
+
+        Map<String, Integer> expected = new HashMap<>();
+
+        expected.put("odd", 30);
+        expected.put("even", 20);
+
+        assertEquals(expected, snapshots.get(snapshots.size() - 1));
+
+        Map<String, Integer> last = snapshots.get(snapshots.size() - 1);
+
+        result.close();
+
+        assertEquals(expected, last);
+    }
+
+    @Test
+    public void testAccumulateInMapKeepsAValuePublishedTwice() {
+        Object shared = new Object();
+
+        ProbeImpl<Object> values = new ProbeImpl<>();
+
+        List<Map<String, Object>> snapshots = new ArrayList<>();
+
+        OSGiResult result = Utils.accumulateInMapSnapshots(
+            OSGi.just(1), i -> OSGi.just("key"), i -> values
+        ).run(
+            new ExecutionContext(null),
+            snapshot -> {
+                snapshots.add(snapshot);
+
+                return OSGi.NOOP;
+            });
+
+        OSGiResult first = values.getPublisher().publish(shared);
+        OSGiResult second = values.getPublisher().publish(shared);
+
+        Map<String, Object> expected = Collections.singletonMap(
+            "key", shared);
+
+        assertEquals(expected, snapshots.get(snapshots.size() - 1));
+
+        first.close();
+
+        assertEquals(expected, snapshots.get(snapshots.size() - 1));
+
+        second.close();
+
+        assertEquals(
+            Collections.emptyMap(), snapshots.get(snapshots.size() - 1));
+
+        result.close();
+    }
+
+    private static class Key {
+
+        public Key(int value) {
+            _value = value;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof Key && ((Key)object)._value == _value;
+        }
+
+        /**
+         * Only a few hashes, so the keys collide.
+         */
+        @Override
+        public int hashCode() {
+            return _value % 500;
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(_value);
+        }
+
+        private final int _value;
+
+    }
+
+}
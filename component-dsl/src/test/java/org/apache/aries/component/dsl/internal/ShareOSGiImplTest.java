@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.OSGiRunnable.ExecutionContext;
+import org.apache.aries.component.dsl.Publisher;
+import org.apache.aries.component.dsl.test.framework.InMemoryFramework;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.apache.aries.component.dsl.OSGi.NOOP;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ShareOSGiImplTest {
+
+    @Test
+    public void testBranchesRunTheProgramOnce() {
+        Source source = new Source();
+
+        OSGi<Integer> shared = source.program.share();
+
+        List<Integer> values = new ArrayList<>();
+
+        OSGiResult result = OSGi.combine(
+            (a, b) -> a + b, shared, shared.map(i -> i * 10)
+        ).run(
+            _bundleContext,
+            value -> {
+                values.add(value);
+
+                return () -> values.remove(value);
+            });
+
+        assertEquals(1, source.runs.get());
+
+        OSGiResult one = source.publish(1);
+
+        assertEquals(Collections.singletonList(11), values);
+
+        source.publish(2);
+
+        assertEquals(Arrays.asList(11, 12, 21, 22), values);
+
+        one.close();
+
+        assertEquals(Collections.singletonList(22), values);
+
+        result.close();
+
+        assertEquals(Collections.emptyList(), values);
+        assertEquals(1, source.closes.get());
+    }
+
+    @Test
+    public void testLateRunsGetTheLiveElements() {
+        Source source = new Source();
+
+        OSGi<Integer> shared = source.program.share();
+
+        List<String> events = new ArrayList<>();
+
+        OSGiResult a = run(shared, "a", events);
+
+        source.publish(1);
+
+        OSGiResult b = run(shared, "b", events);
+
+        assertEquals(Arrays.asList("+a1", "+b1"), events);
+        assertEquals(1, source.runs.get());
+
+        events.clear();
+
+        a.close();
+        b.close();
+
+        assertEquals(Arrays.asList("-a1", "-b1"), events);
+        assertEquals(1, source.closes.get());
+
+        events.clear();
+
+        OSGiResult c = run(shared, "c", events);
+
+        source.publish(2);
+
+        assertEquals(2, source.runs.get());
+        assertEquals(Collections.singletonList("+c2"), events);
+
+        c.close();
+    }
+
+    @Test
+    public void testRunsWithOtherExecutionContextsRunTheProgramAgain() {
+        Source source = new Source();
+
+        OSGi<Integer> shared = source.program.share();
+
+        List<String> events = new ArrayList<>();
+
+        OSGiResult a = run(shared, "a", events);
+        OSGiResult b = shared.run(
+            new ExecutionContext(_bundleContext, Runnable::run),
+            i -> NOOP);
+        OSGiResult c = run(shared, "c", events);
+
+        assertEquals(2, source.runs.get());
+
+        a.close();
+        b.close();
+        c.close();
+
+        assertEquals(2, source.closes.get());
+    }
+
+    @Test
+    public void testUpdatesAskTheProgramToPublishAgain() {
+        Source source = new Source();
+
+        OSGi<Integer> shared = source.program.share();
+
+        List<String> events = new ArrayList<>();
+
+        OSGiResult a = run(shared, "a", events, true);
+        OSGiResult b = run(shared, "b", events, false);
+
+        OSGiResult one = source.publish(1);
+
+        events.clear();
+
+        assertTrue(UpdateSupport.sendUpdate(one));
+        assertEquals(Arrays.asList("~a1", "~b1"), events);
+
+        a.close();
+
+        events.clear();
+
+        assertFalse(UpdateSupport.sendUpdate(one));
+        assertEquals(Collections.singletonList("~b1"), events);
+
+        b.close();
+    }
+
+    private OSGiResult run(
+        OSGi<Integer> program, String name, List<String> events) {
+
+        return run(program, name, events, false);
+    }
+
+    private OSGiResult run(
+        OSGi<Integer> program, String name, List<String> events,
+        boolean republish) {
+
+        return program.run(
+            _bundleContext,
+            i -> {
+                events.add("+" + name + i);
+
+                return new OSGiResultImpl(
+                    () -> events.add("-" + name + i),
+                    () -> {
+                        events.add("~" + name + i);
+
+                        return republish;
+                    });
+            });
+    }
+
+    private final BundleContext _bundleContext =
+        new InMemoryFramework().getBundleContext();
+
+    private static class Source {
+
+        OSGiResult publish(int i) {
+            return _publisher.publish(i);
+        }
+
+        final AtomicInteger closes = new AtomicInteger();
+        final AtomicInteger runs = new AtomicInteger();
+        final OSGi<Integer> program = OSGiImpl.create(
+            (executionContext, publisher) -> {
+                runs.incrementAndGet();
+
+                _publisher = publisher;
+
+                return closes::incrementAndGet;
+            });
+
+        private Publisher<? super Integer> _publisher;
+
+    }
+
+}
@@ -0,0 +1,284 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.test.framework.InMemoryFramework;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SharedServiceTrackerTest {
+
+    @Before
+    public void setUp() {
+        BundleContext bundleContext =
+            new InMemoryFramework().getBundleContext();
+
+        _bundleContext = (BundleContext)Proxy.newProxyInstance(
+            getClass().getClassLoader(), new Class<?>[] {BundleContext.class},
+            (proxy, method, args) -> {
+                if (method.getName().equals("addServiceListener")) {
+                    _listeners.incrementAndGet();
+                }
+                else if (method.getName().equals("removeServiceListener")) {
+                    _listeners.decrementAndGet();
+                }
+
+                try {
+                    return method.invoke(bundleContext, args);
+                }
+                catch (InvocationTargetException ite) {
+                    throw ite.getCause();
+                }
+            });
+    }
+
+    @Test
+    public void testProgramsShareTheTracker() {
+        ServiceRegistration<Service> first = _bundleContext.registerService(
+            Service.class, new Service(), new Hashtable<>());
+
+        List<String> events = new ArrayList<>();
+
+        OSGiResult a = track("a", events);
+        OSGiResult b = track("b", events);
+
+        assertEquals(1, _listeners.get());
+        assertEquals(1, SharedServiceTracker.size());
+        assertEquals(Arrays.asList("+a", "+b"), events);
+
+        events.clear();
+
+        ServiceRegistration<Service> second = _bundleContext.registerService(
+            Service.class, new Service(), new Hashtable<>());
+
+        assertEquals(Arrays.asList("+a", "+b"), events);
+
+        events.clear();
+
+        a.close();
+
+        assertEquals(Arrays.asList("-a", "-a"), events);
+        assertEquals(1, _listeners.get());
+
+        events.clear();
+
+        first.unregister();
+
+        assertEquals(Collections.singletonList("-b"), events);
+
+        events.clear();
+
+        b.close();
+
+        assertEquals(Collections.singletonList("-b"), events);
+        assertEquals(0, _listeners.get());
+        assertEquals(0, SharedServiceTracker.size());
+
+        second.unregister();
+    }
+
+    @Test
+    public void testClosingFromAnotherThreadWhilePublishing()
+        throws InterruptedException {
+
+        AtomicReference<OSGiResult> result = new AtomicReference<>();
+        AtomicBoolean joined = new AtomicBoolean();
+        List<String> events = new CopyOnWriteArrayList<>();
+
+        result.set(
+            OSGi.serviceReferences(Service.class).run(
+                _bundleContext,
+                reference -> {
+                    events.add("+");
+
+                    Thread thread = new Thread(() -> result.get().close());
+
+                    thread.start();
+
+                    try {
+                        thread.join(TimeUnit.SECONDS.toMillis(10));
+                    }
+                    catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                    }
+
+                    joined.set(!thread.isAlive());
+
+                    return () -> events.add("-");
+                }));
+
+        _bundleContext.registerService(
+            Service.class, new Service(), new Hashtable<>());
+
+        assertTrue(joined.get());
+        assertEquals(Arrays.asList("+", "-"), events);
+        assertEquals(0, _listeners.get());
+    }
+
+    @Test
+    public void testFailuresOfAProgramAreReportedAndKeptFromTheOthers() {
+        List<String> events = new ArrayList<>();
+        List<Throwable> reported = new ArrayList<>();
+
+        OSGiResult a = OSGi.serviceReferences(Service.class).run(
+            _bundleContext,
+            __ -> {
+                throw new IllegalStateException();
+            });
+        OSGiResult b = track("b", events);
+
+        Thread thread = Thread.currentThread();
+
+        Thread.UncaughtExceptionHandler handler =
+            thread.getUncaughtExceptionHandler();
+
+        thread.setUncaughtExceptionHandler((t, e) -> reported.add(e));
+
+        ServiceRegistration<Service> registration;
+
+        try {
+            registration = _bundleContext.registerService(
+                Service.class, new Service(), new Hashtable<>());
+        }
+        finally {
+            thread.setUncaughtExceptionHandler(handler);
+        }
+
+        assertEquals(1, reported.size());
+        assertTrue(reported.get(0) instanceof IllegalStateException);
+        assertEquals(Collections.singletonList("+b"), events);
+
+        try {
+            OSGi.serviceReferences(Service.class).run(
+                _bundleContext,
+                __ -> {
+                    throw new IllegalStateException();
+                });
+
+            fail();
+        }
+        catch (IllegalStateException ise) {
+        }
+
+        a.close();
+        b.close();
+
+        assertEquals(Arrays.asList("+b", "-b"), events);
+        assertEquals(0, SharedServiceTracker.size());
+
+        registration.unregister();
+    }
+
+    @Test
+    public void testModificationsAreSentToEveryProgram() {
+        ServiceRegistration<Service> registration =
+            _bundleContext.registerService(
+                Service.class, new Service(), new Hashtable<>());
+
+        List<String> events = new ArrayList<>();
+
+        OSGiResult a = refreshingTrack("a", events);
+        OSGiResult b = refreshingTrack("b", events);
+
+        events.clear();
+
+        Hashtable<String, Object> properties = new Hashtable<>();
+
+        properties.put("key", "value");
+
+        registration.setProperties(properties);
+
+        assertEquals(Arrays.asList("-a", "+a", "-b", "+b"), events);
+
+        a.close();
+        b.close();
+
+        registration.unregister();
+    }
+
+    @Test
+    public void testTheTrackerIsReopenedAfterTheLastProgram() {
+        List<String> events = new ArrayList<>();
+
+        track("a", events).close();
+
+        assertEquals(0, SharedServiceTracker.size());
+
+        OSGiResult b = track("b", events);
+
+        ServiceRegistration<Service> registration =
+            _bundleContext.registerService(
+                Service.class, new Service(), new Hashtable<>());
+
+        assertEquals(Collections.singletonList("+b"), events);
+        assertEquals(1, _listeners.get());
+
+        b.close();
+
+        registration.unregister();
+
+        assertEquals(0, _listeners.get());
+    }
+
+    private OSGiResult refreshingTrack(String name, List<String> events) {
+        return run(
+            OSGi.serviceReferences(Service.class, __ -> true), name, events);
+    }
+
+    private <T> OSGiResult run(OSGi<T> program, String name, List<String> events) {
+        return program.run(
+            _bundleContext,
+            __ -> {
+                events.add("+" + name);
+
+                return () -> events.add("-" + name);
+            });
+    }
+
+    private OSGiResult track(String name, List<String> events) {
+        return run(OSGi.serviceReferences(Service.class), name, events);
+    }
+
+    private BundleContext _bundleContext;
+    private final AtomicInteger _listeners = new AtomicInteger();
+
+    public static class Service {
+    }
+
+}
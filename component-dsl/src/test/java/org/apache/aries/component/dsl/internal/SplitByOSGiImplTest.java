@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.internal;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.OSGiRunnable.ExecutionContext;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.apache.aries.component.dsl.OSGi.NOOP;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SplitByOSGiImplTest {
+
+    @Test
+    public void testPadsAreEvictedWhenTheirKeyIsEmpty() {
+        ProbeImpl<Integer> probe = new ProbeImpl<>();
+
+        AtomicInteger opened = new AtomicInteger();
+        AtomicInteger closed = new AtomicInteger();
+        Set<String> live = ConcurrentHashMap.newKeySet();
+
+        OSGiResult result = probe.splitBy(
+            i -> OSGi.just(i % 2),
+            (k, p) -> OSGi.effects(
+                opened::incrementAndGet, closed::incrementAndGet
+            ).then(p.map(i -> k + ":" + i))
+        ).run(
+            new ExecutionContext(null),
+            s -> {
+                live.add(s);
+
+                return () -> live.remove(s);
+            });
+
+        OSGiResult one = probe.getPublisher().publish(1);
+        OSGiResult three = probe.getPublisher().publish(3);
+        OSGiResult two = probe.getPublisher().publish(2);
+
+        assertEquals(2, opened.get());
+        assertEquals(3, live.size());
+
+        one.close();
+
+        assertEquals(0, closed.get());
+
+        three.close();
+
+        assertEquals(1, closed.get());
+        assertEquals(1, live.size());
+
+        probe.getPublisher().publish(5);
+
+        assertEquals(3, opened.get());
+        assertTrue(live.contains("1:5"));
+
+        result.close();
+        two.close();
+
+        assertEquals(3, closed.get());
+    }
+
+    @Test
+    public void testClosingWhileAPadIsCreated() {
+        ProbeImpl<Integer> probe = new ProbeImpl<>();
+
+        AtomicInteger opened = new AtomicInteger();
+        AtomicInteger closed = new AtomicInteger();
+        AtomicReference<OSGiResult> result = new AtomicReference<>();
+        Set<Integer> live = ConcurrentHashMap.newKeySet();
+
+        result.set(probe.splitBy(
+            i -> OSGi.just(i % 2),
+            (k, p) -> OSGi.effects(
+                () -> {
+                    opened.incrementAndGet();
+
+                    result.get().close();
+                },
+                closed::incrementAndGet
+            ).then(p)
+        ).run(
+            new ExecutionContext(null),
+            i -> {
+                live.add(i);
+
+                return () -> live.remove(i);
+            }));
+
+        OSGiResult one = probe.getPublisher().publish(1);
+
+        assertEquals(1, opened.get());
+        assertEquals(1, closed.get());
+        assertTrue(live.isEmpty());
+
+        one.close();
+
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    public void testKeysPublishingIntoEachOther() throws Exception {
+        ProbeImpl<Integer> probe = new ProbeImpl<>();
+
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        Set<Integer> live = ConcurrentHashMap.newKeySet();
+
+        OSGiResult result = probe.splitBy(
+            i -> OSGi.just(i % 2),
+            (k, p) -> p
+        ).run(
+            new ExecutionContext(null),
+            i -> {
+                live.add(i);
+
+                OSGiResult other = NOOP;
+
+                if (i == 2 || i == 3) {
+                    try {
+                        barrier.await(30, TimeUnit.SECONDS);
+                    }
+                    catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+
+                    other = probe.getPublisher().publish(i + 3);
+                }
+
+                OSGiResult published = other;
+
+                return () -> {
+                    live.remove(i);
+
+                    published.close();
+                };
+            });
+
+        OSGiResult zero = probe.getPublisher().publish(0);
+        OSGiResult one = probe.getPublisher().publish(1);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<OSGiResult> two = executorService.submit(
+                () -> probe.getPublisher().publish(2));
+            Future<OSGiResult> three = executorService.submit(
+                () -> probe.getPublisher().publish(3));
+
+            two.get(30, TimeUnit.SECONDS).close();
+            three.get(30, TimeUnit.SECONDS).close();
+        }
+        finally {
+            executorService.shutdownNow();
+        }
+
+        assertEquals(new HashSet<>(Arrays.asList(0, 1)), live);
+
+        zero.close();
+        one.close();
+        result.close();
+
+        assertTrue(live.isEmpty());
+    }
+
+    @Test
+    public void testConcurrentKeys() throws Exception {
+        ProbeImpl<Integer> probe = new ProbeImpl<>();
+
+        AtomicInteger opened = new AtomicInteger();
+        AtomicInteger closed = new AtomicInteger();
+        Set<Integer> live = ConcurrentHashMap.newKeySet();
+
+        OSGiResult result = probe.splitBy(
+            i -> OSGi.just(i % 8),
+            (k, p) -> OSGi.effects(
+                opened::incrementAndGet, closed::incrementAndGet
+            ).then(p)
+        ).run(
+            new ExecutionContext(null),
+            i -> {
+                live.add(i);
+
+                return () -> live.remove(i);
+            });
+
+        int threads = 4;
+        int elements = 2000;
+
+        ExecutorService executorService = Executors.newFixedThreadPool(
+            threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < threads; i++) {
+                int thread = i;
+
+                futures.add(executorService.submit(() -> {
+                    start.await();
+
+                    for (int j = 0; j < elements; j++) {
+                        probe.getPublisher().publish(
+                            thread * elements + j
+                        ).close();
+                    }
+
+                    return null;
+                }));
+            }
+
+            start.countDown();
+
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        }
+        finally {
+            executorService.shutdownNow();
+        }
+
+        assertTrue(live.isEmpty());
+        assertEquals(opened.get(), closed.get());
+
+        result.close();
+
+        assertEquals(opened.get(), closed.get());
+    }
+
+}
@@ -24,6 +24,8 @@ import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author Carlos Sierra Andrés
@@ -95,6 +97,38 @@ public class UpdateSupportTest {
         assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10), list);
     }
 
+    @Test
+    public void testDeferAfterFailedTermination() {
+        List<Integer> list = new ArrayList<>();
+
+        UpdateSupport.runUpdate(() -> {
+            try {
+                UpdateSupport.runUpdate(() -> {
+                    UpdateSupport.deferPublication(() -> list.add(-1));
+                    UpdateSupport.deferTermination(() -> {
+                        throw new IllegalStateException();
+                    });
+                });
+            }
+            catch (IllegalStateException ise) {
+            }
+
+            assertTrue(UpdateSupport.isUpdate());
+
+            UpdateSupport.deferPublication(() -> list.add(2));
+            UpdateSupport.deferTermination(() -> list.add(1));
+        });
+
+        assertFalse(UpdateSupport.isUpdate());
+
+        UpdateSupport.runUpdate(() -> {
+            UpdateSupport.deferPublication(() -> list.add(4));
+            UpdateSupport.deferTermination(() -> list.add(3));
+        });
+
+        assertEquals(Arrays.asList(1, 2, 3, 4), list);
+    }
+
     @Test
     public void testDeferTerminationNestedStackWithUpdate() {
         List<Integer> list = new ArrayList<>();
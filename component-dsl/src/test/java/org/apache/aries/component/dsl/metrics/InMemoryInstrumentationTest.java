@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.metrics;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.OSGiRunnable.ExecutionContext;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class InMemoryInstrumentationTest {
+
+    @Test
+    public void testTheOperatorBeforeASlowEffectIsSlow() {
+        InMemoryInstrumentation instrumentation = new InMemoryInstrumentation();
+
+        OSGi<Integer> source = OSGi.just(Arrays.asList(1, 2));
+
+        OSGi<Integer> slow = source.effects(__ -> sleep(20), __ -> {});
+
+        OSGiResult result = slow.run(
+            new ExecutionContext(null, null, instrumentation));
+
+        OperatorMetrics sourceMetrics = instrumentation.getMetrics(source);
+        OperatorMetrics slowMetrics = instrumentation.getMetrics(slow);
+
+        assertEquals("just", sourceMetrics.getOperator().getName());
+        assertEquals(2, sourceMetrics.getPublishCount());
+        assertEquals(2, sourceMetrics.getLiveCount());
+        assertEquals(2, slowMetrics.getPublishCount());
+        assertTrue(
+            sourceMetrics.getPublishLatency().getTotalNanos() >=
+                TimeUnit.MILLISECONDS.toNanos(40));
+        assertTrue(
+            slowMetrics.getPublishLatency().getTotalNanos() <
+                TimeUnit.MILLISECONDS.toNanos(20));
+        assertEquals(sourceMetrics, instrumentation.getMetrics().get(0));
+
+        result.update();
+
+        assertEquals(2, sourceMetrics.getUpdateCount());
+
+        result.close();
+
+        assertEquals(2, sourceMetrics.getTerminatorCount());
+        assertEquals(0, sourceMetrics.getLiveCount());
+    }
+
+    @Test
+    public void testProgramsRunWithoutInstrumentationAreNotRecorded() {
+        InMemoryInstrumentation instrumentation = new InMemoryInstrumentation();
+
+        OSGi<Integer> program = OSGi.just(1);
+
+        program.run(new ExecutionContext(null)).close();
+
+        assertNull(instrumentation.getMetrics(program));
+        assertEquals(0, instrumentation.getMetrics().size());
+    }
+
+    @Test
+    public void testHistogramPercentiles() {
+        Histogram histogram = new Histogram();
+
+        assertEquals(0, histogram.getPercentileNanos(99));
+
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(5050, histogram.getTotalNanos());
+        assertEquals(100, histogram.getMaxNanos());
+        assertEquals(63, histogram.getPercentileNanos(50));
+        assertEquals(100, histogram.getPercentileNanos(100));
+        assertEquals(1, histogram.getPercentileNanos(1));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.metrics;
+
+import org.apache.aries.component.dsl.OSGi;
+import org.apache.aries.component.dsl.OSGiResult;
+import org.apache.aries.component.dsl.OSGiRunnable.ExecutionContext;
+import org.apache.aries.component.dsl.Utils;
+import org.apache.aries.component.dsl.test.framework.InMemoryFramework;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TopologyInspectorTest {
+
+    @Test
+    public void testSnapshot() {
+        TopologyInspector inspector = new TopologyInspector();
+
+        OSGiResult result = OSGi.just(1).map(i -> i + 1).run(
+            new ExecutionContext(_bundleContext, null, inspector));
+
+        assertEquals(
+            "{\"programs\":[{\"id\":0,\"operator\":\"fused\"," +
+                "\"attributes\":{\"stages\":[\"map\"]},\"published\":1," +
+                "\"live\":1,\"closed\":0,\"updated\":0,\"inputs\":[" +
+                "{\"id\":1,\"operator\":\"just\",\"attributes\":{}," +
+                "\"published\":1,\"live\":1,\"closed\":0,\"updated\":0," +
+                "\"inputs\":[]}]}]}",
+            inspector.snapshot());
+
+        result.close();
+
+        assertEquals("{\"programs\":[]}", inspector.snapshot());
+    }
+
+    @Test
+    public void testSnapshotHasTheStateOfTheOperators() {
+        TopologyInspector inspector = new TopologyInspector();
+
+        OSGiResult registration = inspector.register(_bundleContext);
+
+        OSGi<Integer> numbers = OSGi.just(Arrays.asList(1, 2, 3, 4, 5));
+
+        OSGiResult result = OSGi.all(
+            numbers.flatMap(i -> OSGi.just(i)),
+            numbers.splitBy(i -> OSGi.just(i % 2), (k, p) -> p),
+            Utils.highest(numbers),
+            OSGi.coalesce(OSGi.nothing(), numbers)
+        ).run(
+            new ExecutionContext(_bundleContext, null, inspector)
+        );
+
+        String snapshot = _bundleContext.getService(
+            _bundleContext.getServiceReference(TopologyInspector.class)
+        ).snapshot();
+
+        assertTrue(snapshot, snapshot.contains("\"runs\":[{\"branches\":5}]"));
+        assertTrue(snapshot, snapshot.contains("\"runs\":[{\"pads\":2}]"));
+        assertTrue(
+            snapshot,
+            snapshot.contains("\"runs\":[{\"ranked\":5,\"highest\":\"5\"}]"));
+        assertTrue(snapshot, snapshot.contains("\"runs\":[{\"index\":1}]"));
+        assertTrue(snapshot, snapshot.contains("\"shared\":true"));
+
+        result.close();
+        registration.close();
+    }
+
+    @Test
+    public void testSnapshotHasOnlyTheProgramsRunWithTheInspector() {
+        TopologyInspector inspector = new TopologyInspector();
+
+        OSGiResult uninspected = OSGi.just(1).run(_bundleContext);
+
+        OSGiResult result = OSGi.just(Arrays.asList(1, 2, 3)).flatMap(
+            i -> OSGi.just(i).map(j -> j + 1)
+        ).run(
+            new ExecutionContext(_bundleContext, null, inspector)
+        );
+
+        String snapshot = inspector.snapshot();
+
+        assertEquals(
+            snapshot, 1, snapshot.split("\\{\"id\":0,").length - 1);
+        assertTrue(snapshot, snapshot.contains("\"runs\":[{\"branches\":3}]"));
+
+        result.close();
+        uninspected.close();
+
+        assertEquals("{\"programs\":[]}", inspector.snapshot());
+    }
+
+    private final BundleContext _bundleContext =
+        new InMemoryFramework().getBundleContext();
+
+}
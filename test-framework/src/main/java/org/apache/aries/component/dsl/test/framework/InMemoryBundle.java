@@ -0,0 +1,352 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.test.framework;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceReference;
+import org.osgi.framework.Version;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Dictionary;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bundle with a life cycle and no content. Starting it creates a fresh
+ * {@link BundleContext}; stopping it unregisters the services it registered,
+ * releases the services it used and removes its listeners, as a real
+ * framework would.
+ */
+class InMemoryBundle implements Bundle {
+
+    InMemoryBundle(
+        InMemoryFramework framework, long id, String location,
+        String symbolicName) {
+
+        _framework = framework;
+        _id = id;
+        _location = location;
+        _symbolicName = symbolicName;
+    }
+
+    @Override
+    public <A> A adapt(Class<A> type) {
+        if (type.isInstance(this)) {
+            return type.cast(this);
+        }
+
+        return null;
+    }
+
+    @Override
+    public int compareTo(Bundle bundle) {
+        return Long.compare(_id, bundle.getBundleId());
+    }
+
+    @Override
+    public Enumeration<URL> findEntries(
+        String path, String filePattern, boolean recurse) {
+
+        return null;
+    }
+
+    @Override
+    public synchronized BundleContext getBundleContext() {
+        return _bundleContext;
+    }
+
+    @Override
+    public long getBundleId() {
+        return _id;
+    }
+
+    @Override
+    public File getDataFile(String filename) {
+        return null;
+    }
+
+    @Override
+    public URL getEntry(String path) {
+        return null;
+    }
+
+    @Override
+    public Enumeration<String> getEntryPaths(String path) {
+        return null;
+    }
+
+    @Override
+    public Dictionary<String, String> getHeaders() {
+        Hashtable<String, String> headers = new Hashtable<>();
+
+        headers.put(Constants.BUNDLE_SYMBOLICNAME, _symbolicName);
+        headers.put(Constants.BUNDLE_VERSION, Version.emptyVersion.toString());
+
+        return headers;
+    }
+
+    @Override
+    public Dictionary<String, String> getHeaders(String locale) {
+        return getHeaders();
+    }
+
+    @Override
+    public long getLastModified() {
+        return 0;
+    }
+
+    @Override
+    public String getLocation() {
+        return _location;
+    }
+
+    @Override
+    public ServiceReference<?>[] getRegisteredServices() {
+        List<ServiceReference<?>> serviceReferences = new ArrayList<>();
+
+        for (InMemoryServiceRegistration<?> registration :
+                _framework.getRegistrations()) {
+
+            if (registration.getBundle() == this) {
+                serviceReferences.add(registration.getReference());
+            }
+        }
+
+        if (serviceReferences.isEmpty()) {
+            return null;
+        }
+
+        return serviceReferences.toArray(new ServiceReference<?>[0]);
+    }
+
+    @Override
+    public URL getResource(String name) {
+        return getClass().getClassLoader().getResource(name);
+    }
+
+    @Override
+    public Enumeration<URL> getResources(String name) throws IOException {
+        return getClass().getClassLoader().getResources(name);
+    }
+
+    @Override
+    public ServiceReference<?>[] getServicesInUse() {
+        List<ServiceReference<?>> serviceReferences = new ArrayList<>();
+
+        for (InMemoryServiceRegistration<?> registration :
+                _framework.getRegistrations()) {
+
+            if (registration.isUsedBy(this)) {
+                serviceReferences.add(registration.getReference());
+            }
+        }
+
+        if (serviceReferences.isEmpty()) {
+            return null;
+        }
+
+        return serviceReferences.toArray(new ServiceReference<?>[0]);
+    }
+
+    @Override
+    public Map<X509Certificate, List<X509Certificate>> getSignerCertificates(
+        int signersType) {
+
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public synchronized int getState() {
+        return _state;
+    }
+
+    @Override
+    public String getSymbolicName() {
+        return _symbolicName;
+    }
+
+    @Override
+    public Version getVersion() {
+        return Version.emptyVersion;
+    }
+
+    @Override
+    public boolean hasPermission(Object permission) {
+        return true;
+    }
+
+    @Override
+    public Class<?> loadClass(String name) throws ClassNotFoundException {
+        return getClass().getClassLoader().loadClass(name);
+    }
+
+    @Override
+    public void start() {
+        start(0);
+    }
+
+    @Override
+    public void start(int options) {
+        InMemoryBundleContext bundleContext;
+
+        boolean resolving;
+
+        synchronized (this) {
+            checkInstalled();
+
+            if (_state != INSTALLED && _state != RESOLVED) {
+                return;
+            }
+
+            resolving = _state == INSTALLED;
+
+            _state = RESOLVED;
+        }
+
+        if (resolving) {
+            _framework.fireBundleEvent(
+                new BundleEvent(BundleEvent.RESOLVED, this));
+        }
+
+        synchronized (this) {
+            if (_state != RESOLVED) {
+                return;
+            }
+
+            bundleContext = new InMemoryBundleContext(_framework, this);
+
+            _bundleContext = bundleContext;
+            _state = STARTING;
+        }
+
+        _framework.fireBundleEvent(new BundleEvent(BundleEvent.STARTING, this));
+
+        synchronized (this) {
+            _state = ACTIVE;
+        }
+
+        _framework.fireBundleEvent(new BundleEvent(BundleEvent.STARTED, this));
+    }
+
+    @Override
+    public void stop() {
+        stop(0);
+    }
+
+    @Override
+    public void stop(int options) {
+        InMemoryBundleContext bundleContext;
+
+        synchronized (this) {
+            checkInstalled();
+
+            if (_state != ACTIVE) {
+                return;
+            }
+
+            bundleContext = _bundleContext;
+
+            _state = STOPPING;
+        }
+
+        _framework.fireBundleEvent(new BundleEvent(BundleEvent.STOPPING, this));
+
+        bundleContext.invalidate();
+
+        synchronized (this) {
+            _bundleContext = null;
+            _state = RESOLVED;
+        }
+
+        _framework.fireBundleEvent(new BundleEvent(BundleEvent.STOPPED, this));
+    }
+
+    @Override
+    public String toString() {
+        return _symbolicName + " [" + _id + "]";
+    }
+
+    @Override
+    public void uninstall() {
+        stop();
+
+        boolean resolved;
+
+        synchronized (this) {
+            checkInstalled();
+
+            resolved = _state == RESOLVED;
+
+            _state = UNINSTALLED;
+        }
+
+        _framework.uninstall(this);
+
+        if (resolved) {
+            _framework.fireBundleEvent(
+                new BundleEvent(BundleEvent.UNRESOLVED, this));
+        }
+
+        _framework.fireBundleEvent(
+            new BundleEvent(BundleEvent.UNINSTALLED, this));
+    }
+
+    @Override
+    public void update() {
+        checkInstalled();
+    }
+
+    @Override
+    public void update(InputStream input) {
+        checkInstalled();
+    }
+
+    /**
+     * Moves the bundle straight to {@link #ACTIVE} without delivering any
+     * event. Only used for the system bundle.
+     */
+    synchronized void activate() {
+        _bundleContext = new InMemoryBundleContext(_framework, this);
+        _state = ACTIVE;
+    }
+
+    private synchronized void checkInstalled() {
+        if (_state == UNINSTALLED) {
+            throw new IllegalStateException(this + " is uninstalled");
+        }
+    }
+
+    private InMemoryBundleContext _bundleContext;
+    private final InMemoryFramework _framework;
+    private final long _id;
+    private final String _location;
+    private int _state = INSTALLED;
+    private final String _symbolicName;
+
+}
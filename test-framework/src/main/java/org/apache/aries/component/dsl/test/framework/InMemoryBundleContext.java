@@ -0,0 +1,422 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.test.framework;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleListener;
+import org.osgi.framework.Filter;
+import org.osgi.framework.FrameworkListener;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceEvent;
+import org.osgi.framework.ServiceFactory;
+import org.osgi.framework.ServiceListener;
+import org.osgi.framework.ServiceObjects;
+import org.osgi.framework.ServiceReference;
+import org.osgi.framework.ServiceRegistration;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Dictionary;
+import java.util.List;
+
+/**
+ * The context of an active {@link InMemoryBundle}. Every operation throws
+ * {@link IllegalStateException} once the bundle has been stopped.
+ */
+class InMemoryBundleContext implements BundleContext {
+
+    InMemoryBundleContext(InMemoryFramework framework, InMemoryBundle bundle) {
+        _framework = framework;
+        _bundle = bundle;
+    }
+
+    @Override
+    public void addBundleListener(BundleListener listener) {
+        checkValid();
+
+        _framework.addBundleListener(this, listener);
+    }
+
+    @Override
+    public void addFrameworkListener(FrameworkListener listener) {
+        checkValid();
+    }
+
+    @Override
+    public void addServiceListener(ServiceListener listener) {
+        checkValid();
+
+        _framework.addServiceListener(this, listener, null);
+    }
+
+    @Override
+    public void addServiceListener(ServiceListener listener, String filter)
+        throws InvalidSyntaxException {
+
+        checkValid();
+
+        _framework.addServiceListener(
+            this, listener, filter == null ? null : createFilter(filter));
+    }
+
+    @Override
+    public Filter createFilter(String filter) throws InvalidSyntaxException {
+        checkValid();
+
+        return FrameworkUtil.createFilter(filter);
+    }
+
+    @Override
+    public ServiceReference<?>[] getAllServiceReferences(
+            String clazz, String filter)
+        throws InvalidSyntaxException {
+
+        return getServiceReferences(clazz, filter);
+    }
+
+    @Override
+    public Bundle getBundle() {
+        checkValid();
+
+        return _bundle;
+    }
+
+    @Override
+    public Bundle getBundle(long id) {
+        checkValid();
+
+        return _framework.getBundle(id);
+    }
+
+    @Override
+    public Bundle getBundle(String location) {
+        checkValid();
+
+        return _framework.getBundle(location);
+    }
+
+    @Override
+    public Bundle[] getBundles() {
+        checkValid();
+
+        return _framework.getBundles();
+    }
+
+    @Override
+    public File getDataFile(String filename) {
+        checkValid();
+
+        return null;
+    }
+
+    @Override
+    public String getProperty(String key) {
+        checkValid();
+
+        return System.getProperty(key);
+    }
+
+    @Override
+    public <S> S getService(ServiceReference<S> reference) {
+        checkValid();
+
+        return registrationOf(reference).getService(_bundle);
+    }
+
+    @Override
+    public <S> ServiceObjects<S> getServiceObjects(
+        ServiceReference<S> reference) {
+
+        checkValid();
+
+        return registrationOf(reference).getServiceObjects(_bundle);
+    }
+
+    @Override
+    public <S> ServiceReference<S> getServiceReference(Class<S> clazz) {
+        @SuppressWarnings("unchecked")
+        ServiceReference<S> serviceReference =
+            (ServiceReference<S>)getServiceReference(clazz.getName());
+
+        return serviceReference;
+    }
+
+    @Override
+    public ServiceReference<?> getServiceReference(String clazz) {
+        checkValid();
+
+        ServiceReference<?> best = null;
+
+        for (InMemoryServiceRegistration<?> registration :
+                _framework.getRegistrations()) {
+
+            if (!registration.matches(clazz)) {
+                continue;
+            }
+
+            ServiceReference<?> serviceReference = referenceOf(registration);
+
+            if (serviceReference != null &&
+                (best == null || serviceReference.compareTo(best) > 0)) {
+
+                best = serviceReference;
+            }
+        }
+
+        return best;
+    }
+
+    @Override
+    public <S> Collection<ServiceReference<S>> getServiceReferences(
+            Class<S> clazz, String filter)
+        throws InvalidSyntaxException {
+
+        ServiceReference<?>[] serviceReferences = getServiceReferences(
+            clazz.getName(), filter);
+
+        if (serviceReferences == null) {
+            return Collections.emptyList();
+        }
+
+        List<ServiceReference<S>> list = new ArrayList<>(
+            serviceReferences.length);
+
+        for (ServiceReference<?> serviceReference : serviceReferences) {
+            @SuppressWarnings("unchecked")
+            ServiceReference<S> typed = (ServiceReference<S>)serviceReference;
+
+            list.add(typed);
+        }
+
+        return list;
+    }
+
+    @Override
+    public ServiceReference<?>[] getServiceReferences(
+            String clazz, String filter)
+        throws InvalidSyntaxException {
+
+        checkValid();
+
+        Filter compiled = filter == null ? null : createFilter(filter);
+
+        List<ServiceReference<?>> serviceReferences = new ArrayList<>();
+
+        for (InMemoryServiceRegistration<?> registration :
+                _framework.getRegistrations()) {
+
+            if (!registration.matches(clazz)) {
+                continue;
+            }
+
+            ServiceReference<?> serviceReference = referenceOf(registration);
+
+            if (serviceReference != null &&
+                (compiled == null || compiled.match(serviceReference))) {
+
+                serviceReferences.add(serviceReference);
+            }
+        }
+
+        if (serviceReferences.isEmpty()) {
+            return null;
+        }
+
+        return serviceReferences.toArray(new ServiceReference<?>[0]);
+    }
+
+    @Override
+    public Bundle installBundle(String location) {
+        checkValid();
+
+        return _framework.installBundle(location);
+    }
+
+    @Override
+    public Bundle installBundle(String location, InputStream input) {
+        return installBundle(location);
+    }
+
+    @Override
+    public <S> ServiceRegistration<S> registerService(
+        Class<S> clazz, S service, Dictionary<String, ?> properties) {
+
+        @SuppressWarnings("unchecked")
+        ServiceRegistration<S> serviceRegistration =
+            (ServiceRegistration<S>)registerService(
+                new String[] {clazz.getName()}, service, properties);
+
+        return serviceRegistration;
+    }
+
+    @Override
+    public <S> ServiceRegistration<S> registerService(
+        Class<S> clazz, ServiceFactory<S> factory,
+        Dictionary<String, ?> properties) {
+
+        @SuppressWarnings("unchecked")
+        ServiceRegistration<S> serviceRegistration =
+            (ServiceRegistration<S>)registerService(
+                new String[] {clazz.getName()}, factory, properties);
+
+        return serviceRegistration;
+    }
+
+    @Override
+    public ServiceRegistration<?> registerService(
+        String clazz, Object service, Dictionary<String, ?> properties) {
+
+        return registerService(new String[] {clazz}, service, properties);
+    }
+
+    @Override
+    public ServiceRegistration<?> registerService(
+        String[] classes, Object service, Dictionary<String, ?> properties) {
+
+        checkValid();
+
+        if (service == null) {
+            throw new IllegalArgumentException("Service can not be null");
+        }
+
+        if (classes == null || classes.length == 0) {
+            throw new IllegalArgumentException(
+                "At least one class name is required");
+        }
+
+        InMemoryServiceRegistration<?> registration =
+            new InMemoryServiceRegistration<>(
+                _framework, _bundle, classes, service, properties);
+
+        _framework.register(registration);
+
+        _framework.fireServiceEvent(
+            new ServiceEvent(
+                ServiceEvent.REGISTERED, registration.getReference()),
+            null);
+
+        return registration;
+    }
+
+    @Override
+    public void removeBundleListener(BundleListener listener) {
+        checkValid();
+
+        _framework.removeBundleListener(this, listener);
+    }
+
+    @Override
+    public void removeFrameworkListener(FrameworkListener listener) {
+        checkValid();
+    }
+
+    @Override
+    public void removeServiceListener(ServiceListener listener) {
+        checkValid();
+
+        _framework.removeServiceListener(this, listener);
+    }
+
+    @Override
+    public String toString() {
+        return "BundleContext of " + _bundle;
+    }
+
+    @Override
+    public boolean ungetService(ServiceReference<?> reference) {
+        checkValid();
+
+        return registrationOf(reference).ungetService(_bundle);
+    }
+
+    /**
+     * Cleans up after the bundle the way a framework does when a bundle
+     * stops: listeners are removed, registered services are unregistered and
+     * used services are released.
+     */
+    void invalidate() {
+        _framework.removeListeners(this);
+
+        for (InMemoryServiceRegistration<?> registration :
+                _framework.getRegistrations()) {
+
+            if (registration.getBundle() == _bundle) {
+                try {
+                    registration.unregister();
+                }
+                catch (IllegalStateException ise) {
+                    // concurrently unregistered
+                }
+            }
+        }
+
+        for (InMemoryServiceRegistration<?> registration :
+                _framework.getRegistrations()) {
+
+            registration.release(_bundle);
+        }
+
+        _valid = false;
+    }
+
+    boolean isValid() {
+        return _valid;
+    }
+
+    private static ServiceReference<?> referenceOf(
+        InMemoryServiceRegistration<?> registration) {
+
+        try {
+            return registration.getReference();
+        }
+        catch (IllegalStateException ise) {
+            return null;
+        }
+    }
+
+    private void checkValid() {
+        if (!_valid) {
+            throw new IllegalStateException(
+                "BundleContext of " + _bundle + " is no longer valid");
+        }
+    }
+
+    private <S> InMemoryServiceRegistration<S> registrationOf(
+        ServiceReference<S> reference) {
+
+        InMemoryServiceRegistration<S> registration =
+            InMemoryServiceRegistration.of(reference);
+
+        if (registration == null || registration.getFramework() != _framework) {
+            throw new IllegalArgumentException(
+                reference + " does not belong to this framework");
+        }
+
+        return registration;
+    }
+
+    private final InMemoryBundle _bundle;
+    private final InMemoryFramework _framework;
+    private volatile boolean _valid = true;
+
+}
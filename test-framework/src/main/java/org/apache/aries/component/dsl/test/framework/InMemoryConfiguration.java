@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.test.framework;
+
+import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceReference;
+import org.osgi.service.cm.Configuration;
+import org.osgi.service.cm.ConfigurationAdmin;
+import org.osgi.service.cm.ConfigurationEvent;
+import org.osgi.service.cm.ReadOnlyConfigurationException;
+
+import java.util.Dictionary;
+import java.util.EnumSet;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.Set;
+
+/**
+ * A configuration held by an {@link InMemoryConfigurationAdmin}. There is a
+ * single live instance per pid, so every holder observes the latest
+ * properties and change count.
+ */
+class InMemoryConfiguration implements Configuration {
+
+    InMemoryConfiguration(
+        InMemoryConfigurationAdmin configurationAdmin, String pid,
+        String factoryPid, String location) {
+
+        _configurationAdmin = configurationAdmin;
+        _pid = pid;
+        _factoryPid = factoryPid;
+        _location = location;
+    }
+
+    @Override
+    public void addAttributes(ConfigurationAttribute... attrs) {
+        synchronized (this) {
+            checkDeleted();
+
+            for (ConfigurationAttribute attr : attrs) {
+                _attributes.add(attr);
+            }
+        }
+    }
+
+    @Override
+    public void delete() {
+        synchronized (this) {
+            checkDeleted();
+
+            _deleted = true;
+        }
+
+        _configurationAdmin.remove(_pid, this);
+
+        _configurationAdmin.fireEvent(
+            ConfigurationEvent.CM_DELETED, _factoryPid, _pid);
+    }
+
+    @Override
+    public synchronized Set<ConfigurationAttribute> getAttributes() {
+        checkDeleted();
+
+        return EnumSet.copyOf(_attributes);
+    }
+
+    @Override
+    public synchronized String getBundleLocation() {
+        checkDeleted();
+
+        return _location;
+    }
+
+    @Override
+    public synchronized long getChangeCount() {
+        checkDeleted();
+
+        return _changeCount;
+    }
+
+    @Override
+    public String getFactoryPid() {
+        checkDeleted();
+
+        return _factoryPid;
+    }
+
+    @Override
+    public String getPid() {
+        checkDeleted();
+
+        return _pid;
+    }
+
+    @Override
+    public Dictionary<String, Object> getProcessedProperties(
+        ServiceReference<?> reference) {
+
+        return getProperties();
+    }
+
+    @Override
+    public synchronized Dictionary<String, Object> getProperties() {
+        checkDeleted();
+
+        return getPropertiesOrNull();
+    }
+
+    @Override
+    public synchronized void removeAttributes(ConfigurationAttribute... attrs) {
+        checkDeleted();
+
+        for (ConfigurationAttribute attr : attrs) {
+            _attributes.remove(attr);
+        }
+    }
+
+    @Override
+    public void setBundleLocation(String location) {
+        synchronized (this) {
+            checkDeleted();
+
+            _location = location;
+        }
+
+        _configurationAdmin.fireEvent(
+            ConfigurationEvent.CM_LOCATION_CHANGED, _factoryPid, _pid);
+    }
+
+    @Override
+    public String toString() {
+        return "Configuration[" + _pid + "]";
+    }
+
+    /**
+     * There is no persistent storage to read from, so this only checks the
+     * configuration still exists.
+     */
+    @Override
+    public synchronized void update() {
+        checkDeleted();
+    }
+
+    @Override
+    public void update(Dictionary<String, ?> properties)
+        throws ReadOnlyConfigurationException {
+
+        synchronized (this) {
+            checkDeleted();
+
+            if (_attributes.contains(ConfigurationAttribute.READ_ONLY)) {
+                throw new ReadOnlyConfigurationException(
+                    _pid + " is read only");
+            }
+
+            _properties = copy(properties);
+            _changeCount++;
+        }
+
+        _configurationAdmin.fireEvent(
+            ConfigurationEvent.CM_UPDATED, _factoryPid, _pid);
+    }
+
+    @Override
+    public boolean updateIfDifferent(Dictionary<String, ?> properties)
+        throws ReadOnlyConfigurationException {
+
+        synchronized (this) {
+            checkDeleted();
+
+            if (_properties != null && _properties.equals(copy(properties))) {
+                return false;
+            }
+        }
+
+        update(properties);
+
+        return true;
+    }
+
+    /**
+     * @return a copy of the properties including {@code service.pid} and
+     * {@code service.factoryPid}, or {@code null} if the configuration has
+     * not been updated yet
+     */
+    synchronized Hashtable<String, Object> getPropertiesOrNull() {
+        if (_properties == null) {
+            return null;
+        }
+
+        return new Hashtable<>(_properties);
+    }
+
+    private void checkDeleted() {
+        if (_deleted) {
+            throw new IllegalStateException(
+                "Configuration " + _pid + " has been deleted");
+        }
+    }
+
+    private Hashtable<String, Object> copy(Dictionary<String, ?> properties) {
+        Hashtable<String, Object> copy = new Hashtable<>();
+
+        if (properties != null) {
+            Enumeration<String> keys = properties.keys();
+
+            while (keys.hasMoreElements()) {
+                String key = keys.nextElement();
+
+                copy.put(key, properties.get(key));
+            }
+        }
+
+        copy.put(Constants.SERVICE_PID, _pid);
+
+        if (_factoryPid != null) {
+            copy.put(ConfigurationAdmin.SERVICE_FACTORYPID, _factoryPid);
+        }
+
+        return copy;
+    }
+
+    private final Set<ConfigurationAttribute> _attributes = EnumSet.noneOf(
+        ConfigurationAttribute.class);
+    private long _changeCount;
+    private final InMemoryConfigurationAdmin _configurationAdmin;
+    private volatile boolean _deleted;
+    private final String _factoryPid;
+    private String _location;
+    private final String _pid;
+    private Hashtable<String, Object> _properties;
+
+}
@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.test.framework;
+
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Filter;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceReference;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.service.cm.Configuration;
+import org.osgi.service.cm.ConfigurationAdmin;
+import org.osgi.service.cm.ConfigurationEvent;
+import org.osgi.service.cm.ConfigurationListener;
+import org.osgi.service.cm.SynchronousConfigurationListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * A {@link ConfigurationAdmin} that keeps configurations in memory. Once
+ * {@link #open() opened} it is registered in the given {@link BundleContext}
+ * and delivers {@link ConfigurationEvent}s to the registered
+ * {@link ConfigurationListener}s.
+ *
+ * <p>Events are delivered on the thread changing the configuration unless
+ * an {@link Executor} is given, in which case only
+ * {@link SynchronousConfigurationListener}s are called on that thread, as
+ * the specification mandates.</p>
+ */
+public class InMemoryConfigurationAdmin implements ConfigurationAdmin {
+
+    public InMemoryConfigurationAdmin(BundleContext bundleContext) {
+        this(bundleContext, null);
+    }
+
+    public InMemoryConfigurationAdmin(
+        BundleContext bundleContext, Executor executor) {
+
+        _bundleContext = bundleContext;
+        _executor = executor;
+    }
+
+    public synchronized void close() {
+        if (_serviceRegistration != null) {
+            _serviceRegistration.unregister();
+
+            _serviceRegistration = null;
+        }
+    }
+
+    @Override
+    public Configuration createFactoryConfiguration(String factoryPid) {
+        return createFactoryConfiguration(factoryPid, null);
+    }
+
+    @Override
+    public synchronized Configuration createFactoryConfiguration(
+        String factoryPid, String location) {
+
+        int counter = _factoryCounters.merge(factoryPid, 1, Integer::sum);
+
+        return getOrCreate(factoryPid + "." + counter, factoryPid, location);
+    }
+
+    @Override
+    public Configuration getConfiguration(String pid) {
+        return getConfiguration(pid, null);
+    }
+
+    @Override
+    public synchronized Configuration getConfiguration(
+        String pid, String location) {
+
+        return getOrCreate(pid, null, location);
+    }
+
+    @Override
+    public Configuration getFactoryConfiguration(
+        String factoryPid, String name) {
+
+        return getFactoryConfiguration(factoryPid, name, null);
+    }
+
+    @Override
+    public synchronized Configuration getFactoryConfiguration(
+        String factoryPid, String name, String location) {
+
+        return getOrCreate(factoryPid + "~" + name, factoryPid, location);
+    }
+
+    /**
+     * Lists the configurations having properties that match the filter, or
+     * all of them when the filter is {@code null}.
+     *
+     * @return the matching configurations or {@code null} if there are none
+     */
+    @Override
+    public Configuration[] listConfigurations(String filter)
+        throws InvalidSyntaxException {
+
+        Filter compiled = filter == null ? null : FrameworkUtil.createFilter(
+            filter);
+
+        Collection<InMemoryConfiguration> configurations;
+
+        synchronized (this) {
+            configurations = new ArrayList<>(_configurations.values());
+        }
+
+        List<Configuration> matching = new ArrayList<>();
+
+        for (InMemoryConfiguration configuration : configurations) {
+            Hashtable<String, Object> properties =
+                configuration.getPropertiesOrNull();
+
+            if (properties != null &&
+                (compiled == null || compiled.match(properties))) {
+
+                matching.add(configuration);
+            }
+        }
+
+        if (matching.isEmpty()) {
+            return null;
+        }
+
+        return matching.toArray(new Configuration[0]);
+    }
+
+    /**
+     * Registers this instance as a {@link ConfigurationAdmin} service. Events
+     * are only delivered while the service is registered.
+     */
+    public synchronized void open() {
+        if (_serviceRegistration == null) {
+            _serviceRegistration = _bundleContext.registerService(
+                ConfigurationAdmin.class, this, new Hashtable<>());
+        }
+    }
+
+    void fireEvent(int type, String factoryPid, String pid) {
+        ServiceReference<ConfigurationAdmin> reference;
+
+        synchronized (this) {
+            if (_serviceRegistration == null) {
+                return;
+            }
+
+            reference = _serviceRegistration.getReference();
+        }
+
+        ConfigurationEvent event = new ConfigurationEvent(
+            reference, type, factoryPid, pid);
+
+        Collection<ServiceReference<ConfigurationListener>> listeners;
+
+        try {
+            listeners = _bundleContext.getServiceReferences(
+                ConfigurationListener.class, null);
+        }
+        catch (InvalidSyntaxException ise) {
+            throw new RuntimeException(ise);
+        }
+
+        for (ServiceReference<ConfigurationListener> listener : listeners) {
+            ConfigurationListener configurationListener =
+                _bundleContext.getService(listener);
+
+            if (configurationListener == null) {
+                continue;
+            }
+
+            try {
+                if (_executor == null ||
+                    configurationListener instanceof
+                        SynchronousConfigurationListener) {
+
+                    deliver(listener, configurationListener, event);
+                }
+                else {
+                    _executor.execute(
+                        () -> deliver(listener, configurationListener, event));
+                }
+            }
+            finally {
+                _bundleContext.ungetService(listener);
+            }
+        }
+    }
+
+    synchronized void remove(String pid, InMemoryConfiguration configuration) {
+        _configurations.remove(pid, configuration);
+    }
+
+    private void deliver(
+        ServiceReference<ConfigurationListener> listener,
+        ConfigurationListener configurationListener,
+        ConfigurationEvent event) {
+
+        if (listener.getBundle() == null) {
+            return;
+        }
+
+        try {
+            configurationListener.configurationEvent(event);
+        }
+        catch (Exception e) {
+            //TODO: logging
+        }
+    }
+
+    private InMemoryConfiguration getOrCreate(
+        String pid, String factoryPid, String location) {
+
+        return _configurations.computeIfAbsent(
+            pid,
+            __ -> new InMemoryConfiguration(this, pid, factoryPid, location));
+    }
+
+    private final BundleContext _bundleContext;
+    private final Map<String, InMemoryConfiguration> _configurations =
+        new LinkedHashMap<>();
+    private final Executor _executor;
+    private final Map<String, Integer> _factoryCounters = new HashMap<>();
+    private ServiceRegistration<ConfigurationAdmin> _serviceRegistration;
+
+}
@@ -0,0 +1,307 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.test.framework;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.BundleListener;
+import org.osgi.framework.Constants;
+import org.osgi.framework.Filter;
+import org.osgi.framework.ServiceEvent;
+import org.osgi.framework.ServiceListener;
+import org.osgi.framework.SynchronousBundleListener;
+
+import java.util.ArrayList;
+import java.util.Dictionary;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A framework-free stand-in for an OSGi framework. It keeps a service
+ * registry, delivers service and bundle events synchronously on the calling
+ * thread and hands out {@link BundleContext} instances that behave closely
+ * enough to the real ones for {@code ServiceTracker}, {@code BundleTracker}
+ * and the DSL programs to run on top of them in a plain JVM.
+ *
+ * <p>There is no class loading, resolving or persistence involved: bundles are
+ * only identities with a life cycle, installed through
+ * {@link #installBundle(String)}, and every service is assignable to every
+ * bundle.</p>
+ */
+public class InMemoryFramework {
+
+    public InMemoryFramework() {
+        _systemBundle = new InMemoryBundle(
+            this, 0, Constants.SYSTEM_BUNDLE_LOCATION,
+            Constants.SYSTEM_BUNDLE_SYMBOLICNAME);
+
+        _bundles.put(0L, _systemBundle);
+
+        _systemBundle.activate();
+    }
+
+    /**
+     * @return the context of the system bundle, which is always active
+     */
+    public BundleContext getBundleContext() {
+        return _systemBundle.getBundleContext();
+    }
+
+    /**
+     * Installs a new bundle in {@link Bundle#INSTALLED} state. If a bundle
+     * is already installed with the given location that bundle is returned.
+     *
+     * @param location the location, also used as symbolic name
+     * @return the installed bundle
+     */
+    public Bundle installBundle(String location) {
+        InMemoryBundle bundle;
+
+        synchronized (this) {
+            for (InMemoryBundle installed : _bundles.values()) {
+                if (installed.getLocation().equals(location)) {
+                    return installed;
+                }
+            }
+
+            bundle = new InMemoryBundle(this, _nextBundleId++, location, location);
+
+            _bundles.put(bundle.getBundleId(), bundle);
+        }
+
+        fireBundleEvent(new BundleEvent(BundleEvent.INSTALLED, bundle));
+
+        return bundle;
+    }
+
+    public synchronized Bundle[] getBundles() {
+        return _bundles.values().toArray(new Bundle[0]);
+    }
+
+    synchronized Bundle getBundle(long id) {
+        return _bundles.get(id);
+    }
+
+    synchronized Bundle getBundle(String location) {
+        for (InMemoryBundle bundle : _bundles.values()) {
+            if (bundle.getLocation().equals(location)) {
+                return bundle;
+            }
+        }
+
+        return null;
+    }
+
+    synchronized void addBundleListener(
+        InMemoryBundleContext bundleContext, BundleListener listener) {
+
+        for (BundleListenerEntry entry : _bundleListeners) {
+            if (entry.bundleContext == bundleContext &&
+                entry.listener == listener) {
+
+                return;
+            }
+        }
+
+        _bundleListeners.add(new BundleListenerEntry(bundleContext, listener));
+    }
+
+    synchronized void addServiceListener(
+        InMemoryBundleContext bundleContext, ServiceListener listener,
+        Filter filter) {
+
+        ServiceListenerEntry newEntry = new ServiceListenerEntry(
+            bundleContext, listener, filter);
+
+        for (ServiceListenerEntry entry : _serviceListeners) {
+            if (entry.bundleContext == bundleContext &&
+                entry.listener == listener) {
+
+                _serviceListeners.set(_serviceListeners.indexOf(entry), newEntry);
+
+                return;
+            }
+        }
+
+        _serviceListeners.add(newEntry);
+    }
+
+    void fireBundleEvent(BundleEvent bundleEvent) {
+        int type = bundleEvent.getType();
+
+        boolean synchronousOnly =
+            type == BundleEvent.STARTING || type == BundleEvent.STOPPING ||
+            type == BundleEvent.LAZY_ACTIVATION;
+
+        for (BundleListenerEntry entry : _bundleListeners) {
+            if (synchronousOnly &&
+                !(entry.listener instanceof SynchronousBundleListener)) {
+
+                continue;
+            }
+
+            if (!entry.bundleContext.isValid()) {
+                continue;
+            }
+
+            try {
+                entry.listener.bundleChanged(bundleEvent);
+            }
+            catch (Exception e) {
+                //TODO: logging
+            }
+        }
+    }
+
+    /**
+     * Delivers a service event to the interested listeners. Listeners whose
+     * filter matched the properties before a modification and no longer
+     * match them receive a {@link ServiceEvent#MODIFIED_ENDMATCH} instead.
+     */
+    void fireServiceEvent(
+        ServiceEvent serviceEvent, Dictionary<String, ?> previousProperties) {
+
+        ServiceEvent endMatch = null;
+
+        for (ServiceListenerEntry entry : _serviceListeners) {
+            if (!entry.bundleContext.isValid()) {
+                continue;
+            }
+
+            ServiceEvent event = serviceEvent;
+
+            if (entry.filter != null &&
+                !entry.filter.match(serviceEvent.getServiceReference())) {
+
+                if (previousProperties == null ||
+                    !entry.filter.match(previousProperties)) {
+
+                    continue;
+                }
+
+                if (endMatch == null) {
+                    endMatch = new ServiceEvent(
+                        ServiceEvent.MODIFIED_ENDMATCH,
+                        serviceEvent.getServiceReference());
+                }
+
+                event = endMatch;
+            }
+
+            try {
+                entry.listener.serviceChanged(event);
+            }
+            catch (Exception e) {
+                //TODO: logging
+            }
+        }
+    }
+
+    synchronized List<InMemoryServiceRegistration<?>> getRegistrations() {
+        return new ArrayList<>(_registrations);
+    }
+
+    synchronized long nextServiceId() {
+        return _nextServiceId++;
+    }
+
+    synchronized void register(InMemoryServiceRegistration<?> registration) {
+        _registrations.add(registration);
+    }
+
+    void removeBundleListener(
+        InMemoryBundleContext bundleContext, BundleListener listener) {
+
+        _bundleListeners.removeIf(
+            entry -> entry.bundleContext == bundleContext &&
+                entry.listener == listener);
+    }
+
+    void removeListeners(InMemoryBundleContext bundleContext) {
+        _bundleListeners.removeIf(
+            entry -> entry.bundleContext == bundleContext);
+        _serviceListeners.removeIf(
+            entry -> entry.bundleContext == bundleContext);
+    }
+
+    void removeServiceListener(
+        InMemoryBundleContext bundleContext, ServiceListener listener) {
+
+        _serviceListeners.removeIf(
+            entry -> entry.bundleContext == bundleContext &&
+                entry.listener == listener);
+    }
+
+    synchronized void uninstall(InMemoryBundle bundle) {
+        _bundles.remove(bundle.getBundleId());
+    }
+
+    synchronized boolean unregister(
+        InMemoryServiceRegistration<?> registration) {
+
+        return _registrations.remove(registration);
+    }
+
+    private final List<BundleListenerEntry> _bundleListeners =
+        new CopyOnWriteArrayList<>();
+    private final Map<Long, InMemoryBundle> _bundles = new LinkedHashMap<>();
+    private long _nextBundleId = 1;
+    private long _nextServiceId = 1;
+    private final Set<InMemoryServiceRegistration<?>> _registrations =
+        new LinkedHashSet<>();
+    private final List<ServiceListenerEntry> _serviceListeners =
+        new CopyOnWriteArrayList<>();
+    private final InMemoryBundle _systemBundle;
+
+    private static class BundleListenerEntry {
+
+        BundleListenerEntry(
+            InMemoryBundleContext bundleContext, BundleListener listener) {
+
+            this.bundleContext = bundleContext;
+            this.listener = listener;
+        }
+
+        final InMemoryBundleContext bundleContext;
+        final BundleListener listener;
+
+    }
+
+    private static class ServiceListenerEntry {
+
+        ServiceListenerEntry(
+            InMemoryBundleContext bundleContext, ServiceListener listener,
+            Filter filter) {
+
+            this.bundleContext = bundleContext;
+            this.listener = listener;
+            this.filter = filter;
+        }
+
+        final InMemoryBundleContext bundleContext;
+        final Filter filter;
+        final ServiceListener listener;
+
+    }
+
+}
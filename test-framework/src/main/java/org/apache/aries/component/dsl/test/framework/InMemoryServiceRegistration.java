@@ -0,0 +1,527 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.component.dsl.test.framework;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.Constants;
+import org.osgi.framework.PrototypeServiceFactory;
+import org.osgi.framework.ServiceEvent;
+import org.osgi.framework.ServiceFactory;
+import org.osgi.framework.ServiceObjects;
+import org.osgi.framework.ServiceReference;
+import org.osgi.framework.ServiceRegistration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Dictionary;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A registration in the {@link InMemoryFramework} registry. It keeps the
+ * usage count of every bundle getting the service so service factories are
+ * honoured and every service is released when the registration goes away.
+ */
+class InMemoryServiceRegistration<S> implements ServiceRegistration<S> {
+
+    InMemoryServiceRegistration(
+        InMemoryFramework framework, InMemoryBundle bundle, String[] classes,
+        Object service, Dictionary<String, ?> properties) {
+
+        _framework = framework;
+        _bundle = bundle;
+        _classes = classes.clone();
+        _service = service;
+        _serviceId = framework.nextServiceId();
+
+        if (service instanceof PrototypeServiceFactory) {
+            _scope = Constants.SCOPE_PROTOTYPE;
+        }
+        else if (service instanceof ServiceFactory) {
+            _scope = Constants.SCOPE_BUNDLE;
+        }
+        else {
+            _scope = Constants.SCOPE_SINGLETON;
+        }
+
+        _properties = buildProperties(properties);
+        _reference = new Reference();
+    }
+
+    @Override
+    public synchronized ServiceReference<S> getReference() {
+        if (_state == State.UNREGISTERED) {
+            throw new IllegalStateException("Service already unregistered");
+        }
+
+        return _reference;
+    }
+
+    @Override
+    public void setProperties(Dictionary<String, ?> properties) {
+        Map<String, Object> previous;
+
+        synchronized (this) {
+            if (_state != State.REGISTERED) {
+                throw new IllegalStateException(
+                    "Service already unregistered");
+            }
+
+            previous = _properties;
+
+            _properties = buildProperties(properties);
+        }
+
+        _framework.fireServiceEvent(
+            new ServiceEvent(ServiceEvent.MODIFIED, _reference),
+            new Hashtable<>(previous));
+    }
+
+    @Override
+    public String toString() {
+        return _reference.toString();
+    }
+
+    @Override
+    public void unregister() {
+        synchronized (this) {
+            if (_state != State.REGISTERED) {
+                throw new IllegalStateException(
+                    "Service already unregistered");
+            }
+
+            _state = State.UNREGISTERING;
+        }
+
+        _framework.fireServiceEvent(
+            new ServiceEvent(ServiceEvent.UNREGISTERING, _reference), null);
+
+        _framework.unregister(this);
+
+        List<Usage> usages = new ArrayList<>();
+        List<List<S>> released = new ArrayList<>();
+
+        synchronized (this) {
+            _state = State.UNREGISTERED;
+
+            for (Usage usage : _usages.values()) {
+                usages.add(usage);
+                released.add(usage.drain());
+            }
+
+            _usages.clear();
+        }
+
+        for (int i = 0; i < usages.size(); i++) {
+            for (S service : released.get(i)) {
+                destroyService(usages.get(i)._bundle, service);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static <S> InMemoryServiceRegistration<S> of(
+        ServiceReference<S> reference) {
+
+        if (reference instanceof InMemoryServiceRegistration.Reference) {
+            return ((InMemoryServiceRegistration<S>.Reference)reference).
+                getRegistration();
+        }
+
+        return null;
+    }
+
+    InMemoryBundle getBundle() {
+        return _bundle;
+    }
+
+    InMemoryFramework getFramework() {
+        return _framework;
+    }
+
+    S getService(Bundle bundle) {
+        synchronized (this) {
+            if (_state == State.UNREGISTERED) {
+                return null;
+            }
+
+            Usage usage = _usages.computeIfAbsent(bundle, Usage::new);
+
+            if (usage._count == 0) {
+                usage._cached = createService(bundle);
+
+                if (usage._cached == null) {
+                    removeIfUnused(usage);
+
+                    return null;
+                }
+            }
+
+            usage._count++;
+
+            return usage._cached;
+        }
+    }
+
+    ServiceObjects<S> getServiceObjects(Bundle bundle) {
+        synchronized (this) {
+            if (_state == State.UNREGISTERED) {
+                return null;
+            }
+        }
+
+        return new InMemoryServiceObjects(bundle);
+    }
+
+    synchronized boolean isUsedBy(Bundle bundle) {
+        return _usages.containsKey(bundle);
+    }
+
+    boolean matches(String clazz) {
+        if (clazz == null) {
+            return true;
+        }
+
+        for (String registeredClass : _classes) {
+            if (registeredClass.equals(clazz)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Releases every service the bundle got from this registration, as
+     * happens when the bundle stops.
+     */
+    void release(Bundle bundle) {
+        List<S> released;
+
+        synchronized (this) {
+            Usage usage = _usages.remove(bundle);
+
+            if (usage == null) {
+                return;
+            }
+
+            released = usage.drain();
+        }
+
+        for (S service : released) {
+            destroyService(bundle, service);
+        }
+    }
+
+    boolean ungetService(Bundle bundle) {
+        S released;
+
+        synchronized (this) {
+            Usage usage = _usages.get(bundle);
+
+            if (usage == null || usage._count == 0) {
+                return false;
+            }
+
+            if (--usage._count > 0) {
+                return true;
+            }
+
+            released = usage._cached;
+
+            usage._cached = null;
+
+            removeIfUnused(usage);
+        }
+
+        destroyService(bundle, released);
+
+        return true;
+    }
+
+    private Map<String, Object> buildProperties(
+        Dictionary<String, ?> properties) {
+
+        TreeMap<String, Object> map = new TreeMap<>(
+            String.CASE_INSENSITIVE_ORDER);
+
+        if (properties != null) {
+            Enumeration<String> keys = properties.keys();
+
+            while (keys.hasMoreElements()) {
+                String key = keys.nextElement();
+
+                if (map.containsKey(key)) {
+                    throw new IllegalArgumentException(
+                        "Duplicate property key ignoring case: " + key);
+                }
+
+                map.put(key, properties.get(key));
+            }
+        }
+
+        map.put(Constants.OBJECTCLASS, _classes.clone());
+        map.put(Constants.SERVICE_BUNDLEID, _bundle.getBundleId());
+        map.put(Constants.SERVICE_ID, _serviceId);
+        map.put(Constants.SERVICE_SCOPE, _scope);
+
+        return Collections.unmodifiableMap(map);
+    }
+
+    @SuppressWarnings("unchecked")
+    private S createService(Bundle bundle) {
+        if (_service instanceof ServiceFactory) {
+            try {
+                return ((ServiceFactory<S>)_service).getService(bundle, this);
+            }
+            catch (Exception e) {
+                //TODO: logging
+
+                return null;
+            }
+        }
+
+        return (S)_service;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void destroyService(Bundle bundle, S service) {
+        if (_service instanceof ServiceFactory) {
+            try {
+                ((ServiceFactory<S>)_service).ungetService(
+                    bundle, this, service);
+            }
+            catch (Exception e) {
+                //TODO: logging
+            }
+        }
+    }
+
+    private void removeIfUnused(Usage usage) {
+        if (usage.isUnused()) {
+            _usages.remove(usage._bundle);
+        }
+    }
+
+    private final InMemoryBundle _bundle;
+    private final String[] _classes;
+    private final InMemoryFramework _framework;
+    private volatile Map<String, Object> _properties;
+    private final Reference _reference;
+    private final String _scope;
+    private final Object _service;
+    private final long _serviceId;
+    private State _state = State.REGISTERED;
+    private final Map<Bundle, Usage> _usages = new HashMap<>();
+
+    private enum State {REGISTERED, UNREGISTERING, UNREGISTERED}
+
+    private class InMemoryServiceObjects implements ServiceObjects<S> {
+
+        InMemoryServiceObjects(Bundle bundle) {
+            _bundle = bundle;
+        }
+
+        @Override
+        public S getService() {
+            if (!_scope.equals(Constants.SCOPE_PROTOTYPE)) {
+                return InMemoryServiceRegistration.this.getService(_bundle);
+            }
+
+            synchronized (InMemoryServiceRegistration.this) {
+                if (_state == State.UNREGISTERED) {
+                    return null;
+                }
+
+                S service = createService(_bundle);
+
+                if (service != null) {
+                    _usages.computeIfAbsent(
+                        _bundle, Usage::new
+                    )._prototypes.merge(service, 1, Integer::sum);
+                }
+
+                return service;
+            }
+        }
+
+        @Override
+        public ServiceReference<S> getServiceReference() {
+            return _reference;
+        }
+
+        @Override
+        public void ungetService(S service) {
+            if (!_scope.equals(Constants.SCOPE_PROTOTYPE)) {
+                InMemoryServiceRegistration.this.ungetService(_bundle);
+
+                return;
+            }
+
+            synchronized (InMemoryServiceRegistration.this) {
+                Usage usage = _usages.get(_bundle);
+
+                Integer count =
+                    usage == null ? null : usage._prototypes.get(service);
+
+                if (count == null) {
+                    throw new IllegalArgumentException(
+                        "Service object was not obtained from this " +
+                            "ServiceObjects");
+                }
+
+                if (count > 1) {
+                    usage._prototypes.put(service, count - 1);
+
+                    return;
+                }
+
+                usage._prototypes.remove(service);
+
+                removeIfUnused(usage);
+            }
+
+            destroyService(_bundle, service);
+        }
+
+        private final Bundle _bundle;
+
+    }
+
+    private class Reference implements ServiceReference<S> {
+
+        @Override
+        public int compareTo(Object reference) {
+            ServiceReference<?> other = (ServiceReference<?>)reference;
+
+            long otherId = (Long)other.getProperty(Constants.SERVICE_ID);
+
+            if (_serviceId == otherId) {
+                return 0;
+            }
+
+            int ranking = getRanking(getProperty(Constants.SERVICE_RANKING));
+            int otherRanking = getRanking(
+                other.getProperty(Constants.SERVICE_RANKING));
+
+            if (ranking != otherRanking) {
+                return Integer.compare(ranking, otherRanking);
+            }
+
+            return Long.compare(otherId, _serviceId);
+        }
+
+        @Override
+        public Bundle getBundle() {
+            synchronized (InMemoryServiceRegistration.this) {
+                if (_state == State.UNREGISTERED) {
+                    return null;
+                }
+            }
+
+            return _bundle;
+        }
+
+        @Override
+        public Object getProperty(String key) {
+            return _properties.get(key);
+        }
+
+        @Override
+        public String[] getPropertyKeys() {
+            return _properties.keySet().toArray(new String[0]);
+        }
+
+        @Override
+        public Bundle[] getUsingBundles() {
+            synchronized (InMemoryServiceRegistration.this) {
+                if (_usages.isEmpty()) {
+                    return null;
+                }
+
+                return _usages.keySet().toArray(new Bundle[0]);
+            }
+        }
+
+        @Override
+        public boolean isAssignableTo(Bundle bundle, String className) {
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return _properties.toString();
+        }
+
+        InMemoryServiceRegistration<S> getRegistration() {
+            return InMemoryServiceRegistration.this;
+        }
+
+        private int getRanking(Object ranking) {
+            if (ranking instanceof Integer) {
+                return (Integer)ranking;
+            }
+
+            return 0;
+        }
+
+    }
+
+    /**
+     * The services one bundle got from this registration: the cached
+     * service object with its usage count and, for prototype scoped
+     * services, every instance handed out through {@link ServiceObjects}.
+     * Always accessed holding the registration lock.
+     */
+    private class Usage {
+
+        Usage(Bundle bundle) {
+            _bundle = bundle;
+        }
+
+        List<S> drain() {
+            List<S> released = new ArrayList<>(_prototypes.keySet());
+
+            if (_cached != null) {
+                released.add(_cached);
+            }
+
+            _count = 0;
+            _cached = null;
+            _prototypes.clear();
+
+            return released;
+        }
+
+        boolean isUnused() {
+            return _count == 0 && _prototypes.isEmpty();
+        }
+
+        private final Bundle _bundle;
+        private S _cached;
+        private int _count;
+        private final Map<S, Integer> _prototypes = new IdentityHashMap<>();
+
+    }
+
+}